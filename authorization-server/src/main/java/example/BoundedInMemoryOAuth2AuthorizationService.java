@@ -0,0 +1,340 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link OAuth2AuthorizationService} that keeps at most {@code maxSize} authorizations in memory.
+ *
+ * <p>
+ * An authorization expires with the last of its tokens; one without tokens yet, such as a pending consent, after
+ * {@code pendingTimeToLive}. Every save drops expired authorizations and, while the store is still full, the ones
+ * that expire first. Tokens are looked up through an index instead of a scan.
+ *
+ * <p>
+ * The latest {@code client_credentials} access token of each client and scope set is also indexed, so that
+ * {@link ClientCredentialsTokenReuseAuthenticationProvider} can hand it out again while it is still valid.
+ *
+ * @author Suleyman Yildirim
+ */
+public final class BoundedInMemoryOAuth2AuthorizationService implements OAuth2AuthorizationService {
+
+	private static final OAuth2TokenType STATE_TOKEN_TYPE = new OAuth2TokenType(OAuth2ParameterNames.STATE);
+
+	private static final OAuth2TokenType AUTHORIZATION_CODE_TOKEN_TYPE = new OAuth2TokenType(OAuth2ParameterNames.CODE);
+
+	private final int maxSize;
+
+	private final Duration pendingTimeToLive;
+
+	private final Clock clock;
+
+	private final Map<String, Entry> authorizations = new HashMap<>();
+
+	private final TreeSet<Entry> byExpiry = new TreeSet<>(
+			Comparator.comparing(Entry::getExpiresAt).thenComparing(Entry::getId));
+
+	private final Map<String, String> idsByToken = new HashMap<>();
+
+	private final Map<ClientScopes, String> clientCredentialsIds = new HashMap<>();
+
+	private long evictions;
+
+	public BoundedInMemoryOAuth2AuthorizationService(int maxSize, Duration pendingTimeToLive) {
+		this(maxSize, pendingTimeToLive, Clock.systemUTC());
+	}
+
+	BoundedInMemoryOAuth2AuthorizationService(int maxSize, Duration pendingTimeToLive, Clock clock) {
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.maxSize = maxSize;
+		this.pendingTimeToLive = pendingTimeToLive;
+		this.clock = clock;
+	}
+
+	@Override
+	public synchronized void save(OAuth2Authorization authorization) {
+		Assert.notNull(authorization, "authorization cannot be null");
+		Entry previous = this.authorizations.get(authorization.getId());
+		if (previous != null) {
+			removeEntry(previous);
+		}
+
+		Entry entry = new Entry(authorization, expiresAt(authorization));
+		this.authorizations.put(entry.getId(), entry);
+		this.byExpiry.add(entry);
+		for (String token : tokenValues(authorization)) {
+			this.idsByToken.put(token, entry.getId());
+		}
+		ClientScopes clientScopes = clientScopes(authorization);
+		if (clientScopes != null) {
+			this.clientCredentialsIds.put(clientScopes, entry.getId());
+		}
+
+		evict();
+	}
+
+	@Override
+	public synchronized void remove(OAuth2Authorization authorization) {
+		Assert.notNull(authorization, "authorization cannot be null");
+		Entry entry = this.authorizations.get(authorization.getId());
+		if (entry != null) {
+			removeEntry(entry);
+		}
+	}
+
+	@Override
+	public synchronized OAuth2Authorization findById(String id) {
+		Assert.hasText(id, "id cannot be empty");
+		Entry entry = this.authorizations.get(id);
+		return (entry != null) ? entry.getAuthorization() : null;
+	}
+
+	@Override
+	public synchronized OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+		Assert.hasText(token, "token cannot be empty");
+		String id = this.idsByToken.get(token);
+		Entry entry = (id != null) ? this.authorizations.get(id) : null;
+		if (entry == null || !hasToken(entry.getAuthorization(), token, tokenType)) {
+			return null;
+		}
+		return entry.getAuthorization();
+	}
+
+	/**
+	 * Returns the latest {@code client_credentials} access token issued to {@code registeredClientId} for exactly
+	 * {@code scopes}, or {@code null} when there is none that stays valid for at least {@code minTimeToLive}.
+	 */
+	public synchronized OAuth2AccessToken findReusableAccessToken(String registeredClientId, Set<String> scopes,
+			Duration minTimeToLive) {
+		String id = this.clientCredentialsIds.get(new ClientScopes(registeredClientId, scopes));
+		Entry entry = (id != null) ? this.authorizations.get(id) : null;
+		if (entry == null) {
+			return null;
+		}
+		OAuth2Authorization.Token<OAuth2AccessToken> accessToken = entry.getAuthorization().getAccessToken();
+		if (accessToken == null || accessToken.isInvalidated()) {
+			return null;
+		}
+		Instant expiresAt = accessToken.getToken().getExpiresAt();
+		if (expiresAt == null || expiresAt.isBefore(this.clock.instant().plus(minTimeToLive))) {
+			return null;
+		}
+		return accessToken.getToken();
+	}
+
+	public synchronized int size() {
+		return this.authorizations.size();
+	}
+
+	/**
+	 * Number of authorizations dropped because they expired or the store was full.
+	 */
+	public synchronized long getEvictionCount() {
+		return this.evictions;
+	}
+
+	private void evict() {
+		Instant now = this.clock.instant();
+		while (!this.byExpiry.isEmpty()) {
+			Entry first = this.byExpiry.first();
+			if (first.getExpiresAt().isAfter(now) && this.authorizations.size() <= this.maxSize) {
+				return;
+			}
+			removeEntry(first);
+			this.evictions++;
+		}
+	}
+
+	private void removeEntry(Entry entry) {
+		this.authorizations.remove(entry.getId());
+		this.byExpiry.remove(entry);
+		for (String token : tokenValues(entry.getAuthorization())) {
+			this.idsByToken.remove(token, entry.getId());
+		}
+		ClientScopes clientScopes = clientScopes(entry.getAuthorization());
+		if (clientScopes != null) {
+			this.clientCredentialsIds.remove(clientScopes, entry.getId());
+		}
+	}
+
+	private Instant expiresAt(OAuth2Authorization authorization) {
+		Instant expiresAt = null;
+		for (AbstractOAuth2Token token : tokens(authorization)) {
+			if (token.getExpiresAt() != null && (expiresAt == null || token.getExpiresAt().isAfter(expiresAt))) {
+				expiresAt = token.getExpiresAt();
+			}
+		}
+		return (expiresAt != null) ? expiresAt : this.clock.instant().plus(this.pendingTimeToLive);
+	}
+
+	private static List<AbstractOAuth2Token> tokens(OAuth2Authorization authorization) {
+		List<AbstractOAuth2Token> tokens = new ArrayList<>(4);
+		addToken(tokens, authorization.getToken(OAuth2AuthorizationCode.class));
+		addToken(tokens, authorization.getAccessToken());
+		addToken(tokens, authorization.getRefreshToken());
+		addToken(tokens, authorization.getToken(OidcIdToken.class));
+		return tokens;
+	}
+
+	private static void addToken(List<AbstractOAuth2Token> tokens, OAuth2Authorization.Token<?> token) {
+		if (token != null) {
+			tokens.add(token.getToken());
+		}
+	}
+
+	private static List<String> tokenValues(OAuth2Authorization authorization) {
+		List<String> values = new ArrayList<>(4);
+		String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+		if (state != null) {
+			values.add(state);
+		}
+		for (AbstractOAuth2Token token : tokens(authorization)) {
+			if (!(token instanceof OidcIdToken)) {
+				values.add(token.getTokenValue());
+			}
+		}
+		return values;
+	}
+
+	private static ClientScopes clientScopes(OAuth2Authorization authorization) {
+		if (!AuthorizationGrantType.CLIENT_CREDENTIALS.equals(authorization.getAuthorizationGrantType())
+				|| authorization.getAccessToken() == null) {
+			return null;
+		}
+		return new ClientScopes(authorization.getRegisteredClientId(),
+				authorization.getAccessToken().getToken().getScopes());
+	}
+
+	private static boolean hasToken(OAuth2Authorization authorization, String token, OAuth2TokenType tokenType) {
+		if (tokenType == null) {
+			return matchesState(authorization, token) || matchesAuthorizationCode(authorization, token)
+					|| matchesAccessToken(authorization, token) || matchesRefreshToken(authorization, token);
+		}
+		else if (STATE_TOKEN_TYPE.equals(tokenType)) {
+			return matchesState(authorization, token);
+		}
+		else if (AUTHORIZATION_CODE_TOKEN_TYPE.equals(tokenType)) {
+			return matchesAuthorizationCode(authorization, token);
+		}
+		else if (OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+			return matchesAccessToken(authorization, token);
+		}
+		else if (OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
+			return matchesRefreshToken(authorization, token);
+		}
+		return false;
+	}
+
+	private static boolean matchesState(OAuth2Authorization authorization, String token) {
+		return token.equals(authorization.getAttribute(OAuth2ParameterNames.STATE));
+	}
+
+	private static boolean matchesAuthorizationCode(OAuth2Authorization authorization, String token) {
+		OAuth2Authorization.Token<OAuth2AuthorizationCode> authorizationCode = authorization
+				.getToken(OAuth2AuthorizationCode.class);
+		return authorizationCode != null && authorizationCode.getToken().getTokenValue().equals(token);
+	}
+
+	private static boolean matchesAccessToken(OAuth2Authorization authorization, String token) {
+		OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getAccessToken();
+		return accessToken != null && accessToken.getToken().getTokenValue().equals(token);
+	}
+
+	private static boolean matchesRefreshToken(OAuth2Authorization authorization, String token) {
+		OAuth2Authorization.Token<OAuth2RefreshToken> refreshToken = authorization.getRefreshToken();
+		return refreshToken != null && refreshToken.getToken().getTokenValue().equals(token);
+	}
+
+	private static final class Entry {
+
+		private final OAuth2Authorization authorization;
+
+		private final Instant expiresAt;
+
+		private Entry(OAuth2Authorization authorization, Instant expiresAt) {
+			this.authorization = authorization;
+			this.expiresAt = expiresAt;
+		}
+
+		private String getId() {
+			return this.authorization.getId();
+		}
+
+		private OAuth2Authorization getAuthorization() {
+			return this.authorization;
+		}
+
+		private Instant getExpiresAt() {
+			return this.expiresAt;
+		}
+
+	}
+
+	private static final class ClientScopes {
+
+		private final String registeredClientId;
+
+		private final Set<String> scopes;
+
+		private ClientScopes(String registeredClientId, Set<String> scopes) {
+			this.registeredClientId = registeredClientId;
+			this.scopes = scopes;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ClientScopes)) {
+				return false;
+			}
+			ClientScopes other = (ClientScopes) obj;
+			return this.registeredClientId.equals(other.registeredClientId) && this.scopes.equals(other.scopes);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.registeredClientId, this.scopes);
+		}
+
+	}
+
+}
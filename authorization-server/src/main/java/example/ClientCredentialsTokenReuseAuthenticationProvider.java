@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2AccessTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientCredentialsAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+/**
+ * Answers a {@code client_credentials} token request with the access token last issued to the same client for the
+ * same scopes, as long as it stays valid for at least {@code minTimeToLive}, instead of signing a new one.
+ *
+ * <p>
+ * It returns {@code null} for every request it cannot answer that way, including invalid ones, so that the default
+ * {@code OAuth2ClientCredentialsAuthenticationProvider} issues a token or rejects the request as before. A reused
+ * token is returned with {@code expires_in} set to its remaining lifetime.
+ *
+ * @author Suleyman Yildirim
+ */
+public final class ClientCredentialsTokenReuseAuthenticationProvider implements AuthenticationProvider {
+
+	private final BoundedInMemoryOAuth2AuthorizationService authorizationService;
+
+	private final Duration minTimeToLive;
+
+	private final Clock clock;
+
+	public ClientCredentialsTokenReuseAuthenticationProvider(
+			BoundedInMemoryOAuth2AuthorizationService authorizationService, Duration minTimeToLive) {
+		this(authorizationService, minTimeToLive, Clock.systemUTC());
+	}
+
+	ClientCredentialsTokenReuseAuthenticationProvider(BoundedInMemoryOAuth2AuthorizationService authorizationService,
+			Duration minTimeToLive, Clock clock) {
+		this.authorizationService = authorizationService;
+		this.minTimeToLive = minTimeToLive;
+		this.clock = clock;
+	}
+
+	@Override
+	public Authentication authenticate(Authentication authentication) {
+		OAuth2ClientCredentialsAuthenticationToken tokenRequest = (OAuth2ClientCredentialsAuthenticationToken) authentication;
+		if (!(tokenRequest.getPrincipal() instanceof OAuth2ClientAuthenticationToken)) {
+			return null;
+		}
+		OAuth2ClientAuthenticationToken clientPrincipal = (OAuth2ClientAuthenticationToken) tokenRequest.getPrincipal();
+		RegisteredClient registeredClient = clientPrincipal.getRegisteredClient();
+		if (!clientPrincipal.isAuthenticated() || registeredClient == null
+				|| !registeredClient.getAuthorizationGrantTypes().contains(AuthorizationGrantType.CLIENT_CREDENTIALS)) {
+			return null;
+		}
+
+		// Same default as the client_credentials provider: no requested scope means all scopes of the client
+		Set<String> scopes = tokenRequest.getScopes().isEmpty() ? registeredClient.getScopes()
+				: tokenRequest.getScopes();
+		if (!registeredClient.getScopes().containsAll(scopes)) {
+			return null;
+		}
+
+		OAuth2AccessToken accessToken = this.authorizationService.findReusableAccessToken(registeredClient.getId(),
+				scopes, this.minTimeToLive);
+		if (accessToken == null) {
+			return null;
+		}
+
+		// The token response derives expires_in from the issue time, so report the remaining lifetime instead
+		OAuth2AccessToken remaining = new OAuth2AccessToken(accessToken.getTokenType(), accessToken.getTokenValue(),
+				this.clock.instant(), accessToken.getExpiresAt(), accessToken.getScopes());
+		return new OAuth2AccessTokenAuthenticationToken(registeredClient, clientPrincipal, remaining);
+	}
+
+	@Override
+	public boolean supports(Class<?> authentication) {
+		return OAuth2ClientCredentialsAuthenticationToken.class.isAssignableFrom(authentication);
+	}
+
+}
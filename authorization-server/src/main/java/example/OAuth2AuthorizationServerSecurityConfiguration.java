@@ -16,22 +16,12 @@
 
 package example;
 
-import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
 import java.util.UUID;
 
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
-import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.proc.SecurityContext;
-
-import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Role;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -42,8 +32,6 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
 import org.springframework.security.oauth2.core.oidc.OidcScopes;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
@@ -53,7 +41,7 @@ import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
 /**
- * OAuth Authorization Server Configuration.
+ * OAuth Authorization Server Configuration. The token signing key is set up by {@link SigningKeyConfiguration}.
  *
  * @author Steve Riesenberg
  * @author Updated by Suleyman Yildirim
@@ -61,10 +49,28 @@ import org.springframework.security.web.SecurityFilterChain;
 @Configuration
 public class OAuth2AuthorizationServerSecurityConfiguration {
 
+	@Value("${authorization.store.max-size:10000}")
+	private int authorizationStoreMaxSize;
+
+	@Value("${authorization.store.pending-time-to-live:PT10M}")
+	private Duration pendingAuthorizationTimeToLive;
+
+	@Value("${authorization.client-credentials.reuse-tokens:false}")
+	private boolean reuseClientCredentialsTokens;
+
+	@Value("${authorization.client-credentials.reuse-min-time-to-live:PT1M}")
+	private Duration reuseMinTimeToLive;
+
 	@Bean
 	@Order(1)
-	public SecurityFilterChain authorizationServerSecurityFilterChain(HttpSecurity http) throws Exception {
+	public SecurityFilterChain authorizationServerSecurityFilterChain(HttpSecurity http,
+			BoundedInMemoryOAuth2AuthorizationService authorizationService) throws Exception {
 		OAuth2AuthorizationServerConfiguration.applyDefaultSecurity(http);
+		if (this.reuseClientCredentialsTokens) {
+			// Registered before the default providers, which only run when no reusable token is found
+			http.authenticationProvider(
+					new ClientCredentialsTokenReuseAuthenticationProvider(authorizationService, this.reuseMinTimeToLive));
+		}
 		return http.formLogin(Customizer.withDefaults()).build();
 	}
 
@@ -105,28 +111,23 @@ public class OAuth2AuthorizationServerSecurityConfiguration {
 				.scope("message:read")
 				.scope("message:write")
 				.build();
-		// @formatter:on
-
-		return new InMemoryRegisteredClientRepository(loginClient, registeredClient);
-	}
-
-	@Bean
-	public JWKSource<SecurityContext> jwkSource(KeyPair keyPair) {
-		RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
-		RSAPrivateKey privateKey = (RSAPrivateKey) keyPair.getPrivate();
-		// @formatter:off
-		RSAKey rsaKey = new RSAKey.Builder(publicKey)
-				.privateKey(privateKey)
-				.keyID(UUID.randomUUID().toString())
+		// Reads and clears the todo-app's actuator endpoints, e.g. /actuator/queries
+		RegisteredClient adminClient = RegisteredClient.withId(UUID.randomUUID().toString())
+				.clientId("admin-client")
+				.clientSecret("{noop}admin-secret")
+				.clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+				.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+				.scope("todo:admin")
 				.build();
 		// @formatter:on
-		JWKSet jwkSet = new JWKSet(rsaKey);
-		return new ImmutableJWKSet<>(jwkSet);
+
+		return new InMemoryRegisteredClientRepository(loginClient, registeredClient, adminClient);
 	}
 
 	@Bean
-	public JwtDecoder jwtDecoder(KeyPair keyPair) {
-		return NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+	public BoundedInMemoryOAuth2AuthorizationService authorizationService() {
+		return new BoundedInMemoryOAuth2AuthorizationService(this.authorizationStoreMaxSize,
+				this.pendingAuthorizationTimeToLive);
 	}
 
 	@Bean
@@ -147,19 +148,4 @@ public class OAuth2AuthorizationServerSecurityConfiguration {
 		return new InMemoryUserDetailsManager(userDetails);
 	}
 
-	@Bean
-	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
-	KeyPair generateRsaKey() {
-		KeyPair keyPair;
-		try {
-			KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-			keyPairGenerator.initialize(2048);
-			keyPair = keyPairGenerator.generateKeyPair();
-		}
-		catch (Exception ex) {
-			throw new IllegalStateException(ex);
-		}
-		return keyPair;
-	}
-
 }
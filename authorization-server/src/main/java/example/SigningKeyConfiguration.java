@@ -0,0 +1,183 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Set;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.config.annotation.web.configuration.OAuth2AuthorizationServerConfiguration;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.authorization.JwtEncodingContext;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenCustomizer;
+import org.springframework.util.StringUtils;
+
+/**
+ * Token signing key configuration.
+ *
+ * <p>
+ * The signing key is loaded from the PKCS#12 keystore at {@code signing.keystore.path} when that file exists, so
+ * tokens stay valid across restarts. Otherwise a new key is generated at every boot. {@code signing.algorithm}
+ * selects {@code RS256} (default) or {@code ES256}, which signs and verifies much faster. The key ID is the key's
+ * JWK thumbprint, so it only changes when the key does.
+ *
+ * @author Suleyman Yildirim
+ */
+@Configuration
+public class SigningKeyConfiguration {
+
+	private static final Log logger = LogFactory.getLog(SigningKeyConfiguration.class);
+
+	/**
+	 * The algorithms the todo-app accepts, see its {@code OAuth2ResourceServerSecurityConfiguration}; a token
+	 * signed with any other would be rejected there.
+	 */
+	static final Set<JWSAlgorithm> SIGNING_ALGORITHMS = Set.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256);
+
+	@Bean
+	public JWKSource<SecurityContext> jwkSource(JWK signingKey) {
+		return new ImmutableJWKSet<>(new JWKSet(signingKey));
+	}
+
+	@Bean
+	public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource) {
+		return OAuth2AuthorizationServerConfiguration.jwtDecoder(jwkSource);
+	}
+
+	@Bean
+	public OAuth2TokenCustomizer<JwtEncodingContext> signingAlgorithmCustomizer(JWK signingKey) {
+		SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.from(signingKey.getAlgorithm().getName());
+		return (context) -> context.getHeaders().jwsAlgorithm(signatureAlgorithm);
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	JWK signingKey(@Value("${signing.algorithm:RS256}") String algorithm,
+			@Value("${signing.keystore.path:}") String keystorePath,
+			@Value("${signing.keystore.password:}") String keystorePassword,
+			@Value("${signing.keystore.alias:signing-key}") String keyAlias) {
+		JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithm);
+		if (!SIGNING_ALGORITHMS.contains(jwsAlgorithm)) {
+			throw new IllegalStateException("Unsupported signing algorithm " + algorithm + ", expected one of "
+					+ SIGNING_ALGORITHMS);
+		}
+
+		JWK key;
+		if (StringUtils.hasText(keystorePath) && Files.exists(Path.of(keystorePath))) {
+			key = loadKey(Path.of(keystorePath), keystorePassword.toCharArray(), keyAlias, jwsAlgorithm);
+			logger.info("Loaded " + jwsAlgorithm + " signing key " + key.getKeyID() + " from " + keystorePath);
+		}
+		else {
+			key = generateKey(jwsAlgorithm);
+			logger.warn("Generated a new " + jwsAlgorithm + " signing key; tokens issued before this restart are "
+					+ "no longer valid. Set signing.keystore.path to keep the key across restarts.");
+		}
+		return key;
+	}
+
+	static JWK generateKey(JWSAlgorithm jwsAlgorithm) {
+		try {
+			if (JWSAlgorithm.Family.RSA.contains(jwsAlgorithm)) {
+				// @formatter:off
+				return new RSAKeyGenerator(2048)
+						.keyUse(KeyUse.SIGNATURE)
+						.algorithm(jwsAlgorithm)
+						.keyIDFromThumbprint(true)
+						.generate();
+				// @formatter:on
+			}
+			// @formatter:off
+			return new ECKeyGenerator(Curve.forJWSAlgorithm(jwsAlgorithm).iterator().next())
+					.keyUse(KeyUse.SIGNATURE)
+					.algorithm(jwsAlgorithm)
+					.keyIDFromThumbprint(true)
+					.generate();
+			// @formatter:on
+		}
+		catch (JOSEException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	static JWK loadKey(Path keystorePath, char[] password, String alias, JWSAlgorithm jwsAlgorithm) {
+		JWK loaded;
+		try (InputStream in = Files.newInputStream(keystorePath)) {
+			KeyStore keyStore = KeyStore.getInstance("PKCS12");
+			keyStore.load(in, password);
+			loaded = JWK.load(keyStore, alias, password);
+		}
+		catch (IOException | GeneralSecurityException | JOSEException ex) {
+			throw new IllegalStateException("Failed to load signing key from " + keystorePath, ex);
+		}
+		if (loaded == null || !loaded.isPrivate()) {
+			throw new IllegalStateException("No key pair with alias " + alias + " in " + keystorePath);
+		}
+
+		try {
+			if (loaded instanceof RSAKey && JWSAlgorithm.Family.RSA.contains(jwsAlgorithm)) {
+				// @formatter:off
+				return new RSAKey.Builder((RSAKey) loaded)
+						.keyUse(KeyUse.SIGNATURE)
+						.algorithm(jwsAlgorithm)
+						.keyIDFromThumbprint()
+						.build();
+				// @formatter:on
+			}
+			if (loaded instanceof ECKey && JWSAlgorithm.Family.EC.contains(jwsAlgorithm)
+					&& Curve.forJWSAlgorithm(jwsAlgorithm).contains(((ECKey) loaded).getCurve())) {
+				// @formatter:off
+				return new ECKey.Builder((ECKey) loaded)
+						.keyUse(KeyUse.SIGNATURE)
+						.algorithm(jwsAlgorithm)
+						.keyIDFromThumbprint()
+						.build();
+				// @formatter:on
+			}
+		}
+		catch (JOSEException ex) {
+			throw new IllegalStateException(ex);
+		}
+		throw new IllegalStateException("Key " + alias + " in " + keystorePath + " cannot sign " + jwsAlgorithm);
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BoundedInMemoryOAuth2AuthorizationService}.
+ *
+ * @author Suleyman Yildirim
+ */
+public class BoundedInMemoryOAuth2AuthorizationServiceTests {
+
+	private static final Instant NOW = Instant.parse("2024-08-30T10:00:00Z");
+
+	private static final Duration PENDING_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+	private static final Set<String> SCOPES = Collections.singleton("message:read");
+
+	// @formatter:off
+	private final RegisteredClient registeredClient = RegisteredClient.withId(UUID.randomUUID().toString())
+			.clientId("messaging-client")
+			.clientSecret("{noop}secret")
+			.clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+			.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+			.scope("message:read")
+			.scope("message:write")
+			.build();
+	// @formatter:on
+
+	private BoundedInMemoryOAuth2AuthorizationService service(int maxSize, Instant now) {
+		return new BoundedInMemoryOAuth2AuthorizationService(maxSize, PENDING_TIME_TO_LIVE,
+				Clock.fixed(now, ZoneOffset.UTC));
+	}
+
+	private OAuth2Authorization authorization(String tokenValue, Instant expiresAt, Set<String> scopes) {
+		OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, tokenValue,
+				expiresAt.minus(Duration.ofMinutes(5)), expiresAt, scopes);
+		// @formatter:off
+		return OAuth2Authorization.withRegisteredClient(this.registeredClient)
+				.id(UUID.randomUUID().toString())
+				.principalName(this.registeredClient.getClientId())
+				.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+				.accessToken(accessToken)
+				.build();
+		// @formatter:on
+	}
+
+	@Test
+	public void findByTokenWhenSavedThenFound() {
+		BoundedInMemoryOAuth2AuthorizationService service = service(10, NOW);
+		OAuth2Authorization authorization = authorization("token", NOW.plus(Duration.ofMinutes(5)), SCOPES);
+
+		service.save(authorization);
+
+		assertThat(service.findByToken("token", OAuth2TokenType.ACCESS_TOKEN)).isSameAs(authorization);
+		assertThat(service.findByToken("token", null)).isSameAs(authorization);
+		assertThat(service.findByToken("token", OAuth2TokenType.REFRESH_TOKEN)).isNull();
+		assertThat(service.findById(authorization.getId())).isSameAs(authorization);
+	}
+
+	@Test
+	public void removeWhenSavedThenNotFound() {
+		BoundedInMemoryOAuth2AuthorizationService service = service(10, NOW);
+		OAuth2Authorization authorization = authorization("token", NOW.plus(Duration.ofMinutes(5)), SCOPES);
+		service.save(authorization);
+
+		service.remove(authorization);
+
+		assertThat(service.findByToken("token", null)).isNull();
+		assertThat(service.findReusableAccessToken(this.registeredClient.getId(), SCOPES, Duration.ZERO)).isNull();
+		assertThat(service.size()).isZero();
+	}
+
+	@Test
+	public void saveWhenFullThenEvictsAuthorizationExpiringFirst() {
+		BoundedInMemoryOAuth2AuthorizationService service = service(2, NOW);
+		service.save(authorization("late", NOW.plus(Duration.ofMinutes(5)), SCOPES));
+		service.save(authorization("early", NOW.plus(Duration.ofMinutes(1)), SCOPES));
+
+		service.save(authorization("latest", NOW.plus(Duration.ofMinutes(4)), SCOPES));
+
+		assertThat(service.size()).isEqualTo(2);
+		assertThat(service.findByToken("early", null)).isNull();
+		assertThat(service.findByToken("late", null)).isNotNull();
+		assertThat(service.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void saveWhenOthersExpiredThenEvictsThem() {
+		BoundedInMemoryOAuth2AuthorizationService service = service(10, NOW);
+		service.save(authorization("expired", NOW, SCOPES));
+
+		service.save(authorization("valid", NOW.plus(Duration.ofMinutes(5)), SCOPES));
+
+		assertThat(service.size()).isEqualTo(1);
+		assertThat(service.findByToken("expired", null)).isNull();
+	}
+
+	@Test
+	public void findReusableAccessTokenWhenValidLongEnoughThenFound() {
+		BoundedInMemoryOAuth2AuthorizationService service = service(10, NOW);
+		service.save(authorization("token", NOW.plus(Duration.ofMinutes(5)), SCOPES));
+
+		OAuth2AccessToken reusable = service.findReusableAccessToken(this.registeredClient.getId(), SCOPES,
+				Duration.ofMinutes(1));
+
+		assertThat(reusable.getTokenValue()).isEqualTo("token");
+		assertThat(service.findReusableAccessToken(this.registeredClient.getId(), SCOPES, Duration.ofMinutes(6)))
+				.isNull();
+		assertThat(service.findReusableAccessToken(this.registeredClient.getId(),
+				Collections.singleton("message:write"), Duration.ZERO)).isNull();
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Duration;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for {@link ClientCredentialsTokenReuseAuthenticationProvider} through the token endpoint.
+ *
+ * @author Suleyman Yildirim
+ */
+@SpringBootTest(properties = "authorization.client-credentials.reuse-tokens=true")
+@AutoConfigureMockMvc
+public class ClientCredentialsTokenReuseTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	public void tokenWhenRequestedAgainThenSameTokenWithRemainingLifetime() throws Exception {
+		MvcResult first = requestToken("message:read");
+		// expires_in is in whole seconds
+		Thread.sleep(Duration.ofMillis(1100).toMillis());
+		MvcResult second = requestToken("message:read");
+
+		assertThat(accessToken(second)).isEqualTo(accessToken(first));
+		assertThat(expiresIn(second)).isLessThan(expiresIn(first));
+	}
+
+	@Test
+	public void tokenWhenOtherScopesRequestedThenNewToken() throws Exception {
+		MvcResult read = requestToken("message:read");
+		MvcResult readWrite = requestToken("message:read message:write");
+
+		assertThat(accessToken(readWrite)).isNotEqualTo(accessToken(read));
+		assertThat(accessToken(requestToken("message:read message:write"))).isEqualTo(accessToken(readWrite));
+	}
+
+	@Test
+	public void tokenWhenPreviousTokenRevokedThenNewToken() throws Exception {
+		String revoked = accessToken(requestToken("message:write"));
+		// @formatter:off
+		this.mockMvc.perform(post("/oauth2/revoke")
+				.with(httpBasic("messaging-client", "secret"))
+				.param("token", revoked)
+				.param("token_type_hint", "access_token"))
+			.andExpect(status().isOk());
+		// @formatter:on
+
+		assertThat(accessToken(requestToken("message:write"))).isNotEqualTo(revoked);
+	}
+
+	private MvcResult requestToken(String scope) throws Exception {
+		// @formatter:off
+		return this.mockMvc.perform(post("/oauth2/token")
+				.with(httpBasic("messaging-client", "secret"))
+				.param("grant_type", "client_credentials")
+				.param("scope", scope))
+			.andExpect(status().isOk())
+			.andReturn();
+		// @formatter:on
+	}
+
+	private static String accessToken(MvcResult result) throws Exception {
+		return JsonPath.read(result.getResponse().getContentAsString(), "$.access_token");
+	}
+
+	private static int expiresIn(MvcResult result) throws Exception {
+		return JsonPath.read(result.getResponse().getContentAsString(), "$.expires_in");
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares token issue (sign) and verify throughput of the signing algorithms supported by
+ * {@link SigningKeyConfiguration}.
+ *
+ * <p>
+ * Run with {@code ./gradlew test --tests example.SigningAlgorithmBenchmarkTests -Dbenchmark=true}.
+ *
+ * @author Suleyman Yildirim
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SigningAlgorithmBenchmarkTests {
+
+	private static final int WARMUP = 2_000;
+
+	private static final int TOKENS = 10_000;
+
+	@Test
+	public void compareSigningAlgorithms() throws Exception {
+		for (JWSAlgorithm algorithm : Arrays.asList(JWSAlgorithm.RS256, JWSAlgorithm.ES256)) {
+			JWK key = SigningKeyConfiguration.generateKey(algorithm);
+			JWSSigner signer = (key instanceof RSAKey) ? new RSASSASigner((RSAKey) key) : new ECDSASigner((ECKey) key);
+			JWSVerifier verifier = (key instanceof RSAKey) ? new RSASSAVerifier((RSAKey) key.toPublicJWK())
+					: new ECDSAVerifier((ECKey) key.toPublicJWK());
+			JWSHeader header = new JWSHeader.Builder(algorithm).keyID(key.getKeyID()).build();
+
+			sign(header, signer, WARMUP);
+			long signStart = System.nanoTime();
+			SignedJWT[] tokens = sign(header, signer, TOKENS);
+			long signNanos = System.nanoTime() - signStart;
+
+			verify(tokens, verifier);
+			long verifyStart = System.nanoTime();
+			verify(tokens, verifier);
+			long verifyNanos = System.nanoTime() - verifyStart;
+
+			System.out.printf("%-6s: issue %,8.0f tokens/s, verify %,8.0f tokens/s%n", algorithm,
+					TOKENS / (signNanos / 1_000_000_000.0), TOKENS / (verifyNanos / 1_000_000_000.0));
+		}
+	}
+
+	private static SignedJWT[] sign(JWSHeader header, JWSSigner signer, int count) throws JOSEException {
+		SignedJWT[] tokens = new SignedJWT[count];
+		for (int i = 0; i < count; i++) {
+			// @formatter:off
+			JWTClaimsSet claims = new JWTClaimsSet.Builder()
+					.subject("messaging-client")
+					.claim("scope", Arrays.asList("message:read", "message:write"))
+					.issueTime(new Date())
+					.expirationTime(Date.from(Instant.now().plus(Duration.ofMinutes(5))))
+					.jwtID(Integer.toString(i))
+					.build();
+			// @formatter:on
+			tokens[i] = new SignedJWT(header, claims);
+			tokens[i].sign(signer);
+		}
+		return tokens;
+	}
+
+	private static void verify(SignedJWT[] tokens, JWSVerifier verifier) throws JOSEException {
+		for (SignedJWT token : tokens) {
+			assertThat(token.verify(verifier)).isTrue();
+		}
+	}
+
+}
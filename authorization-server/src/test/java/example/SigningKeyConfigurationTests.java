@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link SigningKeyConfiguration}.
+ *
+ * @author Suleyman Yildirim
+ */
+public class SigningKeyConfigurationTests {
+
+	private final SigningKeyConfiguration configuration = new SigningKeyConfiguration();
+
+	@ParameterizedTest
+	@ValueSource(strings = { "RS256", "ES256" })
+	public void signingKeyWhenAlgorithmAcceptedByTheTodoAppThenGenerated(String algorithm) {
+		JWK key = this.configuration.signingKey(algorithm, "", "", "signing-key");
+
+		assertThat(key.getAlgorithm()).isEqualTo(JWSAlgorithm.parse(algorithm));
+		assertThat(key.isPrivate()).isTrue();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "RS384", "RS512", "PS256", "ES384", "ES512", "HS256" })
+	public void signingKeyWhenAlgorithmRejectedByTheTodoAppThenFailsAtStartup(String algorithm) {
+		assertThatIllegalStateException()
+			.isThrownBy(() -> this.configuration.signingKey(algorithm, "", "", "signing-key"))
+			.withMessageContaining("Unsupported signing algorithm " + algorithm);
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.User;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Test data shared by the JMH benchmarks.
+ *
+ * @author suleyman.yildirim
+ */
+final class BenchmarkFixtures {
+
+    static final String USER_ID = "benchmark-user";
+
+    private BenchmarkFixtures() {
+    }
+
+    static Task task(String taskId, String userId) {
+        return Task.builder()
+                .taskId(taskId)
+                .title("Prepare the quarterly report")
+                .description("Collect the numbers from every team and summarise them for the board meeting")
+                .dueDate("2024-08-30")
+                .priority("High")
+                .completed(false)
+                .userId(userId)
+                .build();
+    }
+
+    static List<Task> tasks(int count, String userId) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(task("task-" + i, userId));
+        }
+        return tasks;
+    }
+
+    static User user(String userId) {
+        return User.builder()
+                .userId(userId)
+                .username("benchmark")
+                .email("benchmark@example.com")
+                .build();
+    }
+
+    /**
+     * A filter that knows exactly {@code userIds}, as after a rebuild from the bucket.
+     */
+    static KnownUserFilter knownUserFilter(String... userIds) {
+        KnownUserFilter filter = new KnownUserFilter(true, 1_000_000, 0.01, DataSize.ofMegabytes(4));
+        filter.rebuild(Stream.of(userIds));
+        return filter;
+    }
+}
@@ -0,0 +1,81 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.cache.VerifiedJwtCache;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per request of verifying a reused RS256 bearer token on every request against serving it from
+ * {@link VerifiedJwtCache}, on one thread and with eight threads sharing the cache as request threads do.
+ *
+ * @author suleyman.yildirim
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtDecodeBenchmark {
+
+    private String token;
+    private NimbusJwtDecoder verifier;
+    private VerifiedJwtCache cache;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                new JWTClaimsSet.Builder()
+                        .subject("messaging-client")
+                        .claim("scope", List.of("message:read", "message:write"))
+                        .issueTime(new Date())
+                        .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                        .build());
+        jwt.sign(new RSASSASigner(key));
+        token = jwt.serialize();
+        verifier = NimbusJwtDecoder.withPublicKey(key.toRSAPublicKey()).build();
+        cache = new VerifiedJwtCache(true, 10_000);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return verifier.decode(token);
+    }
+
+    @Benchmark
+    public Jwt cached() {
+        return cache.get(token, verifier);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Jwt cachedShared() {
+        return cache.get(token, verifier);
+    }
+}
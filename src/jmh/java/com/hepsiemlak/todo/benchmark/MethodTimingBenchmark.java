@@ -0,0 +1,114 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.metrics.MethodTimingAspect;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.repository.TaskRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskListVersionRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskRepository;
+import com.hepsiemlak.todo.service.TaskKeys;
+import com.hepsiemlak.todo.service.TaskService;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.hepsiemlak.todo.benchmark.BenchmarkFixtures.USER_ID;
+
+/**
+ * Overhead of {@link MethodTimingAspect}: the same {@link TaskService} calls with and without the service and
+ * repository timed, recorded into a Prometheus registry with the histogram settings of {@code application.properties}.
+ * {@code getTask} is served from the task cache, so it shows the overhead relative to the cheapest call.
+ *
+ * @author suleyman.yildirim
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MethodTimingBenchmark {
+
+    @Param({"1", "100"})
+    int taskCount;
+
+    private TaskService untimedService;
+    private TaskService timedService;
+    private String taskId;
+
+    @Setup
+    public void setUp() {
+        List<Task> tasks = BenchmarkFixtures.tasks(taskCount, USER_ID);
+        taskId = tasks.get(0).getTaskId();
+
+        InMemoryTaskRepository taskRepository = new InMemoryTaskRepository();
+        tasks.forEach(taskRepository::save);
+        untimedService = taskService(taskRepository);
+
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) Duration.ofNanos(100_000).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(10).toNanos())
+                        .build()
+                        .merge(config);
+            }
+        });
+        MethodTimingAspect aspect = new MethodTimingAspect(registry);
+        timedService = timed(taskService(timed(taskRepository, aspect)), aspect);
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUser() {
+        return untimedService.getTasksByUser(USER_ID);
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUserTimed() {
+        return timedService.getTasksByUser(USER_ID);
+    }
+
+    @Benchmark
+    public Task getTask() {
+        return untimedService.getTaskByIdAndUser(taskId, USER_ID);
+    }
+
+    @Benchmark
+    public Task getTaskTimed() {
+        return timedService.getTaskByIdAndUser(taskId, USER_ID);
+    }
+
+    private static TaskService taskService(TaskRepository taskRepository) {
+        return new TaskService(taskRepository, new TaskCache(true, 10_000, Duration.ofMinutes(1)),
+                new InMemoryTaskListVersionRepository(), new TaskKeys(false),
+                BenchmarkFixtures.knownUserFilter(USER_ID));
+    }
+
+    private static <T> T timed(T target, MethodTimingAspect aspect) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(aspect);
+        return proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,64 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.hepsiemlak.todo.benchmark.BenchmarkFixtures.USER_ID;
+
+/**
+ * Jackson serialization of task lists and of a user with its tasks, as the controllers write them, with an
+ * {@link ObjectMapper} configured like Spring Boot's.
+ *
+ * @author suleyman.yildirim
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    int size;
+
+    private ObjectWriter writer;
+    private List<Task> tasks;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        tasks = BenchmarkFixtures.tasks(size, USER_ID);
+        user = BenchmarkFixtures.user(USER_ID);
+        user.setTasks(tasks);
+    }
+
+    @Benchmark
+    public byte[] writeTasks() throws JsonProcessingException {
+        return writer.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] writeUserWithTasks() throws JsonProcessingException {
+        return writer.writeValueAsBytes(user);
+    }
+}
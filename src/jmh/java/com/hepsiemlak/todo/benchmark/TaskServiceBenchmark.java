@@ -0,0 +1,58 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskListVersionRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskRepository;
+import com.hepsiemlak.todo.service.TaskKeys;
+import com.hepsiemlak.todo.service.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.hepsiemlak.todo.benchmark.BenchmarkFixtures.USER_ID;
+
+/**
+ * Cost of {@link TaskService#getTasksByUser(String)} on top of the repository, by the number of tasks the user has.
+ *
+ * @author suleyman.yildirim
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskServiceBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    int taskCount;
+
+    private TaskService taskService;
+
+    @Setup
+    public void setUp() {
+        InMemoryTaskRepository taskRepository = new InMemoryTaskRepository();
+        BenchmarkFixtures.tasks(taskCount, USER_ID).forEach(taskRepository::save);
+        taskService = new TaskService(taskRepository, new TaskCache(true, 10_000, Duration.ofMinutes(1)),
+                new InMemoryTaskListVersionRepository(), new TaskKeys(false),
+                BenchmarkFixtures.knownUserFilter(USER_ID));
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUser() {
+        return taskService.getTasksByUser(USER_ID);
+    }
+}
@@ -0,0 +1,78 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskListVersionRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskRepository;
+import com.hepsiemlak.todo.service.TaskKeys;
+import com.hepsiemlak.todo.service.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.hepsiemlak.todo.benchmark.BenchmarkFixtures.USER_ID;
+
+/**
+ * Cost of {@link TaskService#updateTaskForUser(String, Task)} with the version the client read, for legacy keys,
+ * which need a read to check the owner, and for user-scoped keys, which do not. Each thread updates its own task.
+ *
+ * @author suleyman.yildirim
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TaskUpdateBenchmark {
+
+    @Param({"false", "true"})
+    boolean userScopedKeys;
+
+    private InMemoryTaskRepository taskRepository;
+    private TaskKeys taskKeys;
+    private TaskService taskService;
+
+    @Setup
+    public void setUp() {
+        taskRepository = new InMemoryTaskRepository();
+        taskKeys = new TaskKeys(userScopedKeys);
+        taskService = new TaskService(taskRepository, new TaskCache(true, 10_000, Duration.ofMinutes(1)),
+                new InMemoryTaskListVersionRepository(), taskKeys, BenchmarkFixtures.knownUserFilter(USER_ID));
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadTask {
+
+        private Task current;
+
+        @Setup
+        public void setUp(TaskUpdateBenchmark benchmark) {
+            String taskId = benchmark.taskKeys.newKey(USER_ID, UUID.randomUUID().toString());
+            current = benchmark.taskRepository.save(BenchmarkFixtures.task(taskId, USER_ID));
+        }
+    }
+
+    @Benchmark
+    public Task updateTaskForUser(ThreadTask threadTask) {
+        Task update = BenchmarkFixtures.task(threadTask.current.getTaskId(), USER_ID);
+        update.setCompleted(!threadTask.current.getCompleted());
+        update.setVersion(threadTask.current.getVersion());
+        threadTask.current = taskService.updateTaskForUser(update.getTaskId(), update);
+        return threadTask.current;
+    }
+}
@@ -0,0 +1,73 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.model.User;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryUserRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryUsernameLookupRepository;
+import com.hepsiemlak.todo.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.hepsiemlak.todo.benchmark.BenchmarkFixtures.USER_ID;
+
+/**
+ * Cost of {@link UserService#findByUserId(String, boolean)} with and without the user's tasks, by the number of
+ * tasks the user has. Tasks are loaded on a separate pool, as with the application task executor.
+ *
+ * @author suleyman.yildirim
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    int taskCount;
+
+    private ExecutorService taskLoadExecutor;
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        userRepository.save(BenchmarkFixtures.user(USER_ID));
+        InMemoryTaskRepository taskRepository = new InMemoryTaskRepository();
+        BenchmarkFixtures.tasks(taskCount, USER_ID).forEach(taskRepository::save);
+
+        taskLoadExecutor = Executors.newFixedThreadPool(8);
+        userService = new UserService(userRepository, taskRepository, new InMemoryUsernameLookupRepository(),
+                BenchmarkFixtures.knownUserFilter(USER_ID), taskLoadExecutor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        taskLoadExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public User findByUserId() {
+        return userService.findByUserId(USER_ID, false);
+    }
+
+    @Benchmark
+    public User findByUserIdWithTasks() {
+        return userService.findByUserId(USER_ID, true);
+    }
+}
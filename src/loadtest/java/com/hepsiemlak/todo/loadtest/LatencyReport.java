@@ -0,0 +1,99 @@
+package com.hepsiemlak.todo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error counts per scenario. Latencies are recorded in nanoseconds into HdrHistogram recorders, which
+ * take values from any thread without locking.
+ *
+ * @author suleyman.yildirim
+ */
+final class LatencyReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<Scenario, Recorder> recorders = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, LongAdder> errors = new EnumMap<>(Scenario.class);
+    private final LongAdder dropped = new LongAdder();
+
+    LatencyReport() {
+        for (Scenario scenario : Scenario.values()) {
+            recorders.put(scenario, new Recorder(3));
+            errors.put(scenario, new LongAdder());
+        }
+    }
+
+    void record(Scenario scenario, long latencyNanos, boolean success) {
+        recorders.get(scenario).recordValue(latencyNanos);
+        if (!success) {
+            errors.get(scenario).increment();
+        }
+    }
+
+    /**
+     * Counts a request that was due but not sent because too many requests were in flight.
+     */
+    void drop() {
+        dropped.increment();
+    }
+
+    /**
+     * Discards everything recorded so far, e.g. at the end of the warmup.
+     */
+    void reset() {
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+        dropped.reset();
+    }
+
+    /**
+     * Prints a table of all scenarios to {@code out} and writes each scenario's full percentile distribution in
+     * milliseconds to {@code <scenario>.hgrm} in {@code outputDirectory}, which HdrHistogram's plotter reads.
+     */
+    void print(PrintStream out, Duration elapsed, Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+
+        out.printf("%-16s %10s %8s %9s %9s %9s %9s %9s %9s%n",
+                "scenario", "requests", "errors", "rps", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Scenario scenario : Scenario.values()) {
+            Histogram histogram = recorders.get(scenario).getIntervalHistogram();
+            long scenarioErrors = errors.get(scenario).sum();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalErrors += scenarioErrors;
+            printRow(out, scenario.id(), histogram, scenarioErrors, elapsed);
+            try (PrintStream file = new PrintStream(Files.newOutputStream(outputDirectory.resolve(scenario.id() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(file, NANOS_PER_MILLI);
+            }
+        }
+        printRow(out, "total", total, totalErrors, elapsed);
+        if (dropped.sum() > 0) {
+            out.printf("%d requests were not sent because too many were in flight; the target rate was not reached%n",
+                    dropped.sum());
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram, long errors, Duration elapsed) {
+        out.printf("%-16s %10d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, histogram.getTotalCount(), errors, histogram.getTotalCount() / (elapsed.toNanos() / 1e9),
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+}
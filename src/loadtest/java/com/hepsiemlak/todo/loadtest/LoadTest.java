@@ -0,0 +1,259 @@
+package com.hepsiemlak.todo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hepsiemlak.todo.loadtest.PostmanCollection.Request;
+import com.hepsiemlak.todo.loadtest.TestData.User;
+import com.hepsiemlak.todo.loadtest.Workload.Call;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Sends a weighted mix of the Postman collection's requests to a running todo-app at a fixed rate and reports latency
+ * percentiles per scenario.
+ * <p>
+ * The load is open-loop: the n-th request is due at {@code start + n / rps} and is sent then, however many earlier
+ * requests are still in flight, and its latency is measured from that due time rather than from when it was actually
+ * sent. A todo-app that falls behind therefore shows its queueing delay in the percentiles instead of slowing the
+ * load generator down and hiding it (coordinated omission).
+ *
+ * @author suleyman.yildirim
+ */
+public final class LoadTest {
+
+    private static final int SETUP_CONCURRENCY = 64;
+    private static final Duration STARTUP_POLL_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration DRAIN_MARGIN = Duration.ofSeconds(1);
+
+    private final LoadTestSettings settings;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LoadTest(LoadTestSettings settings) {
+        this.settings = settings;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.requestTimeout())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(LoadTestSettings.fromSystemProperties()).run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        PostmanCollection collection = PostmanCollection.read(settings.collection(), objectMapper);
+        List<Request> tokenRequests = collection.requests().stream()
+                .filter(request -> request.setsVariable() != null && !request.form().isEmpty())
+                .toList();
+
+        TokenStub tokenStub = settings.tokenStub() && !tokenRequests.isEmpty()
+                ? TokenStub.start(tokenRequests.get(0).url().getPort(), settings.tokenTtl())
+                : null;
+        try {
+            TestData data = new TestData(Long.toString(System.currentTimeMillis(), Character.MAX_RADIX));
+            Workload workload = new Workload(collection, fetchTokens(tokenRequests), settings.baseUrl(),
+                    settings.requestTimeout(), objectMapper, data);
+            setUp(workload, data);
+
+            LatencyReport report = new LatencyReport();
+            System.out.printf("Sending %.0f requests/s: %s warmup, then %s measured%n",
+                    settings.rps(), settings.warmup(), settings.duration());
+            sendOpenLoop(workload, report);
+            report.print(System.out, settings.duration(), settings.output());
+            System.out.println("Percentile distributions written to " + settings.output().toAbsolutePath());
+        } finally {
+            if (tokenStub != null) {
+                tokenStub.close();
+            }
+        }
+    }
+
+    /**
+     * Sends the collection's token requests and returns the tokens by the variable their test script stores them in.
+     */
+    private Map<String, String> fetchTokens(List<Request> tokenRequests) throws IOException, InterruptedException {
+        Map<String, String> tokens = new HashMap<>();
+        for (Request tokenRequest : tokenRequests) {
+            String form = tokenRequest.form().entrySet().stream()
+                    .map(field -> encode(field.getKey()) + "=" + encode(field.getValue()))
+                    .collect(Collectors.joining("&"));
+            HttpRequest.Builder request = HttpRequest.newBuilder(tokenRequest.url())
+                    .timeout(settings.requestTimeout())
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form));
+            Workload.headers(tokenRequest, tokens).forEach(request::setHeader);
+
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("%s failed with %d: %s"
+                        .formatted(tokenRequest.name(), response.statusCode(), response.body()));
+            }
+            tokens.put(tokenRequest.setsVariable(), objectMapper.readTree(response.body()).path("access_token").asText());
+        }
+        return tokens;
+    }
+
+    /**
+     * Registers the users and creates their tasks, after waiting for the todo-app to accept the first registration.
+     */
+    private void setUp(Workload workload, TestData data) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + settings.startupTimeout().toNanos();
+        while (true) {
+            Call call = workload.registerUser();
+            try {
+                HttpResponse<String> response = client.send(call.request(), HttpResponse.BodyHandlers.ofString());
+                call.onResponse().accept(response);
+                if (response.statusCode() < 500) {
+                    break;
+                }
+            } catch (IOException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("The todo-app did not accept requests within " + settings.startupTimeout());
+            }
+            TimeUnit.NANOSECONDS.sleep(STARTUP_POLL_INTERVAL.toNanos());
+        }
+
+        List<Call> registrations = new ArrayList<>();
+        for (int i = 1; i < settings.users(); i++) {
+            registrations.add(workload.registerUser());
+        }
+        sendAll(registrations);
+
+        List<Call> creations = new ArrayList<>();
+        for (User user : data.users()) {
+            for (int j = 0; j < settings.tasksPerUser(); j++) {
+                creations.add(workload.createTask(user));
+            }
+        }
+        sendAll(creations);
+
+        if (data.userCount() == 0) {
+            throw new IllegalStateException("No user could be registered; check the tokens and the todo-app's log");
+        }
+        System.out.printf("Registered %d users with up to %d tasks each%n", data.userCount(), settings.tasksPerUser());
+    }
+
+    private void sendAll(List<Call> calls) throws InterruptedException {
+        Semaphore permits = new Semaphore(SETUP_CONCURRENCY);
+        for (Call call : calls) {
+            permits.acquire();
+            client.sendAsync(call.request(), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        try {
+                            if (response != null) {
+                                call.onResponse().accept(response);
+                            }
+                        } finally {
+                            permits.release();
+                        }
+                    });
+        }
+        permits.acquire(SETUP_CONCURRENCY);
+    }
+
+    private void sendOpenLoop(Workload workload, LatencyReport report) throws InterruptedException {
+        Mix mix = Mix.of(settings.weights());
+        Random random = new Random(settings.seed());
+        AtomicInteger inFlight = new AtomicInteger();
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rps());
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+
+        for (long i = 0; ; i++) {
+            long due = start + i * interval;
+            if (due >= end) {
+                break;
+            }
+            long delay = due - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            boolean measured = due >= measureFrom;
+            if (inFlight.get() >= settings.maxInFlight()) {
+                if (measured) {
+                    report.drop();
+                }
+                continue;
+            }
+            Call call = workload.next(mix.next(random), random);
+            inFlight.incrementAndGet();
+            client.sendAsync(call.request(), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        long latency = System.nanoTime() - due;
+                        inFlight.decrementAndGet();
+                        if (response != null) {
+                            call.onResponse().accept(response);
+                        }
+                        if (measured) {
+                            report.record(call.scenario(), latency, response != null && response.statusCode() < 400);
+                        }
+                    });
+        }
+
+        // Requests still in flight at the end belong to the measurement; wait for them to answer or time out
+        long drainDeadline = System.nanoTime() + settings.requestTimeout().plus(DRAIN_MARGIN).toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        if (inFlight.get() > 0) {
+            System.out.printf("%d requests did not complete and are not counted%n", inFlight.get());
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Picks scenarios at random in proportion to their weights.
+     */
+    private record Mix(Scenario[] scenarios, int[] cumulativeWeights) {
+
+        static Mix of(Map<Scenario, Integer> weights) {
+            List<Scenario> scenarios = new ArrayList<>();
+            List<Integer> cumulative = new ArrayList<>();
+            int sum = 0;
+            for (Map.Entry<Scenario, Integer> weight : weights.entrySet()) {
+                if (weight.getValue() > 0) {
+                    sum += weight.getValue();
+                    scenarios.add(weight.getKey());
+                    cumulative.add(sum);
+                }
+            }
+            return new Mix(scenarios.toArray(Scenario[]::new), cumulative.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        Scenario next(Random random) {
+            int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (value < cumulativeWeights[i]) {
+                    return scenarios[i];
+                }
+            }
+            throw new IllegalStateException();
+        }
+    }
+}
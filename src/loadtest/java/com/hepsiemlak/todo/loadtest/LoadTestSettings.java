@@ -0,0 +1,86 @@
+package com.hepsiemlak.todo.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} system properties.
+ *
+ * @param collection     Postman collection whose requests are sent
+ * @param baseUrl        scheme, host and port that replace those of the collection's todo-app requests, or null
+ * @param tokenStub      whether to serve the collection's token requests from a {@link TokenStub}
+ * @param tokenTtl       lifetime of the tokens issued by the stub, which must cover the whole run
+ * @param rps            requests started per second, whether or not earlier ones completed
+ * @param warmup         time before measuring starts
+ * @param duration       time measured after the warmup
+ * @param users          users registered before the run
+ * @param tasksPerUser   tasks created per user before the run
+ * @param maxInFlight    requests in flight above which a due request is dropped and counted as such
+ * @param requestTimeout time after which a request fails
+ * @param startupTimeout time to wait for the todo-app to accept requests
+ * @param weights        relative frequency of each scenario
+ * @param seed           seed of the scenario and data choices
+ * @param output         directory the percentile distributions are written to
+ * @author suleyman.yildirim
+ */
+record LoadTestSettings(Path collection, URI baseUrl, boolean tokenStub, Duration tokenTtl, double rps,
+                        Duration warmup, Duration duration, int users, int tasksPerUser, int maxInFlight,
+                        Duration requestTimeout, Duration startupTimeout, Map<Scenario, Integer> weights,
+                        long seed, Path output) {
+
+    static final String DEFAULT_WEIGHTS =
+            "register-user:1,find-user:2,find-user-by-id:2,create-task:4,list-tasks:8,get-task:8,update-task:4,delete-task:2";
+
+    static LoadTestSettings fromSystemProperties() {
+        String baseUrl = property("base-url", "");
+        LoadTestSettings settings = new LoadTestSettings(
+                Path.of(property("collection", "todo-app collection.postman_collection.json")),
+                baseUrl.isBlank() ? null : URI.create(baseUrl),
+                Boolean.parseBoolean(property("token-stub", "true")),
+                Duration.parse(property("token-ttl", "PT24H")),
+                Double.parseDouble(property("rps", "200")),
+                Duration.parse(property("warmup", "PT10S")),
+                Duration.parse(property("duration", "PT60S")),
+                Integer.parseInt(property("users", "100")),
+                Integer.parseInt(property("tasks-per-user", "10")),
+                Integer.parseInt(property("max-in-flight", "10000")),
+                Duration.parse(property("request-timeout", "PT10S")),
+                Duration.parse(property("startup-timeout", "PT2M")),
+                weights(property("weights", DEFAULT_WEIGHTS)),
+                Long.parseLong(property("seed", "42")),
+                Path.of(property("output", "target/loadtest")));
+        if (settings.rps() <= 0 || settings.users() < 1 || settings.maxInFlight() < 1) {
+            throw new IllegalArgumentException("loadtest.rps, loadtest.users and loadtest.max-in-flight must be positive");
+        }
+        return settings;
+    }
+
+    /**
+     * Parses {@code id:weight} pairs separated by commas; scenarios that are not listed are not sent.
+     */
+    static Map<Scenario, Integer> weights(String value) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (String pair : value.split(",")) {
+            String[] idAndWeight = pair.trim().split(":");
+            if (idAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected scenario:weight but got " + pair);
+            }
+            int weight = Integer.parseInt(idAndWeight[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + idAndWeight[0]);
+            }
+            weights.put(Scenario.of(idAndWeight[0].trim()), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("At least one scenario needs a positive weight");
+        }
+        return weights;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+}
@@ -0,0 +1,141 @@
+package com.hepsiemlak.todo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Requests of a Postman v2.1 collection, as far as the load test needs them: method, URL, headers, auth, body and
+ * the variable a request's test script stores its response in.
+ *
+ * @author suleyman.yildirim
+ */
+final class PostmanCollection {
+
+    private static final Pattern SET_VARIABLE = Pattern.compile("pm\\.(?:globals|environment|collectionVariables)\\.set\\(\"(\\w+)\"");
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{(\\w+)}}");
+
+    private final List<Request> requests;
+
+    private PostmanCollection(List<Request> requests) {
+        this.requests = requests;
+    }
+
+    static PostmanCollection read(Path file, ObjectMapper objectMapper) throws IOException {
+        List<Request> requests = new ArrayList<>();
+        collect(objectMapper.readTree(file.toFile()).path("item"), requests);
+        return new PostmanCollection(requests);
+    }
+
+    List<Request> requests() {
+        return requests;
+    }
+
+    /**
+     * The first request with {@code method} whose path matches {@code pathPattern}, where a {@code *} segment
+     * matches any single segment.
+     */
+    Request find(String method, String pathPattern) {
+        String[] pattern = pathPattern.substring(1).split("/");
+        for (Request request : requests) {
+            if (request.method().equals(method) && matches(pattern, request.url().getPath().substring(1).split("/"))) {
+                return request;
+            }
+        }
+        throw new IllegalArgumentException("The collection has no %s %s request".formatted(method, pathPattern));
+    }
+
+    private static boolean matches(String[] pattern, String[] path) {
+        if (pattern.length != path.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (!pattern[i].equals("*") && !pattern[i].equals(path[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void collect(JsonNode items, List<Request> requests) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                // A folder
+                collect(item.path("item"), requests);
+            } else {
+                requests.add(request(item));
+            }
+        }
+    }
+
+    private static Request request(JsonNode item) {
+        JsonNode request = item.path("request");
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (JsonNode header : request.path("header")) {
+            if (!header.path("disabled").asBoolean(false)) {
+                headers.put(header.path("key").asText(), header.path("value").asText());
+            }
+        }
+
+        JsonNode auth = request.path("auth");
+        Map<String, String> authValues = new LinkedHashMap<>();
+        for (JsonNode value : auth.path(auth.path("type").asText())) {
+            authValues.put(value.path("key").asText(), value.path("value").asText());
+        }
+
+        JsonNode body = request.path("body");
+        Map<String, String> form = new LinkedHashMap<>();
+        for (JsonNode field : body.path("urlencoded")) {
+            if (!field.path("disabled").asBoolean(false)) {
+                form.put(field.path("key").asText(), field.path("value").asText());
+            }
+        }
+
+        String setsVariable = null;
+        for (JsonNode event : item.path("event")) {
+            if ("test".equals(event.path("listen").asText())) {
+                Matcher matcher = SET_VARIABLE.matcher(String.join("\n", lines(event.path("script").path("exec"))));
+                if (matcher.find()) {
+                    setsVariable = matcher.group(1);
+                }
+            }
+        }
+
+        JsonNode url = request.path("url");
+        return new Request(item.path("name").asText(), request.path("method").asText(),
+                URI.create(url.isTextual() ? url.asText() : url.path("raw").asText()), headers,
+                auth.path("type").asText(null), authValues, body.path("raw").asText(null), form, setsVariable);
+    }
+
+    private static List<String> lines(JsonNode exec) {
+        List<String> lines = new ArrayList<>();
+        exec.forEach(line -> lines.add(line.asText()));
+        return lines;
+    }
+
+    /**
+     * One request of the collection. {@code authType} is {@code basic} or {@code bearer}; for a bearer token,
+     * {@link #bearerVariable()} names the variable that holds it.
+     */
+    record Request(String name, String method, URI url, Map<String, String> headers, String authType,
+                   Map<String, String> auth, String rawBody, Map<String, String> form, String setsVariable) {
+
+        String bearerVariable() {
+            if (!"bearer".equals(authType)) {
+                return null;
+            }
+            Matcher matcher = VARIABLE.matcher(auth.getOrDefault("token", ""));
+            return matcher.find() ? matcher.group(1) : null;
+        }
+    }
+}
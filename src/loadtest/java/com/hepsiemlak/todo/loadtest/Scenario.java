@@ -0,0 +1,52 @@
+package com.hepsiemlak.todo.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Kinds of request the load test sends, each bound to the collection request with the same method and path.
+ *
+ * @author suleyman.yildirim
+ */
+enum Scenario {
+
+    REGISTER_USER("register-user", "POST", "/v1/users"),
+    FIND_USER_BY_USERNAME("find-user", "GET", "/v1/user"),
+    FIND_USER_BY_ID("find-user-by-id", "GET", "/v1/user/id"),
+    CREATE_TASK("create-task", "POST", "/v1/tasks"),
+    LIST_TASKS("list-tasks", "GET", "/v1/tasks"),
+    GET_TASK("get-task", "GET", "/v1/users/*/tasks/*"),
+    UPDATE_TASK("update-task", "PUT", "/v1/tasks/*"),
+    DELETE_TASK("delete-task", "DELETE", "/v1/tasks/*");
+
+    private final String id;
+    private final String method;
+    private final String pathPattern;
+
+    Scenario(String id, String method, String pathPattern) {
+        this.id = id;
+        this.method = method;
+        this.pathPattern = pathPattern;
+    }
+
+    /**
+     * Name used in {@code loadtest.weights} and in the report.
+     */
+    String id() {
+        return id;
+    }
+
+    String method() {
+        return method;
+    }
+
+    String pathPattern() {
+        return pathPattern;
+    }
+
+    static Scenario of(String id) {
+        return Arrays.stream(values())
+                .filter(scenario -> scenario.id.equals(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown scenario " + id));
+    }
+}
@@ -0,0 +1,98 @@
+package com.hepsiemlak.todo.loadtest;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Users and tasks the load test created and may use in later requests. IDs carry a per-run prefix, so runs against
+ * the same bucket do not collide.
+ *
+ * @author suleyman.yildirim
+ */
+final class TestData {
+
+    private static final int ATTEMPTS = 8;
+
+    private final String runId;
+    private final AtomicInteger userSequence = new AtomicInteger();
+    private final AtomicInteger taskSequence = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, User> users = new ConcurrentHashMap<>();
+    private final AtomicInteger userCount = new AtomicInteger();
+
+    TestData(String runId) {
+        this.runId = runId;
+    }
+
+    String nextUserId() {
+        return "lt-%s-u%d".formatted(runId, userSequence.incrementAndGet());
+    }
+
+    String nextTaskId() {
+        return "lt-%s-t%d".formatted(runId, taskSequence.incrementAndGet());
+    }
+
+    void addUser(String userId, String username) {
+        users.put(userCount.getAndIncrement(), new User(userId, username, new CopyOnWriteArrayList<>()));
+    }
+
+    /**
+     * Users registered so far.
+     */
+    List<User> users() {
+        return List.copyOf(users.values());
+    }
+
+    int userCount() {
+        return userCount.get();
+    }
+
+    /**
+     * A random registered user, or null before the first registration completed.
+     */
+    User randomUser(Random random) {
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            int count = userCount.get();
+            if (count == 0) {
+                return null;
+            }
+            // A slot is counted just before its user is stored
+            User user = users.get(random.nextInt(count));
+            if (user != null) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A random user that has at least one task, or null when none was found in a few attempts.
+     */
+    User randomUserWithTasks(Random random) {
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            User user = randomUser(random);
+            if (user != null && !user.taskIds().isEmpty()) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    record User(String userId, String username, List<String> taskIds) {
+
+        String randomTaskId(Random random) {
+            List<String> snapshot = List.copyOf(taskIds);
+            return snapshot.isEmpty() ? null : snapshot.get(random.nextInt(snapshot.size()));
+        }
+
+        /**
+         * Takes a random task out of the pool, so that no other request deletes it as well.
+         */
+        String takeTaskId(Random random) {
+            String taskId = randomTaskId(random);
+            return taskId != null && taskIds.remove(taskId) ? taskId : null;
+        }
+    }
+}
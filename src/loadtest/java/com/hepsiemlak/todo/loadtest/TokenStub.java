@@ -0,0 +1,116 @@
+package com.hepsiemlak.todo.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stand-in for the authorization server: {@code POST /oauth2/token} issues an RS256 token for the requested scope
+ * to any client, and {@code GET /oauth2/jwks} publishes the key it is signed with. Point the todo-app's
+ * {@code jwk-set-uri} at it, and the token requests of the collection need no real authorization server.
+ *
+ * @author suleyman.yildirim
+ */
+final class TokenStub implements AutoCloseable {
+
+    private final RSAKey key;
+    private final Duration tokenTtl;
+    private final HttpServer server;
+
+    private TokenStub(RSAKey key, Duration tokenTtl, HttpServer server) {
+        this.key = key;
+        this.tokenTtl = tokenTtl;
+        this.server = server;
+    }
+
+    static TokenStub start(int port, Duration tokenTtl) throws IOException {
+        RSAKey key;
+        try {
+            key = new RSAKeyGenerator(2048).keyUse(KeyUse.SIGNATURE).algorithm(JWSAlgorithm.RS256)
+                    .keyIDFromThumbprint(true).generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        TokenStub stub = new TokenStub(key, tokenTtl, server);
+        server.createContext("/oauth2/token", stub::token);
+        server.createContext("/oauth2/jwks", stub::jwks);
+        server.start();
+        return stub;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{}");
+            return;
+        }
+        Map<String, String> form = form(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String scope = form.getOrDefault("scope", "");
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("load-test")
+                .claim("scope", scope)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(tokenTtl)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        try {
+            jwt.sign(new RSASSASigner(key));
+        } catch (JOSEException e) {
+            throw new IOException(e);
+        }
+        respond(exchange, 200, """
+                {"access_token":"%s","token_type":"Bearer","expires_in":%d,"scope":"%s"}"""
+                .formatted(jwt.serialize(), tokenTtl.toSeconds(), scope));
+    }
+
+    private void jwks(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, new JWKSet(key.toPublicJWK()).toString());
+    }
+
+    private static Map<String, String> form(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return form;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.hepsiemlak.todo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hepsiemlak.todo.loadtest.PostmanCollection.Request;
+import com.hepsiemlak.todo.loadtest.TestData.User;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Turns scenarios into HTTP requests. Each request is the collection's request for the scenario with its path, query
+ * and body filled from {@link TestData}, and the answer updates the test data: registered users and created tasks
+ * become available to later requests, deleted ones are taken out.
+ *
+ * @author suleyman.yildirim
+ */
+final class Workload {
+
+    // Headers the JDK client sets itself and refuses to take from callers
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.addAll(Set.of("Connection", "Content-Length", "Expect", "Host", "Upgrade"));
+    }
+
+    private final Map<Scenario, Request> templates = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, ObjectNode> bodies = new EnumMap<>(Scenario.class);
+    private final Map<String, String> variables;
+    private final URI baseUrl;
+    private final Duration requestTimeout;
+    private final ObjectMapper objectMapper;
+    private final TestData data;
+
+    Workload(PostmanCollection collection, Map<String, String> variables, URI baseUrl, Duration requestTimeout,
+             ObjectMapper objectMapper, TestData data) {
+        this.variables = variables;
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.objectMapper = objectMapper;
+        this.data = data;
+        for (Scenario scenario : Scenario.values()) {
+            Request template = collection.find(scenario.method(), scenario.pathPattern());
+            templates.put(scenario, template);
+            JsonNode body = template.rawBody() == null || template.rawBody().isBlank() ? null : read(template.rawBody());
+            bodies.put(scenario, body instanceof ObjectNode object ? object : objectMapper.createObjectNode());
+        }
+    }
+
+    /**
+     * A request for {@code scenario}. A scenario that needs a user or task which does not exist yet becomes the
+     * scenario that creates one, so the returned call may be for a different scenario.
+     */
+    Call next(Scenario scenario, Random random) {
+        if (scenario == Scenario.REGISTER_USER) {
+            return registerUser();
+        }
+        User user = data.randomUser(random);
+        if (user == null) {
+            return registerUser();
+        }
+        switch (scenario) {
+            case FIND_USER_BY_USERNAME:
+                return call(scenario, "/v1/user", "username=" + user.username(), null, null);
+            case FIND_USER_BY_ID:
+                return call(scenario, "/v1/user/id", "id=" + user.userId(), null, null);
+            case CREATE_TASK:
+                return createTask(user);
+            default:
+                break;
+        }
+
+        User owner = data.randomUserWithTasks(random);
+        String taskId = owner == null ? null
+                : scenario == Scenario.DELETE_TASK ? owner.takeTaskId(random) : owner.randomTaskId(random);
+        if (taskId == null) {
+            return createTask(user);
+        }
+        Consumer<HttpResponse<String>> forgetIfMissing = response -> {
+            if (response.statusCode() == 404) {
+                owner.taskIds().remove(taskId);
+            }
+        };
+        return switch (scenario) {
+            // The todo-app answers 404 for a user without tasks
+            case LIST_TASKS -> call(scenario, "/v1/tasks", "userId=" + owner.userId(), null, null);
+            case GET_TASK -> call(scenario, "/v1/users/%s/tasks/%s".formatted(owner.userId(), taskId), null, null,
+                    forgetIfMissing);
+            case UPDATE_TASK -> {
+                ObjectNode body = body(scenario);
+                body.put("taskId", taskId);
+                body.put("userId", owner.userId());
+                body.put("completed", random.nextBoolean());
+                yield call(scenario, "/v1/tasks/" + taskId, null, body, forgetIfMissing);
+            }
+            case DELETE_TASK -> call(scenario, "/v1/tasks/" + taskId, "userId=" + owner.userId(), null, null);
+            default -> throw new IllegalArgumentException("Unsupported scenario " + scenario);
+        };
+    }
+
+    Call registerUser() {
+        String userId = data.nextUserId();
+        ObjectNode body = body(Scenario.REGISTER_USER);
+        body.put("userId", userId);
+        body.put("username", userId);
+        body.put("email", userId + "@example.com");
+        return call(Scenario.REGISTER_USER, "/v1/users", null, body, response -> {
+            if (response.statusCode() == 201) {
+                data.addUser(userId, userId);
+            }
+        });
+    }
+
+    Call createTask(User user) {
+        ObjectNode body = body(Scenario.CREATE_TASK);
+        body.put("taskId", data.nextTaskId());
+        body.put("userId", user.userId());
+        body.put("completed", false);
+        return call(Scenario.CREATE_TASK, "/v1/tasks", null, body, response -> {
+            if (response.statusCode() == 201) {
+                // The todo-app may store the task under a user-scoped key
+                user.taskIds().add(read(response.body()).path("taskId").asText());
+            }
+        });
+    }
+
+    private Call call(Scenario scenario, String path, String query, ObjectNode body,
+                      Consumer<HttpResponse<String>> onResponse) {
+        Request template = templates.get(scenario);
+        HttpRequest.Builder request = HttpRequest.newBuilder(target(template.url(), path, query))
+                .timeout(requestTimeout)
+                .method(scenario.method(), body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body.toString()));
+        headers(template, variables).forEach(request::header);
+        if (body != null && template.headers().keySet().stream().noneMatch("Content-Type"::equalsIgnoreCase)) {
+            request.header("Content-Type", "application/json");
+        }
+        return new Call(scenario, request.build(), onResponse == null ? response -> { } : onResponse);
+    }
+
+    /**
+     * The collection's headers of {@code template} plus its {@code Authorization} header, with variables resolved.
+     */
+    static Map<String, String> headers(Request template, Map<String, String> variables) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        template.headers().forEach((name, value) -> {
+            if (!RESTRICTED_HEADERS.contains(name)) {
+                headers.put(name, value);
+            }
+        });
+        if ("basic".equals(template.authType())) {
+            String credentials = template.auth().get("username") + ":" + template.auth().get("password");
+            headers.put("Authorization",
+                    "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        } else if (template.bearerVariable() != null) {
+            String token = variables.get(template.bearerVariable());
+            if (token == null) {
+                throw new IllegalStateException("No token in variable " + template.bearerVariable());
+            }
+            headers.put("Authorization", "Bearer " + token);
+        }
+        return headers;
+    }
+
+    private URI target(URI collectionUrl, String path, String query) {
+        URI origin = baseUrl == null ? collectionUrl : baseUrl;
+        try {
+            return new URI(origin.getScheme(), null, origin.getHost(), origin.getPort(), path, query, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private ObjectNode body(Scenario scenario) {
+        return bodies.get(scenario).deepCopy();
+    }
+
+    private JsonNode read(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not a JSON object: " + json, e);
+        }
+    }
+
+    /**
+     * A request and what to do with its answer, which is applied to the test data before the latency is recorded.
+     */
+    record Call(Scenario scenario, HttpRequest request, Consumer<HttpResponse<String>> onResponse) {
+    }
+}
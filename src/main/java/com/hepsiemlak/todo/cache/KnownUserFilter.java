@@ -0,0 +1,191 @@
+package com.hepsiemlak.todo.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Node-local Bloom filter of every known user ID, so requests for IDs that certainly do not exist are rejected
+ * without touching Couchbase.
+ * <p>
+ * A negative answer is only trusted once the filter was built from the bucket; until then, and while disabled,
+ * every ID might exist. {@link #add(String)} must be called after each registration. A user registered on
+ * another node is rejected here until the next {@link #rebuild(Stream)}.
+ *
+ * @author suleyman.yildirim
+ */
+@Component
+public class KnownUserFilter {
+
+    private final boolean enabled;
+    private final int bitCount;
+    private final int hashCount;
+
+    private volatile Bits current;
+    /**
+     * IDs added while a rebuild reads the bucket, put into the new filter once it replaced the old one.
+     */
+    private volatile Set<String> addedDuringRebuild;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public KnownUserFilter(@Value("${todo.users.filter.enabled:true}") boolean enabled,
+                           @Value("${todo.users.filter.expected-users:1000000}") long expectedUsers,
+                           @Value("${todo.users.filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${todo.users.filter.max-size:4MB}") DataSize maxSize) {
+        this.enabled = enabled;
+        // Optimal size for the expected users and rate, capped by the memory budget and rounded to whole words
+        double optimalBits = -expectedUsers * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long maxBits = Math.min(maxSize.toBytes() * Byte.SIZE, (long) Integer.MAX_VALUE - Long.SIZE);
+        long bits = Math.max(Long.SIZE, Math.min((long) Math.ceil(optimalBits), maxBits));
+        this.bitCount = (int) (bits / Long.SIZE * Long.SIZE);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedUsers * Math.log(2)));
+    }
+
+    /**
+     * Returns false only when the user certainly does not exist.
+     */
+    public boolean mightContain(String userId) {
+        Bits bits = current;
+        if (!enabled || bits == null || userId == null) {
+            return true;
+        }
+        checks.increment();
+        if (bits.contains(userId)) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    public void add(String userId) {
+        if (!enabled) {
+            return;
+        }
+        // Recorded before the current filter is written: a rebuild that swaps in its filter after that write
+        // finds the ID in the set, and one that starts later reads the user from the bucket
+        Set<String> added = addedDuringRebuild;
+        if (added != null) {
+            added.add(userId);
+        }
+        Bits bits = current;
+        if (bits != null) {
+            bits.put(userId);
+        }
+    }
+
+    /**
+     * Replaces the filter with one holding exactly {@code userIds}, dropping IDs of users that no longer exist.
+     * Returns the number of IDs read.
+     */
+    public long rebuild(Stream<String> userIds) {
+        if (!enabled) {
+            return 0;
+        }
+        Bits next = new Bits(bitCount, hashCount);
+        Set<String> added = ConcurrentHashMap.newKeySet();
+        addedDuringRebuild = added;
+        try {
+            long count = 0;
+            for (var iterator = userIds.iterator(); iterator.hasNext(); count++) {
+                next.put(iterator.next());
+            }
+            current = next;
+            added.forEach(next::put);
+            return count;
+        } finally {
+            addedDuringRebuild = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    public int getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Number of lookups answered by the filter once it was ready.
+     */
+    public long getCheckCount() {
+        return checks.sum();
+    }
+
+    /**
+     * Number of lookups rejected by the filter.
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+        private final int bitCount;
+        private final int hashCount;
+
+        Bits(int bitCount, int hashCount) {
+            this.words = new AtomicLongArray(bitCount / Long.SIZE);
+            this.bitCount = bitCount;
+            this.hashCount = hashCount;
+        }
+
+        void put(String userId) {
+            long hash1 = hash(userId, 0x9E3779B97F4A7C15L);
+            long hash2 = hash(userId, 0xC2B2AE3D27D4EB4FL);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = index(hash1 + i * hash2);
+                long mask = 1L << bit;
+                words.getAndUpdate(bit >>> 6, word -> word | mask);
+            }
+        }
+
+        boolean contains(String userId) {
+            long hash1 = hash(userId, 0x9E3779B97F4A7C15L);
+            long hash2 = hash(userId, 0xC2B2AE3D27D4EB4FL);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = index(hash1 + i * hash2);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int index(long combinedHash) {
+            return (int) Long.remainderUnsigned(combinedHash, bitCount);
+        }
+
+        /**
+         * FNV-1a over the UTF-8 bytes, finished with the SplitMix64 mixer so that nearby IDs spread out.
+         */
+        private static long hash(String value, long seed) {
+            long hash = 0xCBF29CE484222325L ^ seed;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001B3L;
+            }
+            hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+            hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+            return hash ^ (hash >>> 31);
+        }
+    }
+}
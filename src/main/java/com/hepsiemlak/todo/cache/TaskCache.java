@@ -0,0 +1,259 @@
+package com.hepsiemlak.todo.cache;
+
+import com.hepsiemlak.todo.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, node-local read-through cache of tasks keyed by (userId, taskId).
+ * <p>
+ * Entries expire {@code ttl} after they were written. The write path must call {@link #put(Task)} or
+ * {@link #evict(String, String)} after every mutation; a concurrent read that started before such a write never
+ * keeps the value it loaded, so a reader on this node cannot re-populate the cache with a stale task.
+ * <p>
+ * Reads take no lock, as with {@link VerifiedJwtCache}. Once {@code maxSize} is exceeded, one writer evicts the least
+ * recently used tenth of the entries, recency being counted in stores rather than time; meanwhile the cache may
+ * briefly hold a few entries more.
+ *
+ * @author suleyman.yildirim
+ */
+@Component
+public class TaskCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public TaskCache(@Value("${todo.cache.tasks.enabled:true}") boolean enabled,
+                     @Value("${todo.cache.tasks.max-size:10000}") int maxSize,
+                     @Value("${todo.cache.tasks.ttl:60s}") Duration ttl) {
+        this(enabled, maxSize, ttl, System::nanoTime);
+    }
+
+    TaskCache(boolean enabled, int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the cached task or loads it with {@code loader}, caching a present result.
+     */
+    public Optional<Task> get(String userId, String taskId, Supplier<Optional<Task>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Key key = new Key(userId, taskId);
+        Lookup lookup = lookup(key);
+        if (lookup.task() != null) {
+            return Optional.of(lookup.task());
+        }
+
+        Optional<Task> loaded = loader.get();
+        loaded.ifPresent(task -> store(key, task, lookup.sequence()));
+        return loaded;
+    }
+
+    /**
+     * Non-blocking variant of {@link #get(String, String, Supplier)}; {@code loader} is only subscribed on a miss.
+     */
+    public Mono<Task> get(String userId, String taskId, Mono<Task> loader) {
+        if (!enabled) {
+            return loader;
+        }
+
+        return Mono.defer(() -> {
+            Key key = new Key(userId, taskId);
+            Lookup lookup = lookup(key);
+            if (lookup.task() != null) {
+                return Mono.just(lookup.task());
+            }
+            return loader.doOnNext(task -> store(key, task, lookup.sequence()));
+        });
+    }
+
+    /**
+     * Refreshes the entry of a task that was just written.
+     */
+    public void put(Task task) {
+        if (!enabled) {
+            return;
+        }
+        // Bumped before the entry changes, so a load racing with this write turns its sequence stale
+        writeSequence.incrementAndGet();
+        entries.put(new Key(task.getUserId(), task.getTaskId()),
+                new Entry(task, nanoClock.getAsLong(), stores.getAndIncrement()));
+        evictIfFull();
+    }
+
+    /**
+     * Drops the entry of a task that was just deleted or changed without a full copy at hand.
+     */
+    public void evict(String userId, String taskId) {
+        if (!enabled) {
+            return;
+        }
+        writeSequence.incrementAndGet();
+        entries.remove(new Key(userId, taskId));
+    }
+
+    public void clear() {
+        writeSequence.incrementAndGet();
+        entries.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the live entry of {@code key}, or the write sequence a load started now has to be stored against.
+     */
+    private Lookup lookup(Key key) {
+        // Read before the entry, so a write racing with this lookup turns the sequence stale
+        long sequence = writeSequence.get();
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (nanoClock.getAsLong() - entry.writtenAt() < ttlNanos) {
+                entry.touch(stores.get());
+                hits.increment();
+                return new Lookup(entry.task(), sequence);
+            }
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return new Lookup(null, sequence);
+    }
+
+    private void store(Key key, Task task, long loadSequence) {
+        // A write landed while the task was loading, so the loaded copy may already be stale
+        if (writeSequence.get() != loadSequence) {
+            return;
+        }
+        Entry entry = new Entry(task, nanoClock.getAsLong(), stores.getAndIncrement());
+        if (entries.putIfAbsent(key, entry) != null) {
+            return;
+        }
+        // A write between the check above and the insert has either replaced the entry or shows here
+        if (writeSequence.get() != loadSequence) {
+            entries.remove(key, entry);
+            return;
+        }
+        evictIfFull();
+    }
+
+    /**
+     * Removes the least recently used entries down to nine tenths of {@code maxSize}, so the scan of all entries is
+     * paid once per tenth of the stores. Writers arriving meanwhile leave their overflow to the running eviction,
+     * which checks the size again once done.
+     */
+    private void evictIfFull() {
+        while (entries.size() > maxSize) {
+            if (!evicting.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                int excess = entries.size() - maxSize;
+                if (excess > 0) {
+                    List<Map.Entry<Key, Entry>> candidates = new ArrayList<>(entries.entrySet());
+                    candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastUsed()));
+                    int toEvict = Math.min(candidates.size(), excess + maxSize / 10);
+                    for (Map.Entry<Key, Entry> candidate : candidates.subList(0, toEvict)) {
+                        if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                            evictions.increment();
+                        }
+                    }
+                }
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    private record Key(String userId, String taskId) {
+    }
+
+    private record Lookup(Task task, long sequence) {
+    }
+
+    /**
+     * A cached task, when it was written and the number of stores before it was last used.
+     */
+    private static final class Entry {
+
+        private final Task task;
+        private final long writtenAt;
+        private volatile long lastUsed;
+
+        Entry(Task task, long writtenAt, long lastUsed) {
+            this.task = task;
+            this.writtenAt = writtenAt;
+            this.lastUsed = lastUsed;
+        }
+
+        Task task() {
+            return task;
+        }
+
+        long writtenAt() {
+            return writtenAt;
+        }
+
+        long lastUsed() {
+            return lastUsed;
+        }
+
+        void touch(long now) {
+            // Skipping the unchanged write keeps the entry of a hot task from bouncing between cores
+            if (lastUsed != now) {
+                lastUsed = now;
+            }
+        }
+    }
+}
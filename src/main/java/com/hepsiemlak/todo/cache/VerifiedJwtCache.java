@@ -0,0 +1,221 @@
+package com.hepsiemlak.todo.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, node-local cache of successfully decoded bearer tokens, so a client reusing one token skips parsing and
+ * signature verification on every request after the first.
+ * <p>
+ * An entry lives until the token's {@code exp}; tokens without one are never cached. {@link #invalidateAll()} must be
+ * called when the signing keys rotate; a decode that started before such an invalidation never keeps its result.
+ * <p>
+ * Every request looks its token up, so reads take no lock. Once {@code maxSize} is exceeded, one writer evicts the
+ * least recently used tenth of the entries, recency being counted in stores rather than time; meanwhile the cache
+ * may briefly hold a few entries more.
+ *
+ * @author suleyman.yildirim
+ */
+@Component
+public class VerifiedJwtCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final Supplier<Instant> clock;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public VerifiedJwtCache(@Value("${todo.cache.jwt.enabled:true}") boolean enabled,
+                            @Value("${todo.cache.jwt.max-size:10000}") int maxSize) {
+        this(enabled, maxSize, Instant::now);
+    }
+
+    VerifiedJwtCache(boolean enabled, int maxSize, Supplier<Instant> clock) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached decode result of {@code token} or decodes it with {@code decoder}, caching a success.
+     */
+    public Jwt get(String token, JwtDecoder decoder) {
+        if (!enabled) {
+            return decoder.decode(token);
+        }
+
+        Lookup lookup = lookup(token);
+        if (lookup.jwt() != null) {
+            return lookup.jwt();
+        }
+
+        Jwt jwt = decoder.decode(token);
+        store(token, jwt, lookup.generation());
+        return jwt;
+    }
+
+    /**
+     * Non-blocking variant of {@link #get(String, JwtDecoder)}; {@code decoder} is only called on a miss.
+     */
+    public Mono<Jwt> get(String token, ReactiveJwtDecoder decoder) {
+        if (!enabled) {
+            return decoder.decode(token);
+        }
+
+        return Mono.defer(() -> {
+            Lookup lookup = lookup(token);
+            if (lookup.jwt() != null) {
+                return Mono.just(lookup.jwt());
+            }
+            return decoder.decode(token).doOnNext(jwt -> store(token, jwt, lookup.generation()));
+        });
+    }
+
+    /**
+     * Drops every entry, e.g. after the keys that verified them were rotated.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Lookup lookup(String token) {
+        // Read before the entry, so an invalidation racing with this lookup turns the generation stale
+        long currentGeneration = generation.get();
+        Entry entry = entries.get(token);
+        if (entry != null) {
+            if (clock.get().isBefore(entry.jwt().getExpiresAt())) {
+                entry.touch(stores.get());
+                hits.increment();
+                return new Lookup(entry.jwt(), currentGeneration);
+            }
+            if (entries.remove(token, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return new Lookup(null, currentGeneration);
+    }
+
+    private void store(String token, Jwt jwt, long decodeGeneration) {
+        Instant expiresAt = jwt.getExpiresAt();
+        // The keys rotated while the token was decoding, so it may have been verified with a retired key
+        if (expiresAt == null || !clock.get().isBefore(expiresAt) || generation.get() != decodeGeneration) {
+            return;
+        }
+        Entry entry = new Entry(jwt, stores.getAndIncrement());
+        entries.put(token, entry);
+        // An invalidation between the check above and the put has either cleared the entry or shows here
+        if (generation.get() != decodeGeneration) {
+            entries.remove(token, entry);
+            return;
+        }
+        if (entries.size() > maxSize) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Removes the least recently used entries down to nine tenths of {@code maxSize}, so the scan of all entries is
+     * paid once per tenth of the stores. Writers arriving meanwhile leave their overflow to the running eviction,
+     * which checks the size again once done.
+     */
+    private void evictLeastRecentlyUsed() {
+        do {
+            if (!evicting.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                int excess = entries.size() - maxSize;
+                if (excess > 0) {
+                    List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+                    candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastUsed()));
+                    int toEvict = Math.min(candidates.size(), excess + maxSize / 10);
+                    for (Map.Entry<String, Entry> candidate : candidates.subList(0, toEvict)) {
+                        if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                            evictions.increment();
+                        }
+                    }
+                }
+            } finally {
+                evicting.set(false);
+            }
+        } while (entries.size() > maxSize);
+    }
+
+    private record Lookup(Jwt jwt, long generation) {
+    }
+
+    /**
+     * A cached token and the number of stores before it was last used.
+     */
+    private static final class Entry {
+
+        private final Jwt jwt;
+        private volatile long lastUsed;
+
+        Entry(Jwt jwt, long lastUsed) {
+            this.jwt = jwt;
+            this.lastUsed = lastUsed;
+        }
+
+        Jwt jwt() {
+            return jwt;
+        }
+
+        long lastUsed() {
+            return lastUsed;
+        }
+
+        void touch(long now) {
+            // Skipping the unchanged write keeps the hot entry of a reused token from bouncing between cores
+            if (lastUsed != now) {
+                lastUsed = now;
+            }
+        }
+    }
+}
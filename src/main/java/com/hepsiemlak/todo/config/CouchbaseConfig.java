@@ -2,14 +2,20 @@ package com.hepsiemlak.todo.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.couchbase.config.AbstractCouchbaseConfiguration;
 import org.springframework.data.couchbase.repository.config.EnableCouchbaseRepositories;
+import org.springframework.data.couchbase.repository.config.EnableReactiveCouchbaseRepositories;
 
 /**
+ * Not loaded in the {@code in-memory} profile, see {@link InMemoryRepositoryConfig}.
+ *
  * @author suleyman.yildirim
  */
 @Configuration
+@Profile("!in-memory")
 @EnableCouchbaseRepositories
+@EnableReactiveCouchbaseRepositories
 public class CouchbaseConfig extends AbstractCouchbaseConfiguration {
 
     @Value("${spring.couchbase.connection-string}")
@@ -44,6 +50,9 @@ public class CouchbaseConfig extends AbstractCouchbaseConfiguration {
         return bucketName;
     }
 
+    /**
+     * Creates the indexes declared with {@code @CompositeQueryIndex} on the entities at startup.
+     */
     @Override
     protected boolean autoIndexCreation() {
         return true;
@@ -0,0 +1,72 @@
+package com.hepsiemlak.todo.config;
+
+import com.hepsiemlak.todo.repository.memory.InMemoryReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryReactiveUserRepository;
+import com.hepsiemlak.todo.repository.memory.InMemorySnapshot;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskListVersionRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryUserRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryUsernameLookupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Repositories of the {@code in-memory} profile, which serves from an embedded store instead of Couchbase, e.g. for
+ * local runs, CI and cache-only edge instances. The Couchbase configuration is not loaded in that profile.
+ *
+ * @author suleyman.yildirim
+ */
+@Configuration
+@Profile("in-memory")
+public class InMemoryRepositoryConfig {
+
+    @Bean
+    public InMemoryTaskRepository taskRepository() {
+        return new InMemoryTaskRepository();
+    }
+
+    @Bean
+    public InMemoryUserRepository userRepository() {
+        return new InMemoryUserRepository();
+    }
+
+    @Bean
+    public InMemoryTaskListVersionRepository taskListVersionRepository() {
+        return new InMemoryTaskListVersionRepository();
+    }
+
+    @Bean
+    public InMemoryUsernameLookupRepository usernameLookupRepository() {
+        return new InMemoryUsernameLookupRepository();
+    }
+
+    @Bean
+    public InMemoryReactiveTaskRepository reactiveTaskRepository(InMemoryTaskRepository taskRepository) {
+        return new InMemoryReactiveTaskRepository(taskRepository);
+    }
+
+    @Bean
+    public InMemoryReactiveUserRepository reactiveUserRepository(InMemoryUserRepository userRepository) {
+        return new InMemoryReactiveUserRepository(userRepository);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "todo.in-memory.snapshot.enabled", havingValue = "true")
+    public InMemorySnapshot inMemorySnapshot(InMemoryTaskRepository taskRepository,
+                                             InMemoryUserRepository userRepository,
+                                             InMemoryTaskListVersionRepository taskListVersionRepository,
+                                             InMemoryUsernameLookupRepository usernameLookupRepository,
+                                             TaskScheduler taskScheduler,
+                                             @Value("${todo.in-memory.snapshot.file}") String file,
+                                             @Value("${todo.in-memory.snapshot.interval:PT1M}") Duration interval) {
+        return new InMemorySnapshot(taskRepository, userRepository, taskListVersionRepository,
+                usernameLookupRepository, Path.of(file), taskScheduler, interval);
+    }
+}
@@ -0,0 +1,212 @@
+package com.hepsiemlak.todo.config;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWKSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fetches the {@link JwkSetSource} keys before the web server takes requests and refreshes them every
+ * {@code todo.security.jwks.refresh-interval}, spread by {@code refresh-jitter} so that instances started together
+ * do not hit the authorization server at the same moment.
+ * <p>
+ * When {@code todo.security.jwks.cache-file} is set, every fetched set is saved to it. A restart loads that file
+ * first, so tokens are verified from memory even while the authorization server is down; a failed fetch keeps the
+ * keys held. Whoever can write the file decides which tokens are accepted, so its directory is created for the
+ * process user only, and a file or directory that another user owns or may write is neither loaded nor written.
+ *
+ * @author suleyman.yildirim
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.security.jwks.refresh-enabled", havingValue = "true", matchIfMissing = true)
+public class JwkSetRefresher implements SmartInitializingSingleton, DisposableBean {
+
+    private static final FileAttribute<Set<PosixFilePermission>> OWNER_ONLY_DIRECTORY =
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"));
+
+    private final JwkSetSource jwkSetSource;
+    private final TaskScheduler taskScheduler;
+    private final Duration refreshInterval;
+    private final double refreshJitter;
+    private final Path cacheFile;
+
+    private volatile JWKSet saved;
+    private volatile ScheduledFuture<?> nextRefresh;
+    private volatile boolean stopped;
+
+    public JwkSetRefresher(JwkSetSource jwkSetSource,
+                           TaskScheduler taskScheduler,
+                           @Value("${todo.security.jwks.refresh-interval:PT5M}") Duration refreshInterval,
+                           @Value("${todo.security.jwks.refresh-jitter:0.1}") double refreshJitter,
+                           @Value("${todo.security.jwks.cache-file:}") String cacheFile) {
+        this.jwkSetSource = jwkSetSource;
+        this.taskScheduler = taskScheduler;
+        this.refreshInterval = refreshInterval;
+        this.refreshJitter = refreshJitter;
+        this.cacheFile = cacheFile.isBlank() ? null : Path.of(cacheFile);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+        refresh();
+        scheduleNextRefresh();
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+        ScheduledFuture<?> scheduled = nextRefresh;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+
+    /**
+     * Fetches the JWK set and saves it when it changed. Returns false when the fetch failed.
+     */
+    public boolean refresh() {
+        try {
+            JWKSet fetched = jwkSetSource.refresh();
+            log.debug("Fetched JWK set with {} keys in {} ms", fetched.size(),
+                    Duration.ofNanos(jwkSetSource.getLastFetchNanos()).toMillis());
+            save(fetched);
+            return true;
+        } catch (KeySourceException e) {
+            // Keep the keys held; an unknown key ID still triggers a fetch on the request path
+            log.warn("Failed to refresh JWK set", e);
+            return false;
+        }
+    }
+
+    /**
+     * Delay until the next refresh, {@code refresh-interval} give or take {@code refresh-jitter} of it.
+     */
+    Duration nextDelay() {
+        if (refreshJitter <= 0) {
+            return refreshInterval;
+        }
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-refreshJitter, refreshJitter);
+        return Duration.ofMillis(Math.round(refreshInterval.toMillis() * factor));
+    }
+
+    private void scheduleNextRefresh() {
+        if (stopped) {
+            return;
+        }
+        nextRefresh = taskScheduler.schedule(() -> {
+            try {
+                refresh();
+            } finally {
+                scheduleNextRefresh();
+            }
+        }, Instant.now().plus(nextDelay()));
+    }
+
+    private void load() {
+        if (cacheFile == null || !Files.exists(cacheFile, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try {
+            if (!Files.isRegularFile(cacheFile, LinkOption.NOFOLLOW_LINKS) || !isOwnerOnly(cacheFile)
+                    || !isOwnerOnly(cacheFile.toAbsolutePath().getParent())) {
+                log.warn("Ignoring JWK set file {}: it and its directory must be owned and writable only by {}",
+                        cacheFile, System.getProperty("user.name"));
+                return;
+            }
+            JWKSet loaded = JWKSet.parse(Files.readString(cacheFile, StandardCharsets.UTF_8));
+            jwkSetSource.seed(loaded);
+            saved = loaded;
+            log.info("Loaded {} JWKs from {}", loaded.size(), cacheFile);
+        } catch (IOException | ParseException e) {
+            log.warn("Ignoring unreadable JWK set file {}", cacheFile, e);
+        }
+    }
+
+    private void save(JWKSet jwkSet) {
+        if (cacheFile == null || jwkSet.equals(saved)) {
+            return;
+        }
+        Path temp = null;
+        try {
+            Path parent = cacheFile.toAbsolutePath().getParent();
+            if (isPosix(parent)) {
+                Files.createDirectories(parent, OWNER_ONLY_DIRECTORY);
+            } else {
+                Files.createDirectories(parent);
+            }
+            if (!isOwnerOnly(parent)) {
+                log.warn("Not saving JWK set to {}: the directory must be owned and writable only by {}",
+                        cacheFile, System.getProperty("user.name"));
+                return;
+            }
+            // Write beside the target and move it in place, so a crash never leaves a truncated file to load. On
+            // POSIX file systems the temp file is created readable and writable by the owner only.
+            temp = Files.createTempFile(parent, cacheFile.getFileName().toString(), ".tmp");
+            Files.writeString(temp, jwkSet.toString(true), StandardCharsets.UTF_8);
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            saved = jwkSet;
+        } catch (IOException e) {
+            log.warn("Failed to save JWK set to {}", cacheFile, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Whether {@code path} is owned by the process user and, where permissions are POSIX, writable by no one else.
+     */
+    static boolean isOwnerOnly(Path path) throws IOException {
+        UserPrincipal processUser = path.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!processUser.equals(Files.getOwner(path, LinkOption.NOFOLLOW_LINKS))) {
+            return false;
+        }
+        PosixFileAttributeView posix =
+                Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+        if (posix == null) {
+            return true;
+        }
+        Set<PosixFilePermission> permissions = posix.readAttributes().permissions();
+        return !permissions.contains(PosixFilePermission.GROUP_WRITE)
+                && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+    }
+
+    private static boolean isPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Only a leftover temp file
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.hepsiemlak.todo.config;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * JWK set of the authorization server, fetched from {@code jwk-set-uri} and held in memory.
+ * <p>
+ * A token signed with a key that is not in the held set triggers a refetch, at most once per
+ * {@code min-refetch-interval}. Listeners registered with {@link #onRotation(Runnable)} run whenever a fetch returns
+ * a set that differs from the held one, so anything derived from the previous keys can be dropped at once.
+ * <p>
+ * {@link JwkSetRefresher} fetches the set before the first request and keeps it fresh in the background, so the
+ * request path only goes to the network for a key it has never seen.
+ *
+ * @author suleyman.yildirim
+ */
+@Slf4j
+@Component
+public class JwkSetSource implements JWKSource<SecurityContext> {
+
+    private final String jwkSetUri;
+    private final RestOperations restOperations;
+    private final long minRefetchNanos;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock fetchLock = new ReentrantLock();
+    private final List<Runnable> rotationListeners = new CopyOnWriteArrayList<>();
+    private volatile JWKSet jwkSet;
+    private volatile long attemptedAt;
+
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder fetchFailures = new LongAdder();
+    private final LongAdder fetchNanos = new LongAdder();
+    private final LongAdder keyMisses = new LongAdder();
+    private volatile long lastFetchNanos;
+
+    @Autowired
+    public JwkSetSource(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+                        @Value("${todo.security.jwks.min-refetch-interval:PT30S}") Duration minRefetchInterval,
+                        @Value("${todo.security.jwks.timeout:PT5S}") Duration timeout) {
+        this(jwkSetUri, restTemplate(timeout), minRefetchInterval, System::nanoTime);
+    }
+
+    JwkSetSource(String jwkSetUri, RestOperations restOperations, Duration minRefetchInterval,
+                 LongSupplier nanoClock) {
+        this.jwkSetUri = jwkSetUri;
+        this.restOperations = restOperations;
+        this.minRefetchNanos = minRefetchInterval.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector selector, SecurityContext context) throws KeySourceException {
+        JWKSet held = jwkSet;
+        if (held == null) {
+            held = fetchUnlessChanged(null);
+        }
+        List<JWK> keys = selector.select(held);
+        if (keys.isEmpty()) {
+            keyMisses.increment();
+            // Unknown key ID: the authorization server may have rotated its keys since the last fetch
+            keys = selector.select(fetchUnlessChanged(held));
+        }
+        return keys;
+    }
+
+    /**
+     * Non-blocking lookup of the keys that may have signed {@code jwt}; a fetch runs on the bounded elastic
+     * scheduler.
+     */
+    public Flux<JWK> get(SignedJWT jwt) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+        JWKSet held = jwkSet;
+        if (held != null) {
+            List<JWK> keys = selector.select(held);
+            if (!keys.isEmpty()) {
+                return Flux.fromIterable(keys);
+            }
+        }
+        return Mono.fromCallable(() -> get(selector, null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(keys -> keys);
+    }
+
+    /**
+     * Fetches the JWK set now, regardless of when it was last fetched.
+     */
+    public JWKSet refresh() throws KeySourceException {
+        fetchLock.lock();
+        try {
+            return fetch();
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    /**
+     * Holds {@code jwkSet}, e.g. one saved by an earlier run, unless a set was fetched already. The first unknown key
+     * ID still refetches at once.
+     */
+    public void seed(JWKSet jwkSet) {
+        fetchLock.lock();
+        try {
+            if (this.jwkSet == null) {
+                this.jwkSet = jwkSet;
+                attemptedAt = nanoClock.getAsLong() - minRefetchNanos;
+            }
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    /**
+     * Registers {@code listener} to run after a fetch replaced the held JWK set with a different one.
+     */
+    public void onRotation(Runnable listener) {
+        rotationListeners.add(listener);
+    }
+
+    /**
+     * Returns the JWK set currently held, or {@code null} before the first fetch.
+     */
+    public JWKSet getJwkSet() {
+        return jwkSet;
+    }
+
+    public long getFetchCount() {
+        return fetches.sum();
+    }
+
+    public long getFetchFailureCount() {
+        return fetchFailures.sum();
+    }
+
+    /**
+     * Total time spent in fetches, successful or not.
+     */
+    public long getFetchNanos() {
+        return fetchNanos.sum();
+    }
+
+    public long getLastFetchNanos() {
+        return lastFetchNanos;
+    }
+
+    /**
+     * Number of tokens whose key ID was not in the held JWK set.
+     */
+    public long getKeyMissCount() {
+        return keyMisses.sum();
+    }
+
+    private JWKSet fetchUnlessChanged(JWKSet seen) throws KeySourceException {
+        fetchLock.lock();
+        try {
+            JWKSet held = jwkSet;
+            // Another request fetched while this one waited for the lock
+            if (held != seen) {
+                return held;
+            }
+            if (held != null && nanoClock.getAsLong() - attemptedAt < minRefetchNanos) {
+                return held;
+            }
+            return fetch();
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private JWKSet fetch() throws KeySourceException {
+        long start = nanoClock.getAsLong();
+        JWKSet fetched;
+        try {
+            fetched = download();
+        } catch (KeySourceException e) {
+            fetchFailures.increment();
+            throw e;
+        } finally {
+            // A failed attempt also counts, so an unreachable authorization server is not asked on every request
+            attemptedAt = nanoClock.getAsLong();
+            lastFetchNanos = attemptedAt - start;
+            fetchNanos.add(lastFetchNanos);
+            fetches.increment();
+        }
+
+        JWKSet previous = jwkSet;
+        jwkSet = fetched;
+        if (previous != null && !previous.equals(fetched)) {
+            log.info("JWK set at {} rotated", jwkSetUri);
+            rotationListeners.forEach(Runnable::run);
+        }
+        return fetched;
+    }
+
+    private JWKSet download() throws KeySourceException {
+        String body;
+        try {
+            body = restOperations.getForObject(jwkSetUri, String.class);
+        } catch (RestClientException e) {
+            throw new KeySourceException("Couldn't retrieve JWK set from " + jwkSetUri, e);
+        }
+        if (body == null) {
+            throw new KeySourceException("Empty JWK set response from " + jwkSetUri);
+        }
+        try {
+            return JWKSet.parse(body);
+        } catch (ParseException e) {
+            throw new KeySourceException("Couldn't parse JWK set from " + jwkSetUri, e);
+        }
+    }
+
+    private static RestTemplate restTemplate(Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        return new RestTemplate(requestFactory);
+    }
+}
@@ -0,0 +1,39 @@
+package com.hepsiemlak.todo.config;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * Builds the {@link KnownUserFilter} right after startup and rebuilds it every
+ * {@code todo.users.filter.rebuild-interval}, which also bounds how long a user registered on another node is
+ * rejected here.
+ *
+ * @author suleyman.yildirim
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.users.filter.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class KnownUserFilterRefresher {
+
+    private final KnownUserFilter knownUserFilter;
+    private final UserRepository userRepository;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${todo.users.filter.rebuild-interval:PT1M}")
+    public void rebuild() {
+        try (Stream<String> userIds = userRepository.streamAllUserIds()) {
+            long count = knownUserFilter.rebuild(userIds);
+            log.debug("Rebuilt known user filter from {} user IDs", count);
+        } catch (RuntimeException e) {
+            // The previous filter stays in place; before the first successful build every request is let through
+            log.warn("Failed to rebuild known user filter", e);
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.hepsiemlak.todo.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.hepsiemlak.todo.cache.VerifiedJwtCache;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.Set;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
@@ -17,13 +30,23 @@ import static org.springframework.security.config.Customizer.withDefaults;
  */
 @Configuration
 @EnableWebSecurity
+@Profile("!reactive")
 public class OAuth2ResourceServerSecurityConfiguration {
 
-    @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
-    String jwkSetUri;
+    /**
+     * Algorithms the authorization server may sign with, see its {@code signing.algorithm}. Its
+     * {@code SigningKeyConfiguration.SIGNING_ALGORITHMS} must list the same.
+     */
+    static final Set<JWSAlgorithm> SIGNING_ALGORITHMS = Set.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256);
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, Environment environment) throws Exception {
+        // Prometheus scrapes without a token, which is only allowed on a management.server.port of its own: that port
+        // is not published with the API. Other actuator endpoints, e.g. a DELETE of /actuator/queries, are for admins
+        AuthorizationManager<RequestAuthorizationContext> scrape =
+                ManagementPortType.get(environment) == ManagementPortType.DIFFERENT
+                        ? (authentication, context) -> new AuthorizationDecision(true)
+                        : AuthorityAuthorizationManager.hasAuthority("SCOPE_todo:admin");
         http
                 .authorizeHttpRequests((authorize) -> authorize
                         .requestMatchers(HttpMethod.GET, "/v1/**").hasAuthority("SCOPE_message:read")
@@ -32,6 +55,9 @@ public class OAuth2ResourceServerSecurityConfiguration {
                         .requestMatchers(HttpMethod.DELETE, "/v1/**").hasAuthority("SCOPE_message:write")
                         .requestMatchers(HttpMethod.PATCH, "/v1/**").hasAuthority("SCOPE_message:write")
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll() // Allow Swagger UI and related resources
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/prometheus").access(scrape)
+                        .requestMatchers("/actuator/**").hasAuthority("SCOPE_todo:admin")
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -39,9 +65,21 @@ public class OAuth2ResourceServerSecurityConfiguration {
         return http.build();
     }
 
+    /**
+     * Verifies tokens against the keys held by {@link JwkSetSource} and serves repeated tokens from
+     * {@link VerifiedJwtCache}, which is emptied whenever the keys rotate.
+     */
     @Bean
-    JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withJwkSetUri(this.jwkSetUri).build();
+    JwtDecoder jwtDecoder(JwkSetSource jwkSetSource, VerifiedJwtCache verifiedJwtCache) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(SIGNING_ALGORITHMS, jwkSetSource));
+        // Claims are checked by the decoder's default validators, as with NimbusJwtDecoder.withJwkSetUri
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder verifier = new NimbusJwtDecoder(jwtProcessor);
+
+        jwkSetSource.onRotation(verifiedJwtCache::invalidateAll);
+        return token -> verifiedJwtCache.get(token, verifier);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.hepsiemlak.todo.config;
+
+import com.hepsiemlak.todo.cache.VerifiedJwtCache;
+import com.nimbusds.jose.jwk.source.JWKSecurityContextJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorityReactiveAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.security.config.Customizer.withDefaults;
+
+/**
+ * Same access rules as {@link OAuth2ResourceServerSecurityConfiguration}, for the {@code reactive} profile.
+ *
+ * @author suleyman.yildirim
+ */
+@Configuration
+@EnableWebFluxSecurity
+@Profile("reactive")
+public class ReactiveOAuth2ResourceServerSecurityConfiguration {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, Environment environment) {
+        ReactiveAuthorizationManager<AuthorizationContext> scrape =
+                ManagementPortType.get(environment) == ManagementPortType.DIFFERENT
+                        ? (authentication, context) -> Mono.just(new AuthorizationDecision(true))
+                        : AuthorityReactiveAuthorizationManager.hasAuthority("SCOPE_todo:admin");
+        http
+                .authorizeExchange((authorize) -> authorize
+                        .pathMatchers(HttpMethod.GET, "/v1/**").hasAuthority("SCOPE_message:read")
+                        .pathMatchers(HttpMethod.POST, "/v1/**").hasAuthority("SCOPE_message:write")
+                        .pathMatchers(HttpMethod.PUT, "/v1/**").hasAuthority("SCOPE_message:write")
+                        .pathMatchers(HttpMethod.DELETE, "/v1/**").hasAuthority("SCOPE_message:write")
+                        .pathMatchers(HttpMethod.PATCH, "/v1/**").hasAuthority("SCOPE_message:write")
+                        .pathMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
+                        .pathMatchers("/actuator/health/**").permitAll()
+                        .pathMatchers("/actuator/prometheus").access(scrape)
+                        .pathMatchers("/actuator/**").hasAuthority("SCOPE_todo:admin")
+                        .anyExchange().authenticated()
+                )
+                .oauth2ResourceServer(oauth2 -> oauth2
+                        .jwt(withDefaults()));
+        return http.build();
+    }
+
+    @Bean
+    ReactiveJwtDecoder reactiveJwtDecoder(JwkSetSource jwkSetSource, VerifiedJwtCache verifiedJwtCache) {
+        NimbusReactiveJwtDecoder verifier = NimbusReactiveJwtDecoder.withJwkSource(jwkSetSource::get)
+                .jwtProcessorCustomizer(jwtProcessor -> jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+                        OAuth2ResourceServerSecurityConfiguration.SIGNING_ALGORITHMS, new JWKSecurityContextJWKSet())))
+                .build();
+
+        jwkSetSource.onRotation(verifiedJwtCache::invalidateAll);
+        return token -> verifiedJwtCache.get(token, verifier);
+    }
+
+}
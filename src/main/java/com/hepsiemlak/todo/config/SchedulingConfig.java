@@ -0,0 +1,12 @@
+package com.hepsiemlak.todo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * @author suleyman.yildirim
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,30 @@
+package com.hepsiemlak.todo.config;
+
+import com.hepsiemlak.todo.service.TaskService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves tasks stored under legacy keys to user-scoped keys at startup when {@code todo.tasks.migrate-keys=true}.
+ * Moved tasks get new IDs, so clients must re-read their task lists afterwards.
+ *
+ * @author suleyman.yildirim
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.tasks.migrate-keys", havingValue = "true")
+@RequiredArgsConstructor
+public class TaskKeyMigration implements ApplicationRunner {
+
+    private final TaskService taskService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int moved = taskService.migrateToUserScopedKeys();
+        log.info("Moved {} tasks to user-scoped keys", moved);
+    }
+}
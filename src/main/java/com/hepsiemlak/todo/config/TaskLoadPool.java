@@ -0,0 +1,44 @@
+package com.hepsiemlak.todo.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool that loads a user's tasks while the user is read, see {@code UserService.findByUserId}. It is bounded and
+ * kept apart from {@code applicationTaskExecutor}, so a burst of such reads cannot hold up other asynchronous work.
+ * When it is saturated the tasks are loaded on the calling thread, one read after the other.
+ * <p>
+ * The pool is deliberately not an {@link Executor} bean: Spring Boot only auto-configures
+ * {@code applicationTaskExecutor} while no such bean exists.
+ *
+ * @author suleyman.yildirim
+ */
+@Component
+public class TaskLoadPool implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    public TaskLoadPool(@Value("${todo.users.task-load.pool-size:16}") int poolSize,
+                        @Value("${todo.users.task-load.queue-capacity:64}") int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("task-load-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
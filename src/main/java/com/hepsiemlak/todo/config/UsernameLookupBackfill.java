@@ -0,0 +1,30 @@
+package com.hepsiemlak.todo.config;
+
+import com.hepsiemlak.todo.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the missing username lookups of users registered before lookups existed, at startup when
+ * {@code todo.users.backfill-username-lookups=true}. Running it again only writes what is still missing.
+ *
+ * @author suleyman.yildirim
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.users.backfill-username-lookups", havingValue = "true")
+@RequiredArgsConstructor
+public class UsernameLookupBackfill implements ApplicationRunner {
+
+    private final UserService userService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int written = userService.backfillUsernameLookups();
+        log.info("Wrote {} missing username lookups", written);
+    }
+}
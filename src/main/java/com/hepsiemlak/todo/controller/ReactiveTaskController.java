@@ -0,0 +1,183 @@
+package com.hepsiemlak.todo.controller;
+
+import com.hepsiemlak.todo.exception.ErrorCode;
+import com.hepsiemlak.todo.exception.InvalidCursorException;
+import com.hepsiemlak.todo.exception.TaskNotFoundException;
+import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskPage;
+import com.hepsiemlak.todo.service.ReactiveTaskService;
+import com.hepsiemlak.todo.service.ReactiveUserService;
+import com.hepsiemlak.todo.service.TaskService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * WebFlux variant of {@link TaskController}, active with the {@code reactive} profile. The batch endpoints are only
+ * served by the servlet stack.
+ *
+ * @author suleyman.yildirim
+ */
+@RestController
+@RequestMapping("/v1")
+@Tag(name = "Task", description = "Task management APIs")
+@Profile("reactive")
+@RequiredArgsConstructor
+@Validated
+public class ReactiveTaskController {
+
+    private final ReactiveTaskService taskService;
+    private final ReactiveUserService userService;
+
+    @Operation(summary = "Create a new task for a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Task created successfully",
+                    content = @Content(schema = @Schema(implementation = Task.class))),
+            @ApiResponse(responseCode = "404", description = "User Not Found",
+                    content = @Content(schema = @Schema(implementation = UserNotFoundException.class)))
+    })
+    @PostMapping("tasks")
+    @PreAuthorize("hasAuthority('SCOPE_message:write')")
+    public Mono<ResponseEntity<Task>> createTask(@RequestBody @Valid Task task) {
+        return userService.existsByUserId(task.getUserId())
+                .flatMap(exists -> exists
+                        ? taskService.createTask(task)
+                        : Mono.error(new UserNotFoundException(ErrorCode.USER_NOT_FOUND,
+                                "User with ID %s not found.".formatted(task.getUserId()))))
+                .map(createdTask -> ResponseEntity.status(201).body(createdTask));
+    }
+
+    @Operation(summary = "Retrieve all tasks for a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of tasks",
+                    content = @Content(schema = @Schema(implementation = Task.class))),
+            @ApiResponse(responseCode = "304", description = "No task of the user changed since the given ETag"),
+            @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content(schema = @Schema(implementation = UserNotFoundException.class)))
+    })
+    @GetMapping("/tasks")
+    @PreAuthorize("hasAuthority('SCOPE_message:read')")
+    public Mono<ResponseEntity<List<Task>>> getAllTasksByUser(@RequestParam("userId") @NotNull(message = "User ID is required") String userId,
+                                                              ServerWebExchange exchange) {
+        // Version 0 is also what an unknown user has, so only a written list can be answered without a lookup
+        return taskService.getTaskListVersion(userId)
+                .flatMap(version -> {
+                    String eTag = String.valueOf(version);
+                    return version > 0 && exchange.checkNotModified(eTag)
+                            ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<List<Task>>build())
+                            : taskService.getTasksByUser(userId).map(tasks -> ResponseEntity.ok().eTag(eTag).body(tasks));
+                });
+    }
+
+    @Operation(summary = "Retrieve a page of tasks for a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of tasks and the cursor of the next page",
+                    content = @Content(schema = @Schema(implementation = TaskPage.class))),
+            @ApiResponse(responseCode = "304", description = "No task of the user changed since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or cursor",
+                    content = @Content(schema = @Schema(implementation = InvalidCursorException.class))),
+            @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content(schema = @Schema(implementation = UserNotFoundException.class)))
+    })
+    @GetMapping(value = "/tasks", params = "limit")
+    @PreAuthorize("hasAuthority('SCOPE_message:read')")
+    public Mono<ResponseEntity<TaskPage>> getTaskPageByUser(
+            @RequestParam("userId") @NotNull(message = "User ID is required") String userId,
+            @RequestParam("limit") @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = TaskService.MAX_PAGE_SIZE, message = "Limit must be at most " + TaskService.MAX_PAGE_SIZE) int limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            ServerWebExchange exchange) {
+        // Version 0 is also what an unknown user has, so only a written list can be answered without a lookup
+        return taskService.getTaskListVersion(userId)
+                .flatMap(version -> {
+                    String eTag = String.valueOf(version);
+                    return version > 0 && exchange.checkNotModified(eTag)
+                            ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<TaskPage>build())
+                            : taskService.getTaskPageByUser(userId, cursor, limit).map(page -> ResponseEntity.ok().eTag(eTag).body(page));
+                });
+    }
+
+    @Operation(summary = "Export all tasks of a user as newline-delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One task per line, streamed while it is read",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = Task.class)))
+    })
+    @GetMapping(value = "/users/{userId}/tasks/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority('SCOPE_message:read')")
+    public Flux<Task> exportTasksByUser(@PathVariable String userId) {
+        return taskService.streamTasksByUser(userId);
+    }
+
+    @Operation(summary = "Retrieve a task by ID for a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Task found",
+                    content = @Content(schema = @Schema(implementation = Task.class))),
+            @ApiResponse(responseCode = "304", description = "Task did not change since the given ETag"),
+            @ApiResponse(responseCode = "404", description = "Task not found",
+                    content = @Content(schema = @Schema(implementation = TaskNotFoundException.class)))
+    })
+    @GetMapping("/users/{userId}/tasks/{taskId}")
+    @PreAuthorize("hasAuthority('SCOPE_message:read')")
+    public Mono<ResponseEntity<Task>> getTaskByIdAndUser(@PathVariable String taskId, @PathVariable String userId) {
+        return taskService.getTaskByIdAndUser(taskId, userId)
+                .map(task -> task.getVersion() == null
+                        ? ResponseEntity.ok(task)
+                        : ResponseEntity.ok().eTag(String.valueOf(task.getVersion())).body(task));
+    }
+
+    @Operation(summary = "Update an existing task for a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Task updated successfully",
+                    content = @Content(schema = @Schema(implementation = Task.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid task data provided"),
+            @ApiResponse(responseCode = "404", description = "Task not found",
+                    content = @Content(schema = @Schema(implementation = TaskNotFoundException.class))
+            )
+    })
+    @PutMapping("/tasks/{id}")
+    @PreAuthorize("hasAuthority('SCOPE_message:write')")
+    public Mono<ResponseEntity<Task>> updateTask(
+            @PathVariable("id") @NotNull(message = "Task ID is required") String id,
+            @RequestBody @Validated Task updatedTask) {
+        return taskService.updateTaskForUser(id, updatedTask)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Delete an existing task for a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Task deleted successfully"),
+            @ApiResponse(responseCode = "404", description = "Task not found",
+                    content = @Content(schema = @Schema(implementation = TaskNotFoundException.class))
+            )
+    })
+    @DeleteMapping("/tasks/{id}")
+    @PreAuthorize("hasAuthority('SCOPE_message:write')")
+    public Mono<ResponseEntity<Void>> deleteTask(
+            @PathVariable("id") @NotNull(message = "Task ID is required") String id,
+            @RequestParam("userId") @NotNull(message = "User ID is required") String userId) {
+        return taskService.deleteTaskForUser(id, userId)
+                .then(Mono.fromSupplier(() -> ResponseEntity.noContent().<Void>build()));
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.hepsiemlak.todo.controller;
+
+import com.hepsiemlak.todo.exception.UserExistsException;
+import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.User;
+import com.hepsiemlak.todo.service.ReactiveUserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static com.hepsiemlak.todo.controller.UserController.INCLUDE_TASKS;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux variant of {@link UserController}, active with the {@code reactive} profile.
+ *
+ * @author suleyman.yildirim
+ */
+@RestController
+@RequestMapping("/v1")
+@Tag(name = "User", description = "User management APIs")
+@Profile("reactive")
+@RequiredArgsConstructor
+@Validated
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    @Operation(summary = "Register a new user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "User registered successfully",
+                    content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "409", description = "User already exists",
+                    content = @Content(schema = @Schema(implementation = UserExistsException.class)))
+    })
+    @PostMapping("users")
+    @PreAuthorize("hasAuthority('SCOPE_message:write')")
+    public Mono<ResponseEntity<User>> registerUser(@RequestBody @Valid User user) {
+        return userService.registerUser(user)
+                .map(registeredUser -> ResponseEntity.status(201).body(registeredUser));
+    }
+
+    @Operation(summary = "Find a user by username")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User found",
+                    content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content(schema = @Schema(implementation = UserNotFoundException.class)))
+    })
+    @GetMapping("/user")
+    @PreAuthorize("hasAuthority('SCOPE_message:read')")
+    public Mono<ResponseEntity<User>> findUserByUsername(@RequestParam String username,
+                                                         @Parameter(description = "Pass tasks to also return the user's tasks")
+                                                         @RequestParam(value = "include", required = false) List<String> include) {
+        return userService.findUserByUsername(username, includesTasks(include))
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Find a user by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User found",
+                    content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content(schema = @Schema(implementation = UserNotFoundException.class)))
+    })
+    @GetMapping("/user/id")
+    @PreAuthorize("hasAuthority('SCOPE_message:read')")
+    public Mono<ResponseEntity<User>> findUserById(@RequestParam String id,
+                                                   @Parameter(description = "Pass tasks to also return the user's tasks")
+                                                   @RequestParam(value = "include", required = false) List<String> include) {
+        return userService.findByUserId(id, includesTasks(include))
+                .map(ResponseEntity::ok);
+    }
+
+    private static boolean includesTasks(List<String> include) {
+        return include != null && include.contains(INCLUDE_TASKS);
+    }
+}
@@ -1,9 +1,20 @@
 package com.hepsiemlak.todo.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hepsiemlak.todo.exception.ErrorCode;
+import com.hepsiemlak.todo.exception.InvalidCursorException;
+import com.hepsiemlak.todo.exception.TaskConflictException;
 import com.hepsiemlak.todo.exception.TaskNotFoundException;
 import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.BatchResult;
 import com.hepsiemlak.todo.model.Task;
-import com.hepsiemlak.todo.model.User;
+import com.hepsiemlak.todo.model.TaskBatchUpdateRequest;
+import com.hepsiemlak.todo.model.TaskPage;
+import com.hepsiemlak.todo.model.TaskPatch;
+import com.hepsiemlak.todo.model.TaskSelection;
 import com.hepsiemlak.todo.service.TaskService;
 import com.hepsiemlak.todo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,14 +24,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 
 /**
@@ -29,12 +52,14 @@ import java.util.List;
 @RestController
 @RequestMapping("/v1")
 @Tag(name = "Task", description = "Task management APIs")
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Validated
 public class TaskController {
 
     private final TaskService taskService;
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "Create a new task for a user")
     @ApiResponses(value = {
@@ -46,30 +71,155 @@ public class TaskController {
     @PostMapping("tasks")
     @PreAuthorize("hasAuthority('SCOPE_message:write')")
     public ResponseEntity<Task> createTask(@RequestBody @Valid Task task) {
-        User user = userService.findByUserId(task.getUserId());
-        task.setUserId(user.getUserId());
+        if (!userService.existsByUserId(task.getUserId())) {
+            throw new UserNotFoundException(ErrorCode.USER_NOT_FOUND, "User with ID %s not found.".formatted(task.getUserId()));
+        }
         Task createdTask = taskService.createTask(task);
         return ResponseEntity.status(201).body(createdTask);
     }
 
+    @Operation(summary = "Create many tasks in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "All tasks created",
+                    content = @Content(schema = @Schema(implementation = BatchResult.class))),
+            @ApiResponse(responseCode = "207", description = "Some tasks could not be created, see the per-item results",
+                    content = @Content(schema = @Schema(implementation = BatchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid task data provided")
+    })
+    @PostMapping("tasks:batch")
+    @PreAuthorize("hasAuthority('SCOPE_message:write')")
+    public ResponseEntity<BatchResult> createTasks(
+            @RequestBody @Size(min = 1, max = TaskService.MAX_BATCH_SIZE, message = "Batch must contain between 1 and " + TaskService.MAX_BATCH_SIZE + " tasks")
+            List<@Valid Task> tasks) {
+        // Each owner is checked once, however many of the tasks belong to it
+        Map<String, Boolean> userExists = new HashMap<>();
+        tasks.forEach(task -> userExists.computeIfAbsent(task.getUserId(), userService::existsByUserId));
+
+        BatchResult result = taskService.createTasks(tasks, userExists::get);
+        return ResponseEntity.status(result.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(result);
+    }
+
+    @Operation(summary = "Update many tasks of a user in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Selected tasks updated",
+                    content = @Content(schema = @Schema(implementation = BatchResult.class))),
+            @ApiResponse(responseCode = "207", description = "Some of the given task IDs were not found, see the per-item results",
+                    content = @Content(schema = @Schema(implementation = BatchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid selection or changes")
+    })
+    @PostMapping("tasks:batchUpdate")
+    @PreAuthorize("hasAuthority('SCOPE_message:write')")
+    public ResponseEntity<BatchResult> updateTasks(@RequestBody @Valid TaskBatchUpdateRequest request) {
+        BatchResult result = taskService.updateTasks(request.getWhere(), request.getSet());
+        return ResponseEntity.status(result.getFailed() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(result);
+    }
+
+    @Operation(summary = "Delete many tasks of a user in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Selected tasks deleted",
+                    content = @Content(schema = @Schema(implementation = BatchResult.class))),
+            @ApiResponse(responseCode = "207", description = "Some of the given task IDs were not found, see the per-item results",
+                    content = @Content(schema = @Schema(implementation = BatchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid selection")
+    })
+    @PostMapping("tasks:batchDelete")
+    @PreAuthorize("hasAuthority('SCOPE_message:write')")
+    public ResponseEntity<BatchResult> deleteTasks(@RequestBody @Valid TaskSelection selection) {
+        BatchResult result = taskService.deleteTasks(selection);
+        return ResponseEntity.status(result.getFailed() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(result);
+    }
+
     @Operation(summary = "Retrieve all tasks for a user")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of tasks",
                     content = @Content(schema = @Schema(implementation = Task.class))),
+            @ApiResponse(responseCode = "304", description = "No task of the user changed since the given ETag"),
             @ApiResponse(responseCode = "404", description = "User not found",
                     content = @Content(schema = @Schema(implementation = UserNotFoundException.class)))
     })
     @GetMapping("/tasks")
     @PreAuthorize("hasAuthority('SCOPE_message:read')")
-    public ResponseEntity<List<Task>> getAllTasksByUser(@RequestParam("userId") @NotNull(message = "User ID is required") String userId) {
+    public ResponseEntity<List<Task>> getAllTasksByUser(@RequestParam("userId") @NotNull(message = "User ID is required") String userId,
+                                                        WebRequest webRequest) {
+        long version = taskService.getTaskListVersion(userId);
+        String eTag = String.valueOf(version);
+        // Version 0 is also what an unknown user has, so only a written list can be answered without a lookup
+        if (version > 0 && webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
         List<Task> tasks = taskService.getTasksByUser(userId);
-        return ResponseEntity.ok(tasks);
+        return ResponseEntity.ok().eTag(eTag).body(tasks);
+    }
+
+    @Operation(summary = "Retrieve a page of tasks for a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of tasks and the cursor of the next page",
+                    content = @Content(schema = @Schema(implementation = TaskPage.class))),
+            @ApiResponse(responseCode = "304", description = "No task of the user changed since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or cursor",
+                    content = @Content(schema = @Schema(implementation = InvalidCursorException.class))),
+            @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content(schema = @Schema(implementation = UserNotFoundException.class)))
+    })
+    @GetMapping(value = "/tasks", params = "limit")
+    @PreAuthorize("hasAuthority('SCOPE_message:read')")
+    public ResponseEntity<TaskPage> getTaskPageByUser(
+            @RequestParam("userId") @NotNull(message = "User ID is required") String userId,
+            @RequestParam("limit") @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = TaskService.MAX_PAGE_SIZE, message = "Limit must be at most " + TaskService.MAX_PAGE_SIZE) int limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            WebRequest webRequest) {
+        long version = taskService.getTaskListVersion(userId);
+        String eTag = String.valueOf(version);
+        // Version 0 is also what an unknown user has, so only a written list can be answered without a lookup
+        if (version > 0 && webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        TaskPage page = taskService.getTaskPageByUser(userId, cursor, limit);
+        return ResponseEntity.ok().eTag(eTag).body(page);
+    }
+
+    @Operation(summary = "Export all tasks of a user as newline-delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One task per line, streamed while it is read",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = Task.class)))
+    })
+    @GetMapping(value = "/users/{userId}/tasks/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority('SCOPE_message:read')")
+    public ResponseEntity<StreamingResponseBody> exportTasksByUser(@PathVariable String userId) {
+        StreamingResponseBody body = outputStream -> {
+            // The generator's own buffer is the only one; flushing per task is left to it filling up
+            ObjectWriter writer = objectMapper.writerFor(Task.class)
+                    .withRootValueSeparator("\n")
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+            try (Stream<Task> tasks = taskService.streamTasksByUser(userId);
+                 JsonGenerator generator = writer.createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+                Iterator<Task> iterator = tasks.iterator();
+                if (!iterator.hasNext()) {
+                    return;
+                }
+                writer.writeValue(generator, iterator.next());
+                // Let the client start consuming before the rest of the result arrives
+                generator.flush();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                }
+                generator.writeRaw('\n');
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @Operation(summary = "Retrieve a task by ID for a user")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Task found",
                     content = @Content(schema = @Schema(implementation = Task.class))),
+            @ApiResponse(responseCode = "304", description = "Task did not change since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Task not found",
                     content = @Content(schema = @Schema(implementation = TaskNotFoundException.class)))
     })
@@ -77,7 +227,11 @@ public class TaskController {
     @PreAuthorize("hasAuthority('SCOPE_message:read')")
     public ResponseEntity<Task> getTaskByIdAndUser(@PathVariable String taskId, @PathVariable String userId) {
         Task task = taskService.getTaskByIdAndUser(taskId, userId);
-        return ResponseEntity.ok(task);
+        if (task.getVersion() == null) {
+            return ResponseEntity.ok(task);
+        }
+        // A matching If-None-Match is answered with 304 before the body is serialized
+        return ResponseEntity.ok().eTag(String.valueOf(task.getVersion())).body(task);
     }
 
 
@@ -88,6 +242,9 @@ public class TaskController {
             @ApiResponse(responseCode = "400", description = "Invalid task data provided"),
             @ApiResponse(responseCode = "404", description = "Task not found",
                     content = @Content(schema = @Schema(implementation = TaskNotFoundException.class))
+            ),
+            @ApiResponse(responseCode = "409", description = "Task was changed since the given version",
+                    content = @Content(schema = @Schema(implementation = TaskConflictException.class))
             )
     })
     @PutMapping("/tasks/{id}")
@@ -99,6 +256,26 @@ public class TaskController {
         return ResponseEntity.ok(task);
     }
 
+    @Operation(summary = "Change some fields of an existing task for a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Task changed, the ETag header carries its new version"),
+            @ApiResponse(responseCode = "400", description = "Invalid task data provided"),
+            @ApiResponse(responseCode = "404", description = "Task not found",
+                    content = @Content(schema = @Schema(implementation = TaskNotFoundException.class))
+            ),
+            @ApiResponse(responseCode = "409", description = "Task was changed since the given version",
+                    content = @Content(schema = @Schema(implementation = TaskConflictException.class))
+            )
+    })
+    @PatchMapping("/tasks/{id}")
+    @PreAuthorize("hasAuthority('SCOPE_message:write')")
+    public ResponseEntity<Void> patchTask(
+            @PathVariable("id") @NotNull(message = "Task ID is required") String id,
+            @RequestBody @Valid TaskPatch patch) {
+        long version = taskService.patchTaskForUser(id, patch);
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
     @Operation(summary = "Delete an existing task for a user")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Task deleted successfully"),
@@ -5,6 +5,7 @@ import com.hepsiemlak.todo.exception.UserNotFoundException;
 import com.hepsiemlak.todo.model.User;
 import com.hepsiemlak.todo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,21 +13,30 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * @author suleyman.yildirim
  */
 @RestController
 @RequestMapping("/v1")
 @Tag(name = "User", description = "User management APIs")
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Validated
 public class UserController {
 
+    /**
+     * Value of the {@code include} parameter that adds the user's tasks to the response.
+     */
+    public static final String INCLUDE_TASKS = "tasks";
+
     private final UserService userService;
 
     @Operation(summary = "Register a new user")
@@ -52,8 +62,10 @@ public class UserController {
     })
     @GetMapping("/user")
     @PreAuthorize("hasAuthority('SCOPE_message:read')")
-    public ResponseEntity<User> findUserByUsername(@RequestParam String username) {
-        var user = userService.findUserByUsername(username);
+    public ResponseEntity<User> findUserByUsername(@RequestParam String username,
+                                                   @Parameter(description = "Pass tasks to also return the user's tasks")
+                                                   @RequestParam(value = "include", required = false) List<String> include) {
+        var user = userService.findUserByUsername(username, includesTasks(include));
         return ResponseEntity.ok(user);
     }
 
@@ -66,8 +78,14 @@ public class UserController {
     })
     @GetMapping("/user/id")
     @PreAuthorize("hasAuthority('SCOPE_message:read')")
-    public ResponseEntity<User> findUserById(@RequestParam String id) {
-        var user = userService.findByUserId(id);
+    public ResponseEntity<User> findUserById(@RequestParam String id,
+                                             @Parameter(description = "Pass tasks to also return the user's tasks")
+                                             @RequestParam(value = "include", required = false) List<String> include) {
+        var user = userService.findByUserId(id, includesTasks(include));
         return ResponseEntity.ok(user);
     }
+
+    private static boolean includesTasks(List<String> include) {
+        return include != null && include.contains(INCLUDE_TASKS);
+    }
 }
@@ -10,7 +10,11 @@ public enum ErrorCode {
 
     USER_NOT_FOUND("USER_NOT_FOUND"),
     USER_EXISTS("USER_EXISTS"),
-    TASK_NOT_FOUND("TASK_NOT_FOUND");
+    TASK_NOT_FOUND("TASK_NOT_FOUND"),
+    INVALID_CURSOR("INVALID_CURSOR"),
+    TASK_EXISTS("TASK_EXISTS"),
+    TASK_WRITE_FAILED("TASK_WRITE_FAILED"),
+    TASK_CONFLICT("TASK_CONFLICT");
 
     private final String code;
 
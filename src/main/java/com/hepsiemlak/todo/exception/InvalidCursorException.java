@@ -0,0 +1,14 @@
+package com.hepsiemlak.todo.exception;
+
+/**
+ * @author suleyman.yildirim
+ */
+public class InvalidCursorException extends BaseException {
+    public InvalidCursorException(ErrorCode errorCode, String message) {
+        super(errorCode, message);
+    }
+
+    public InvalidCursorException(ErrorCode errorCode, String message, Throwable cause) {
+        super(errorCode, message, cause);
+    }
+}
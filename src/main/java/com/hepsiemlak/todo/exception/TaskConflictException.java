@@ -0,0 +1,14 @@
+package com.hepsiemlak.todo.exception;
+
+/**
+ * @author suleyman.yildirim
+ */
+public class TaskConflictException extends BaseException {
+    public TaskConflictException(ErrorCode errorCode, String message) {
+        super(errorCode, message);
+    }
+
+    public TaskConflictException(ErrorCode errorCode, String message, Throwable cause) {
+        super(errorCode, message, cause);
+    }
+}
@@ -0,0 +1,90 @@
+package com.hepsiemlak.todo.metrics;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.cache.VerifiedJwtCache;
+import com.hepsiemlak.todo.config.JwkSetSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the node-local caches already keep. {@link TaskCache} and {@link VerifiedJwtCache} use
+ * Micrometer's cache meter names ({@code cache.gets}, {@code cache.evictions}, {@code cache.size}) tagged with
+ * {@code cache}, so standard cache dashboards work for them. Meters are read at scrape time, which adds nothing to
+ * the request path.
+ *
+ * @author suleyman.yildirim
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    private final TaskCache taskCache;
+    private final VerifiedJwtCache verifiedJwtCache;
+    private final KnownUserFilter knownUserFilter;
+    private final JwkSetSource jwkSetSource;
+
+    public CacheMetrics(TaskCache taskCache, VerifiedJwtCache verifiedJwtCache, KnownUserFilter knownUserFilter,
+                        JwkSetSource jwkSetSource) {
+        this.taskCache = taskCache;
+        this.verifiedJwtCache = verifiedJwtCache;
+        this.knownUserFilter = knownUserFilter;
+        this.jwkSetSource = jwkSetSource;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCache(registry, "tasks", taskCache, TaskCache::getHitCount, TaskCache::getMissCount,
+                TaskCache::getEvictionCount, TaskCache::size);
+        bindCache(registry, "jwt", verifiedJwtCache, VerifiedJwtCache::getHitCount, VerifiedJwtCache::getMissCount,
+                VerifiedJwtCache::getEvictionCount, VerifiedJwtCache::size);
+
+        FunctionCounter.builder("todo.users.filter.checks", knownUserFilter, KnownUserFilter::getCheckCount)
+                .description("User IDs checked against the known-user filter")
+                .register(registry);
+        FunctionCounter.builder("todo.users.filter.rejections", knownUserFilter, KnownUserFilter::getRejectionCount)
+                .description("User IDs the known-user filter rejected without a database read")
+                .register(registry);
+        Gauge.builder("todo.users.filter.ready", knownUserFilter, filter -> filter.isReady() ? 1 : 0)
+                .description("1 once the known-user filter was built from the bucket")
+                .register(registry);
+
+        FunctionTimer.builder("todo.jwks.fetches", jwkSetSource, JwkSetSource::getFetchCount,
+                        JwkSetSource::getFetchNanos, TimeUnit.NANOSECONDS)
+                .description("Fetches of the JWK set, successful or not")
+                .register(registry);
+        FunctionCounter.builder("todo.jwks.fetch.failures", jwkSetSource, JwkSetSource::getFetchFailureCount)
+                .register(registry);
+        FunctionCounter.builder("todo.jwks.key.misses", jwkSetSource, JwkSetSource::getKeyMissCount)
+                .description("Tokens signed with a key that was not in the held JWK set")
+                .register(registry);
+        Gauge.builder("todo.jwks.keys", jwkSetSource,
+                        source -> source.getJwkSet() == null ? 0 : source.getJwkSet().getKeys().size())
+                .register(registry);
+    }
+
+    private static <T> void bindCache(MeterRegistry registry, String name, T cache, ToDoubleFunction<T> hits,
+                                      ToDoubleFunction<T> misses, ToDoubleFunction<T> evictions,
+                                      ToDoubleFunction<T> size) {
+        FunctionCounter.builder("cache.gets", cache, hits)
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, misses)
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, evictions)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("cache.size", cache, size)
+                .tag("cache", name)
+                .register(registry);
+    }
+}
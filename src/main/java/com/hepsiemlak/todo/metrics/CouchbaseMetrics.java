@@ -0,0 +1,70 @@
+package com.hepsiemlak.todo.metrics;
+
+import com.couchbase.client.core.diagnostics.EndpointDiagnostics;
+import com.couchbase.client.core.endpoint.EndpointState;
+import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.java.Cluster;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection gauges of the Couchbase SDK, which keeps a pool of endpoints per service instead of a classic
+ * connection pool: {@code couchbase.endpoints} counts the endpoints of each {@code service} in each {@code state}.
+ * The counts come from {@link Cluster#diagnostics()}, which reads local state only; it is called at most once per
+ * second however many gauges a scrape reads.
+ *
+ * @author suleyman.yildirim
+ */
+@Component
+@Profile("!in-memory")
+public class CouchbaseMetrics implements MeterBinder {
+
+    private static final long SNAPSHOT_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final Cluster cluster;
+
+    private volatile Map<ServiceType, Map<EndpointState, Integer>> counts = Map.of();
+    private volatile long countedAt = System.nanoTime() - SNAPSHOT_NANOS;
+
+    public CouchbaseMetrics(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ServiceType service : List.of(ServiceType.KV, ServiceType.QUERY, ServiceType.MANAGER)) {
+            for (EndpointState state : EndpointState.values()) {
+                Gauge.builder("couchbase.endpoints", this, metrics -> metrics.count(service, state))
+                        .description("Couchbase SDK endpoints (connections) per service and state")
+                        .tag("service", service.ident())
+                        .tag("state", state.name().toLowerCase())
+                        .register(registry);
+            }
+        }
+    }
+
+    private int count(ServiceType service, EndpointState state) {
+        long now = System.nanoTime();
+        if (now - countedAt >= SNAPSHOT_NANOS) {
+            Map<ServiceType, Map<EndpointState, Integer>> snapshot = new EnumMap<>(ServiceType.class);
+            cluster.diagnostics().endpoints().forEach((type, endpoints) -> {
+                Map<EndpointState, Integer> byState = new EnumMap<>(EndpointState.class);
+                for (EndpointDiagnostics endpoint : endpoints) {
+                    byState.merge(endpoint.state(), 1, Integer::sum);
+                }
+                snapshot.put(type, byState);
+            });
+            counts = snapshot;
+            countedAt = now;
+        }
+        return counts.getOrDefault(service, Map.of()).getOrDefault(state, 0);
+    }
+}
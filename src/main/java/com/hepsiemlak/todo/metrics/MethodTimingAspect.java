@@ -0,0 +1,211 @@
+package com.hepsiemlak.todo.metrics;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.hepsiemlak.todo.repository.ReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.ReactiveUserRepository;
+import com.hepsiemlak.todo.repository.TaskListVersionRepository;
+import com.hepsiemlak.todo.repository.TaskRepository;
+import com.hepsiemlak.todo.repository.UserRepository;
+import com.hepsiemlak.todo.repository.UsernameLookupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call to a controller, service or repository bean, in {@code todo.controller.invocations},
+ * {@code todo.service.invocations} and {@code todo.repository.invocations}. Each timer is tagged with the class and
+ * method called, the {@code outcome} and the simple name of the {@code exception} thrown, or {@code none}. An
+ * exception caused by the Couchbase SDK is tagged with the SDK's exception, since Spring Data wraps it.
+ * <p>
+ * A call returning a {@link Mono} or {@link Flux} is timed from subscription to its terminal signal, as that is when
+ * the work is done; a cancelled one has the outcome {@code CANCELLED}. A returned {@link java.util.stream.Stream} is
+ * timed until it is returned, not until it is consumed.
+ * <p>
+ * Timers are registered once per method and outcome and then found with one map lookup, so a call costs two
+ * {@link System#nanoTime()} reads and one histogram update. Percentiles are configured with {@code management.metrics.distribution.*.todo}.
+ *
+ * @author suleyman.yildirim
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "todo.metrics.methods.enabled", havingValue = "true", matchIfMissing = true)
+public class MethodTimingAspect {
+
+    static final String CONTROLLER_TIMER = "todo.controller.invocations";
+    static final String SERVICE_TIMER = "todo.service.invocations";
+    static final String REPOSITORY_TIMER = "todo.repository.invocations";
+
+    private static final String SUCCESS = "SUCCESS";
+    private static final String ERROR = "ERROR";
+    private static final String CANCELLED = "CANCELLED";
+    private static final String NO_EXCEPTION = "none";
+
+    // Spring Data repositories are proxies of SimpleCouchbaseRepository, so they are named after the interface the
+    // proxy implements
+    private static final List<Class<?>> REPOSITORY_TYPES = List.of(TaskRepository.class, UserRepository.class,
+            ReactiveTaskRepository.class, ReactiveUserRepository.class, TaskListVersionRepository.class,
+            UsernameLookupRepository.class);
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<CallSite, MethodTimers> timers = new ConcurrentHashMap<>();
+
+    public MethodTimingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(com.hepsiemlak.todo.controller..*) && execution(public * *(..))")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(CONTROLLER_TIMER, joinPoint);
+    }
+
+    @Around("within(com.hepsiemlak.todo.service.*Service) && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    /**
+     * Spring Data repositories are matched by bean name, since their proxies are not in the repository package.
+     */
+    @Around("execution(public * *(..)) && (bean(*Repository) || within(com.hepsiemlak.todo.repository..*Repository))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    private Object time(String timerName, ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodTimers methodTimers = methodTimers(timerName, joinPoint);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(methodTimers.failure(e), start);
+            throw e;
+        }
+
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return mono.doOnSuccess(value -> record(methodTimers.success(), subscribed))
+                        .doOnError(e -> record(methodTimers.failure(e), subscribed))
+                        .doOnCancel(() -> record(methodTimers.cancelled(), subscribed));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                return flux.doOnComplete(() -> record(methodTimers.success(), subscribed))
+                        .doOnError(e -> record(methodTimers.failure(e), subscribed))
+                        .doOnCancel(() -> record(methodTimers.cancelled(), subscribed));
+            });
+        }
+        record(methodTimers.success(), start);
+        return result;
+    }
+
+    private MethodTimers methodTimers(String timerName, ProceedingJoinPoint joinPoint) {
+        // Keyed by the proxy's class, as the proxies of all Spring Data repositories share one target class
+        Class<?> proxyClass = joinPoint.getThis().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        CallSite callSite = new CallSite(timerName, proxyClass, method);
+        MethodTimers methodTimers = timers.get(callSite);
+        if (methodTimers == null) {
+            methodTimers = timers.computeIfAbsent(callSite,
+                    site -> new MethodTimers(site.timerName(), className(timerName, joinPoint), method.getName()));
+        }
+        return methodTimers;
+    }
+
+    private static void record(Timer timer, long start) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String className(String timerName, ProceedingJoinPoint joinPoint) {
+        if (timerName.equals(REPOSITORY_TIMER)) {
+            for (Class<?> repositoryType : REPOSITORY_TYPES) {
+                if (repositoryType.isInstance(joinPoint.getThis())) {
+                    return repositoryType.getSimpleName();
+                }
+            }
+        }
+        return AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName();
+    }
+
+    /**
+     * The exception to tag a failure with: the Couchbase SDK's exception if it caused {@code e}, otherwise {@code e}.
+     */
+    static Class<? extends Throwable> exceptionType(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CouchbaseException) {
+                return cause.getClass();
+            }
+        }
+        return e.getClass();
+    }
+
+    private record CallSite(String timerName, Class<?> proxyClass, Method method) {
+    }
+
+    /**
+     * Timers of one method; each is registered on first use, so outcomes that never happen add no time series.
+     */
+    private final class MethodTimers {
+
+        private final String timerName;
+        private final String className;
+        private final String methodName;
+        private final ConcurrentHashMap<Class<? extends Throwable>, Timer> failures = new ConcurrentHashMap<>();
+        private volatile Timer success;
+        private volatile Timer cancelled;
+
+        MethodTimers(String timerName, String className, String methodName) {
+            this.timerName = timerName;
+            this.className = className;
+            this.methodName = methodName;
+        }
+
+        Timer success() {
+            Timer timer = success;
+            if (timer == null) {
+                timer = register(SUCCESS, NO_EXCEPTION);
+                success = timer;
+            }
+            return timer;
+        }
+
+        Timer cancelled() {
+            Timer timer = cancelled;
+            if (timer == null) {
+                timer = register(CANCELLED, NO_EXCEPTION);
+                cancelled = timer;
+            }
+            return timer;
+        }
+
+        Timer failure(Throwable e) {
+            return failures.computeIfAbsent(exceptionType(e), type -> register(ERROR, type.getSimpleName()));
+        }
+
+        private Timer register(String outcome, String exception) {
+            // The registry returns the existing timer for the same name and tags, so a race registers it once
+            return Timer.builder(timerName)
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(meterRegistry);
+        }
+    }
+}
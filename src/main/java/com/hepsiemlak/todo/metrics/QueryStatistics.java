@@ -0,0 +1,192 @@
+package com.hepsiemlak.todo.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-query statistics of the N1QL queries run for repository methods, fed by {@link QueryStatisticsAspect}. A
+ * query taking {@code todo.queries.slow-threshold} or longer is logged with its result count and a hash of its
+ * parameters; the values themselves are not logged.
+ * <p>
+ * Statistics are kept per {@code todo.queries.window} and the current and previous window are reported, so the
+ * {@code todo.queries.top-n} most expensive queries, by total elapsed time, always cover between one and two windows.
+ *
+ * @author suleyman.yildirim
+ */
+@Slf4j
+@Component
+@Profile("!in-memory")
+@ConditionalOnProperty(name = "todo.queries.statistics.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatistics {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long slowThresholdNanos;
+    private final int topN;
+    private final long windowNanos;
+
+    private volatile Window current = new Window(System.nanoTime());
+    private volatile Window previous = new Window(System.nanoTime());
+
+    public QueryStatistics(@Value("${todo.queries.slow-threshold:PT0.5S}") Duration slowThreshold,
+                           @Value("${todo.queries.top-n:20}") int topN,
+                           @Value("${todo.queries.window:PT5M}") Duration window) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.topN = topN;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Records one execution of {@code query}. {@code statement} is null if it could not be built and
+     * {@code resultCount} is negative when the query failed.
+     */
+    public void record(String query, String statement, String parametersHash, long elapsedNanos, long resultCount,
+                       Throwable error) {
+        if (elapsedNanos >= slowThresholdNanos) {
+            if (error == null) {
+                log.warn("Slow query {} took {} ms, {} results, parameters {}{}",
+                        query, millis(elapsedNanos), resultCount, parametersHash,
+                        statement == null ? "" : ": " + statement);
+            } else {
+                log.warn("Slow query {} failed after {} ms with {}, parameters {}{}",
+                        query, millis(elapsedNanos), error.getClass().getSimpleName(), parametersHash,
+                        statement == null ? "" : ": " + statement);
+            }
+        }
+
+        Window window = window(System.nanoTime());
+        Aggregate aggregate = window.queries.get(query);
+        if (aggregate == null) {
+            aggregate = window.queries.computeIfAbsent(query, key -> new Aggregate(statement));
+        }
+        aggregate.add(parametersHash, elapsedNanos, resultCount, error != null);
+    }
+
+    /**
+     * The most expensive queries of the current and previous window, by total elapsed time.
+     */
+    public List<RepositoryQueryStatistics> top() {
+        Map<String, Aggregate> merged = new HashMap<>();
+        for (Window window : List.of(previous, current)) {
+            window.queries.forEach((query, aggregate) ->
+                    merged.computeIfAbsent(query, key -> new Aggregate(aggregate.statement)).add(aggregate));
+        }
+        return merged.entrySet().stream()
+                .map(entry -> entry.getValue().toStatistics(entry.getKey()))
+                .sorted(Comparator.comparingDouble(RepositoryQueryStatistics::getTotalElapsedMillis).reversed())
+                .limit(topN)
+                .toList();
+    }
+
+    public Duration getWindow() {
+        return Duration.ofNanos(windowNanos);
+    }
+
+    public synchronized void reset() {
+        long now = System.nanoTime();
+        previous = new Window(now);
+        current = new Window(now);
+    }
+
+    private Window window(long now) {
+        Window window = current;
+        if (now - window.startedAt < windowNanos) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            if (now - window.startedAt >= windowNanos) {
+                // After an idle window the previous one must not report queries older than two windows
+                previous = now - window.startedAt < 2 * windowNanos ? window : new Window(now);
+                window = new Window(now);
+                current = window;
+            }
+            return window;
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / NANOS_PER_MILLI * 1000) / 1000.0;
+    }
+
+    private static final class Window {
+
+        private final long startedAt;
+        private final ConcurrentHashMap<String, Aggregate> queries = new ConcurrentHashMap<>();
+
+        Window(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    /**
+     * Running totals of one query. An update is a few additions, far cheaper than the query, so it takes a lock.
+     */
+    private static final class Aggregate {
+
+        private final String statement;
+        private long count;
+        private long failures;
+        private long totalElapsedNanos;
+        private long maxElapsedNanos;
+        private String slowestParametersHash;
+        private long totalResults;
+
+        Aggregate(String statement) {
+            this.statement = statement;
+        }
+
+        synchronized void add(String parametersHash, long elapsedNanos, long resultCount, boolean failed) {
+            count++;
+            if (failed) {
+                failures++;
+            } else {
+                totalResults += resultCount;
+            }
+            totalElapsedNanos += elapsedNanos;
+            if (elapsedNanos >= maxElapsedNanos) {
+                maxElapsedNanos = elapsedNanos;
+                slowestParametersHash = parametersHash;
+            }
+        }
+
+        synchronized void add(Aggregate other) {
+            synchronized (other) {
+                count += other.count;
+                failures += other.failures;
+                totalResults += other.totalResults;
+                totalElapsedNanos += other.totalElapsedNanos;
+                if (other.maxElapsedNanos >= maxElapsedNanos) {
+                    maxElapsedNanos = other.maxElapsedNanos;
+                    slowestParametersHash = other.slowestParametersHash;
+                }
+            }
+        }
+
+        synchronized RepositoryQueryStatistics toStatistics(String query) {
+            long succeeded = count - failures;
+            return RepositoryQueryStatistics.builder()
+                    .query(query)
+                    .statement(statement)
+                    .count(count)
+                    .failures(failures)
+                    .totalElapsedMillis(millis(totalElapsedNanos))
+                    .meanElapsedMillis(count == 0 ? 0 : millis(totalElapsedNanos / count))
+                    .maxElapsedMillis(millis(maxElapsedNanos))
+                    .meanResultCount(succeeded == 0 ? 0 : (double) totalResults / succeeded)
+                    .slowestParametersHash(slowestParametersHash)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.hepsiemlak.todo.metrics;
+
+import com.hepsiemlak.todo.repository.RepositoryStatements;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.couchbase.core.convert.CouchbaseConverter;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Feeds {@link QueryStatistics} with every call of a repository method Spring Data answers with a N1QL query: a
+ * derived query such as {@code TaskRepository.findByUserId} or a method annotated with {@code @Query}. Key-value
+ * methods such as {@code findById} and custom implementations are left out; they are timed by
+ * {@link MethodTimingAspect}. Each query is recorded with the N1QL statement Spring Data sends for it, see
+ * {@link RepositoryStatements}.
+ * <p>
+ * The result count is taken from the returned value. A {@link Mono} or {@link Flux} is measured from subscription to
+ * completion and a {@link Stream} from the call until it is closed, as its rows are fetched while it is read.
+ * Spring Data neither requests nor returns the query service's own metrics, so times are measured around the call.
+ *
+ * @author suleyman.yildirim
+ */
+@Aspect
+@Component
+@Profile("!in-memory")
+@ConditionalOnProperty(name = "todo.queries.statistics.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatisticsAspect {
+
+    // The subject prefixes of Spring Data's PartTree
+    private static final Pattern DERIVED_QUERY =
+            Pattern.compile("(find|read|get|query|search|stream|count|exists|delete|remove)\\w*By\\p{Lu}\\w*");
+    private static final QuerySite NOT_A_QUERY = new QuerySite(null, null);
+
+    private final QueryStatistics queryStatistics;
+    private final CouchbaseConverter couchbaseConverter;
+    private final String bucketName;
+    private final ConcurrentHashMap<Method, QuerySite> querySites = new ConcurrentHashMap<>();
+
+    public QueryStatisticsAspect(QueryStatistics queryStatistics, CouchbaseConverter couchbaseConverter,
+                                 @Value("${spring.couchbase.bucket.name}") String bucketName) {
+        this.queryStatistics = queryStatistics;
+        this.couchbaseConverter = couchbaseConverter;
+        this.bucketName = bucketName;
+    }
+
+    @Around("execution(public * *(..)) && (bean(*Repository) || within(com.hepsiemlak.todo.repository..*Repository))")
+    public Object recordQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        QuerySite querySite = querySites.get(method);
+        if (querySite == null) {
+            querySite = querySites.computeIfAbsent(method, this::querySite);
+        }
+        return querySite == NOT_A_QUERY ? joinPoint.proceed() : record(querySite, joinPoint);
+    }
+
+    private Object record(QuerySite querySite, ProceedingJoinPoint joinPoint) throws Throwable {
+        String parametersHash = Integer.toHexString(Arrays.hashCode(joinPoint.getArgs()));
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(querySite, parametersHash, start, -1, e);
+            throw e;
+        }
+
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return mono.doOnSuccess(value ->
+                                record(querySite, parametersHash, subscribed, value == null ? 0 : 1, null))
+                        .doOnError(e -> record(querySite, parametersHash, subscribed, -1, e));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                AtomicLong rows = new AtomicLong();
+                return flux.doOnNext(row -> rows.incrementAndGet())
+                        .doOnComplete(() -> record(querySite, parametersHash, subscribed, rows.get(), null))
+                        .doOnError(e -> record(querySite, parametersHash, subscribed, -1, e));
+            });
+        }
+        if (result instanceof Stream<?> stream) {
+            AtomicLong rows = new AtomicLong();
+            return stream.peek(row -> rows.incrementAndGet())
+                    .onClose(() -> record(querySite, parametersHash, start, rows.get(), null));
+        }
+        record(querySite, parametersHash, start, resultCount(result), null);
+        return result;
+    }
+
+    private void record(QuerySite querySite, String parametersHash, long start, long resultCount, Throwable error) {
+        queryStatistics.record(querySite.query(), querySite.statement(), parametersHash, System.nanoTime() - start,
+                resultCount, error);
+    }
+
+    /**
+     * Spring Data repositories are proxies of their interface, so a query method is declared by a repository
+     * interface: not by a Spring Data one such as {@code CrudRepository}, nor by a fragment with a custom
+     * implementation such as {@code TaskRepositoryCustom}.
+     */
+    QuerySite querySite(Method method) {
+        Class<?> repository = method.getDeclaringClass();
+        String query = repository.getSimpleName() + "." + method.getName();
+        Query annotation = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (annotation != null) {
+            return new QuerySite(query, statement(method, annotation.value()));
+        }
+        if (repository.isInterface() && Repository.class.isAssignableFrom(repository)
+                && !repository.getName().startsWith("org.springframework.data.")
+                && DERIVED_QUERY.matcher(method.getName()).matches()) {
+            return new QuerySite(query, statement(method, null));
+        }
+        return NOT_A_QUERY;
+    }
+
+    /**
+     * The statement of a query method, or {@code fallback} if Spring Data cannot build it outside a call: the query
+     * is still recorded, and Spring Data reports the error when the method is called.
+     */
+    private String statement(Method method, String fallback) {
+        try {
+            return RepositoryStatements.of(method, couchbaseConverter, bucketName);
+        } catch (RuntimeException e) {
+            return fallback;
+        }
+    }
+
+    static long resultCount(Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.map(QueryStatisticsAspect::resultCount).orElse(0L);
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return result == null ? 0 : 1;
+    }
+
+    record QuerySite(String query, String statement) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.hepsiemlak.todo.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/queries}: the most expensive repository queries of {@link QueryStatistics}. A {@code DELETE}
+ * starts over, e.g. after an index was added.
+ *
+ * @author suleyman.yildirim
+ */
+@Component
+@Profile("!in-memory")
+@ConditionalOnProperty(name = "todo.queries.statistics.enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "queries")
+public class QueryStatisticsEndpoint {
+
+    private final QueryStatistics queryStatistics;
+
+    public QueryStatisticsEndpoint(QueryStatistics queryStatistics) {
+        this.queryStatistics = queryStatistics;
+    }
+
+    @ReadOperation
+    public Map<String, Object> queries() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("window", queryStatistics.getWindow().toString());
+        report.put("queries", queryStatistics.top());
+        return report;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        queryStatistics.reset();
+    }
+}
@@ -0,0 +1,40 @@
+package com.hepsiemlak.todo.metrics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What one repository query cost over the recent windows of {@link QueryStatistics}. {@code query} names the
+ * repository method and {@code statement} is its {@code @Query}, unset for a derived query.
+ * {@code slowestParametersHash} tells whether the slowest execution ran with unusual parameters.
+ *
+ * @author suleyman.yildirim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RepositoryQueryStatistics {
+
+    private String query;
+
+    private String statement;
+
+    private long count;
+
+    private long failures;
+
+    private double totalElapsedMillis;
+
+    private double meanElapsedMillis;
+
+    private double maxElapsedMillis;
+
+    private double meanResultCount;
+
+    private String slowestParametersHash;
+}
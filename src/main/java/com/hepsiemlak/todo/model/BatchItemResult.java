@@ -0,0 +1,32 @@
+package com.hepsiemlak.todo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a batch request. {@code error} and {@code message} are only set when the item failed.
+ *
+ * @author suleyman.yildirim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private int index;
+
+    private String taskId;
+
+    private boolean success;
+
+    private String error;
+
+    private String message;
+
+    private Task task;
+}
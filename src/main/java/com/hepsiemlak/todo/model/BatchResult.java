@@ -0,0 +1,31 @@
+package com.hepsiemlak.todo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of a batch request: how many items succeeded or failed, and the outcome of each item.
+ *
+ * @author suleyman.yildirim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchResult {
+
+    private int succeeded;
+
+    private int failed;
+
+    private List<BatchItemResult> items;
+
+    public static BatchResult of(List<BatchItemResult> items) {
+        int succeeded = (int) items.stream().filter(BatchItemResult::isSuccess).count();
+        return new BatchResult(succeeded, items.size() - succeeded, items);
+    }
+}
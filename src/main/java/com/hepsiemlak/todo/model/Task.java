@@ -7,21 +7,33 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.couchbase.core.index.CompositeQueryIndex;
 import org.springframework.data.couchbase.core.mapping.Document;
 import org.springframework.data.couchbase.core.mapping.Field;
 import org.springframework.data.couchbase.core.mapping.id.GeneratedValue;
 import org.springframework.data.couchbase.core.mapping.id.GenerationStrategy;
 
 /**
+ * Indexes are partial on the type discriminator, so they only hold tasks. {@link #OWNER_INDEX} leads with the
+ * owner and the document key, which serves the keyed and keyset-paged lookups, and carries every field of the
+ * entity projection so that list queries are answered from the index alone.
+ *
  * @author suleyman.yildirim
  */
 @Document
+@CompositeQueryIndex(name = Task.OWNER_INDEX,
+        fields = {"userId", "META().id", "META().cas", "title", "description", "dueDate", "priority", "completed"})
+@CompositeQueryIndex(name = Task.OWNER_COMPLETED_INDEX, fields = {"userId", "completed"})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Task {
 
+    public static final String OWNER_INDEX = "idx_task_owner";
+    public static final String OWNER_COMPLETED_INDEX = "idx_task_owner_completed";
+
     @Id
     @GeneratedValue(strategy = GenerationStrategy.UNIQUE)
     @NotNull(message = "Id is required")
@@ -50,4 +62,10 @@ public class Task {
     @Field
     @NotNull(message = "User id is required")
     private String userId;
+
+    /**
+     * Document CAS, used for optimistic locking and as the task's ETag.
+     */
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.hepsiemlak.todo.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author suleyman.yildirim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskBatchUpdateRequest {
+
+    @Valid
+    @NotNull(message = "Selection is required")
+    private TaskSelection where;
+
+    @Valid
+    @NotNull(message = "Changes are required")
+    private TaskChanges set;
+}
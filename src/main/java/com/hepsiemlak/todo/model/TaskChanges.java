@@ -0,0 +1,32 @@
+package com.hepsiemlak.todo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Field values a batch update writes to every selected task. Null fields are left unchanged.
+ *
+ * @author suleyman.yildirim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskChanges {
+
+    private Boolean completed;
+
+    private String priority;
+
+    private String dueDate;
+
+    @JsonIgnore
+    @AssertTrue(message = "At least one field to change is required")
+    public boolean isNotEmpty() {
+        return completed != null || priority != null || dueDate != null;
+    }
+}
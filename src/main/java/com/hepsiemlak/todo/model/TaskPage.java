@@ -0,0 +1,24 @@
+package com.hepsiemlak.todo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of tasks and the opaque cursor to request the next one. {@code nextCursor} is null on the last page.
+ *
+ * @author suleyman.yildirim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskPage {
+
+    private List<Task> tasks;
+
+    private String nextCursor;
+}
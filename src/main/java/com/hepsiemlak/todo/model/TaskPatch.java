@@ -0,0 +1,50 @@
+package com.hepsiemlak.todo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial update of one task. Null fields are left unchanged; when {@code version} is given the update only
+ * applies if the task was not changed since that version was read.
+ *
+ * @author suleyman.yildirim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskPatch {
+
+    private static final String NOT_BLANK = ".*\\S.*";
+
+    @NotNull(message = "User id is required")
+    private String userId;
+
+    @Pattern(regexp = NOT_BLANK, message = "Title must not be blank")
+    private String title;
+
+    @Pattern(regexp = NOT_BLANK, message = "Description must not be blank")
+    private String description;
+
+    @Pattern(regexp = NOT_BLANK, message = "Due date must not be blank")
+    private String dueDate;
+
+    @Pattern(regexp = NOT_BLANK, message = "Priority must not be blank")
+    private String priority;
+
+    private Boolean completed;
+
+    private Long version;
+
+    @JsonIgnore
+    @AssertTrue(message = "At least one field to change is required")
+    public boolean isNotEmpty() {
+        return title != null || description != null || dueDate != null || priority != null || completed != null;
+    }
+}
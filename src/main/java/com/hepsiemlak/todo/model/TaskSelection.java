@@ -0,0 +1,39 @@
+package com.hepsiemlak.todo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Tasks of one user that a batch operation applies to: the listed IDs, the tasks in the given completion
+ * state, or both conditions combined.
+ *
+ * @author suleyman.yildirim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskSelection {
+
+    @NotNull(message = "User id is required")
+    private String userId;
+
+    @Size(min = 1, max = 1000, message = "Task ids must contain between 1 and 1000 ids")
+    private List<String> taskIds;
+
+    private Boolean completed;
+
+    @JsonIgnore
+    @AssertTrue(message = "Either task ids or completed must be given")
+    public boolean isRestricted() {
+        return taskIds != null || completed != null;
+    }
+}
@@ -3,11 +3,13 @@ package com.hepsiemlak.todo.model;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.couchbase.core.index.CompositeQueryIndex;
 import org.springframework.data.couchbase.core.mapping.Document;
 import org.springframework.data.couchbase.core.mapping.Field;
 import org.springframework.data.couchbase.core.mapping.id.GeneratedValue;
@@ -16,18 +18,27 @@ import org.springframework.data.couchbase.core.mapping.id.GenerationStrategy;
 import java.util.List;
 
 /**
+ * Indexes are partial on the type discriminator, so they only hold users.
+ *
  * @author suleyman.yildirim
  */
 @Document
+@CompositeQueryIndex(name = User.USERNAME_INDEX, fields = {"username", "email"})
+@CompositeQueryIndex(name = User.KEY_INDEX, fields = {"META().id"})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class User {
 
+    public static final String USERNAME_INDEX = "idx_user_username";
+    public static final String KEY_INDEX = "idx_user_key";
+
     @Id
     @GeneratedValue(strategy = GenerationStrategy.UNIQUE)
     @NotNull(message = "Id is required")
+    // ':' separates the user ID in task keys and starts the keys of username lookups
+    @Pattern(regexp = "[^:]+", message = "Id must not be empty or contain ':'")
     private String userId;
 
     @Field
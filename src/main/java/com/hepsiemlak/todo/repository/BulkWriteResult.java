@@ -0,0 +1,31 @@
+package com.hepsiemlak.todo.repository;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of one document of a bulk write: the stored entity, or the error the write failed with.
+ *
+ * @author suleyman.yildirim
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BulkWriteResult<T> {
+
+    private final T entity;
+
+    private final Throwable error;
+
+    public static <T> BulkWriteResult<T> success(T entity) {
+        return new BulkWriteResult<>(entity, null);
+    }
+
+    public static <T> BulkWriteResult<T> failure(Throwable error) {
+        return new BulkWriteResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
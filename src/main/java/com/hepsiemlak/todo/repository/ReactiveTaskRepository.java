@@ -0,0 +1,18 @@
+package com.hepsiemlak.todo.repository;
+
+import com.hepsiemlak.todo.model.Task;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of {@link TaskRepository}, used by the reactive runtime.
+ *
+ * @author suleyman.yildirim
+ */
+public interface ReactiveTaskRepository extends ReactiveCrudRepository<Task, String> {
+    Flux<Task> findByUserId(String userId);
+
+    @Query("#{#n1ql.selectEntity} WHERE #{#n1ql.filter} AND userId = $1 AND META().id > $2 ORDER BY META().id LIMIT $3")
+    Flux<Task> findPageByUserId(String userId, String afterTaskId, int limit);
+}
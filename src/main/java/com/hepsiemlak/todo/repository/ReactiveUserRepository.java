@@ -0,0 +1,15 @@
+package com.hepsiemlak.todo.repository;
+
+import com.hepsiemlak.todo.model.User;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link UserRepository}, used by the reactive runtime. Users are keyed by
+ * {@code userId}, so {@link #findById(Object)} is a KV get.
+ *
+ * @author suleyman.yildirim
+ */
+public interface ReactiveUserRepository extends ReactiveCrudRepository<User, String>, ReactiveUserRepositoryCustom {
+    Mono<User> findByUsername(String username);
+}
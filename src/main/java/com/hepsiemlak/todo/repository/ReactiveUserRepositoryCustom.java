@@ -0,0 +1,20 @@
+package com.hepsiemlak.todo.repository;
+
+import com.hepsiemlak.todo.model.User;
+import reactor.core.publisher.Mono;
+
+/**
+ * @author suleyman.yildirim
+ */
+public interface ReactiveUserRepositoryCustom {
+
+    /**
+     * Non-blocking variant of {@link UserRepositoryCustom#insert(User)}.
+     */
+    Mono<User> insert(User user);
+
+    /**
+     * Non-blocking variant of {@link UserRepositoryCustom#existsByNormalizedUsername(String)}.
+     */
+    Mono<Boolean> existsByNormalizedUsername(String username);
+}
@@ -0,0 +1,52 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryScanConsistency;
+import com.hepsiemlak.todo.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.couchbase.core.ReactiveCouchbaseTemplate;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+
+/**
+ * @author suleyman.yildirim
+ */
+@RequiredArgsConstructor
+public class ReactiveUserRepositoryCustomImpl implements ReactiveUserRepositoryCustom {
+
+    private final ReactiveCouchbaseTemplate reactiveCouchbaseTemplate;
+
+    @Override
+    public Mono<User> insert(User user) {
+        return reactiveCouchbaseTemplate.insertById(User.class).one(user);
+    }
+
+    @Override
+    public Mono<Boolean> existsByNormalizedUsername(String username) {
+        return reactiveCouchbaseTemplate.getCouchbaseClientFactory().getCluster().reactive()
+                .query(normalizedUsernameStatement(reactiveCouchbaseTemplate.getBucketName(),
+                        reactiveCouchbaseTemplate.getConverter().getTypeKey()), normalizedUsernameOptions(username))
+                .flatMapMany(result -> result.rowsAs(Integer.class))
+                .hasElements();
+    }
+
+    /**
+     * Scans the username index of users, which the {@code IS NOT MISSING} on its leading key selects; the
+     * normalized comparison cannot narrow the range.
+     */
+    static String normalizedUsernameStatement(String bucketName, String typeKey) {
+        return ("SELECT RAW 1 FROM `%s` WHERE `%s` = $type AND username IS NOT MISSING"
+                + " AND LOWER(TRIM(username)) = $username LIMIT 1").formatted(bucketName, typeKey);
+    }
+
+    static QueryOptions normalizedUsernameOptions(String username) {
+        // A user registered just before must be seen, or its username could be claimed twice
+        return QueryOptions.queryOptions()
+                .parameters(JsonObject.create()
+                        .put("type", User.class.getName())
+                        .put("username", username.trim().toLowerCase(Locale.ROOT)))
+                .scanConsistency(QueryScanConsistency.REQUEST_PLUS);
+    }
+}
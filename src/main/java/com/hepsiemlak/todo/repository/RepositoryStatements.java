@@ -0,0 +1,70 @@
+package com.hepsiemlak.todo.repository;
+
+import org.springframework.data.couchbase.core.convert.CouchbaseConverter;
+import org.springframework.data.couchbase.core.query.Query;
+import org.springframework.data.couchbase.repository.query.CouchbaseQueryMethod;
+import org.springframework.data.couchbase.repository.query.N1qlQueryCreator;
+import org.springframework.data.couchbase.repository.query.StringBasedN1qlQueryParser;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.lang.reflect.Method;
+
+/**
+ * The N1QL statement Spring Data sends for a query method of a repository interface, built with Spring Data's own
+ * query creators: from the method name for a derived query, or by expanding the {@code @Query} text. Arguments are
+ * left as the positional parameters {@code $1, $2, ...}, so the statement carries no user data.
+ * <p>
+ * Only the default scope and collection are used by this application, so none is rendered.
+ *
+ * @author suleyman.yildirim
+ */
+public final class RepositoryStatements {
+
+    private RepositoryStatements() {
+    }
+
+    /**
+     * Returns the statement of {@code method}, declared by a Spring Data repository interface.
+     */
+    public static String of(Method method, CouchbaseConverter converter, String bucketName) {
+        CouchbaseQueryMethod queryMethod = new CouchbaseQueryMethod(method,
+                new DefaultRepositoryMetadata(method.getDeclaringClass()), new SpelAwareProxyProjectionFactory(),
+                converter.getMappingContext());
+        Class<?> domainType = queryMethod.getEntityInformation().getJavaType();
+        // The creators bind arguments as parameters and never render them, so placeholders are enough
+        ParametersParameterAccessor accessor = new ParametersParameterAccessor(queryMethod.getParameters(),
+                placeholders(method));
+
+        if (queryMethod.hasInlineN1qlQuery()) {
+            return new StringBasedN1qlQueryParser(queryMethod.getInlineN1qlQuery(), queryMethod, bucketName, null,
+                    null, converter, converter.getTypeKey(), domainType.getName(), accessor, new SpelExpressionParser(),
+                    QueryMethodEvaluationContextProvider.DEFAULT).parsedExpression.toString();
+        }
+
+        PartTree tree = new PartTree(method.getName(), domainType);
+        Query query = new N1qlQueryCreator(tree, accessor, queryMethod, converter, bucketName).createQuery();
+        if (tree.isLimiting()) {
+            query.limit(tree.getMaxResults());
+        }
+        if (tree.isDelete()) {
+            return query.toN1qlRemoveString(converter, bucketName, null, null, domainType);
+        }
+        return query.toN1qlSelectString(converter, bucketName, null, null, domainType, domainType,
+                tree.isCountProjection() || tree.isExistsProjection(), null, null);
+    }
+
+    private static Object[] placeholders(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] values = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            // A primitive parameter cannot be null
+            values[i] = types[i] == boolean.class ? Boolean.FALSE : types[i].isPrimitive() ? 0 : null;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,66 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.kv.IncrementOptions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-user counter that changes whenever any task of the user is written. Reading it is a single KV get,
+ * which lets callers validate a cached task list without querying the list itself.
+ *
+ * @author suleyman.yildirim
+ */
+@Repository
+@Profile("!in-memory")
+@RequiredArgsConstructor
+public class TaskListVersionRepository {
+
+    private static final String KEY_PREFIX = "task-list-version::";
+
+    private final CouchbaseTemplate couchbaseTemplate;
+
+    /**
+     * Returns the current version of the user's task list, or 0 if the list was never written.
+     */
+    public long findByUserId(String userId) {
+        try {
+            return collection().get(key(userId)).contentAs(Long.class);
+        } catch (DocumentNotFoundException e) {
+            return 0L;
+        }
+    }
+
+    public void increment(String userId) {
+        collection().binary().increment(key(userId), IncrementOptions.incrementOptions().initial(1));
+    }
+
+    /**
+     * Non-blocking variant of {@link #findByUserId(String)}.
+     */
+    public Mono<Long> findByUserIdReactive(String userId) {
+        return collection().reactive().get(key(userId))
+                .map(result -> result.contentAs(Long.class))
+                .onErrorResume(DocumentNotFoundException.class, e -> Mono.just(0L));
+    }
+
+    /**
+     * Non-blocking variant of {@link #increment(String)}.
+     */
+    public Mono<Void> incrementReactive(String userId) {
+        return collection().reactive().binary().increment(key(userId), IncrementOptions.incrementOptions().initial(1))
+                .then();
+    }
+
+    private Collection collection() {
+        return couchbaseTemplate.getCouchbaseClientFactory().getDefaultCollection();
+    }
+
+    private static String key(String userId) {
+        return KEY_PREFIX + userId;
+    }
+}
@@ -1,15 +1,29 @@
 package com.hepsiemlak.todo.repository;
 
 import com.hepsiemlak.todo.model.Task;
+import org.springframework.data.couchbase.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author suleyman.yildirim
  */
-public interface TaskRepository extends CrudRepository<Task, String> {
+public interface TaskRepository extends CrudRepository<Task, String>, TaskRepositoryCustom {
     Optional<List<Task>> findByUserId(String userId);
     Optional<Task> findByTaskIdAndUserId(String taskId, String userId);
-}
\ No newline at end of file
+
+    /**
+     * Streams a user's tasks as query rows arrive. The returned stream holds query resources and must be closed.
+     */
+    Stream<Task> streamByUserId(String userId);
+
+    /**
+     * Keyset page of a user's tasks ordered by document key. Only tasks whose key sorts after
+     * {@code afterTaskId} are returned, so the cost of a page does not grow with its position.
+     */
+    @Query("#{#n1ql.selectEntity} WHERE #{#n1ql.filter} AND userId = $1 AND META().id > $2 ORDER BY META().id LIMIT $3")
+    List<Task> findPageByUserId(String userId, String afterTaskId, int limit);
+}
@@ -0,0 +1,55 @@
+package com.hepsiemlak.todo.repository;
+
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskChanges;
+import com.hepsiemlak.todo.model.TaskPatch;
+import com.hepsiemlak.todo.model.TaskSelection;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Task operations that go straight to the Couchbase SDK instead of one repository call per document.
+ *
+ * @author suleyman.yildirim
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Inserts all tasks with concurrent KV inserts. The result has one entry per task, in input order;
+     * a failed insert does not stop the others.
+     */
+    List<BulkWriteResult<Task>> insertAll(List<Task> tasks);
+
+    /**
+     * Applies {@code changes} to every selected task with a single N1QL UPDATE and returns the IDs it changed.
+     */
+    List<String> updateAll(TaskSelection selection, TaskChanges changes);
+
+    /**
+     * Removes every selected task with a single N1QL DELETE and returns the IDs it removed.
+     */
+    List<String> deleteAll(TaskSelection selection);
+
+    /**
+     * Writes the non-null fields of {@code patch} with one sub-document mutation, checked against
+     * {@code patch.getVersion()} when it is set. Only a task of {@code patch.getUserId()} is written; returns the
+     * new version, or empty when there is no such task under {@code taskId}.
+     *
+     * @throws org.springframework.dao.OptimisticLockingFailureException when the task changed since that version
+     */
+    Optional<Long> patch(String taskId, TaskPatch patch);
+
+    /**
+     * Removes the task only if it belongs to {@code userId}, with a single N1QL DELETE on the key. Returns false
+     * when no such task exists.
+     */
+    boolean deleteOwned(String taskId, String userId);
+
+    /**
+     * Copies every task whose key is not yet user-scoped to {@code <userId>::<taskId>} and removes the original
+     * only if it did not change since it was copied. Returns the owner of each moved task; a task written during
+     * its move is either moved with that write or left under its legacy key.
+     */
+    List<String> migrateToUserScopedKeys();
+}
@@ -0,0 +1,260 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.core.error.CasMismatchException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.core.error.subdoc.DocumentNotJsonException;
+import com.couchbase.client.core.error.subdoc.PathMismatchException;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+import com.couchbase.client.java.kv.MutateInOptions;
+import com.couchbase.client.java.kv.MutateInSpec;
+import com.couchbase.client.java.kv.RemoveOptions;
+import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryScanConsistency;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskChanges;
+import com.hepsiemlak.todo.model.TaskPatch;
+import com.hepsiemlak.todo.model.TaskSelection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.core.ReactiveCouchbaseTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @author suleyman.yildirim
+ */
+@RequiredArgsConstructor
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    /**
+     * Upper bound of KV operations in flight for one bulk call.
+     */
+    private static final int BULK_CONCURRENCY = 64;
+
+    /**
+     * Attempts of a check-then-write at CAS before giving up on a document that keeps changing.
+     */
+    private static final int CAS_ATTEMPTS = 3;
+
+    private final CouchbaseTemplate couchbaseTemplate;
+    private final ReactiveCouchbaseTemplate reactiveCouchbaseTemplate;
+
+    @Override
+    public List<BulkWriteResult<Task>> insertAll(List<Task> tasks) {
+        return Flux.fromIterable(tasks)
+                .flatMapSequential(task -> reactiveCouchbaseTemplate.insertById(Task.class).one(task)
+                        .map(BulkWriteResult::success)
+                        .onErrorResume(e -> Mono.just(BulkWriteResult.failure(e))), BULK_CONCURRENCY)
+                .collectList()
+                .block();
+    }
+
+    @Override
+    public List<String> updateAll(TaskSelection selection, TaskChanges changes) {
+        JsonObject parameters = JsonObject.create();
+        List<String> assignments = new ArrayList<>();
+        if (changes.getCompleted() != null) {
+            assignments.add("completed = $completed");
+            parameters.put("completed", changes.getCompleted());
+        }
+        if (changes.getPriority() != null) {
+            assignments.add("priority = $priority");
+            parameters.put("priority", changes.getPriority());
+        }
+        if (changes.getDueDate() != null) {
+            assignments.add("dueDate = $dueDate");
+            parameters.put("dueDate", changes.getDueDate());
+        }
+
+        String statement = "UPDATE %s SET %s WHERE %s RETURNING RAW META().id"
+                .formatted(keyspace(), String.join(", ", assignments), where(selection, parameters));
+        return mutate(statement, parameters);
+    }
+
+    @Override
+    public List<String> deleteAll(TaskSelection selection) {
+        JsonObject parameters = JsonObject.create();
+        String statement = "DELETE FROM %s WHERE %s RETURNING RAW META().id"
+                .formatted(keyspace(), where(selection, parameters));
+        return mutate(statement, parameters);
+    }
+
+    @Override
+    public Optional<Long> patch(String taskId, TaskPatch patch) {
+        List<MutateInSpec> specs = new ArrayList<>();
+        if (patch.getTitle() != null) {
+            specs.add(MutateInSpec.upsert("title", patch.getTitle()));
+        }
+        if (patch.getDescription() != null) {
+            specs.add(MutateInSpec.upsert("description", patch.getDescription()));
+        }
+        if (patch.getDueDate() != null) {
+            specs.add(MutateInSpec.upsert("dueDate", patch.getDueDate()));
+        }
+        if (patch.getPriority() != null) {
+            specs.add(MutateInSpec.upsert("priority", patch.getPriority()));
+        }
+        if (patch.getCompleted() != null) {
+            specs.add(MutateInSpec.upsert("completed", patch.getCompleted()));
+        }
+
+        Collection collection = couchbaseTemplate.getCouchbaseClientFactory().getDefaultCollection();
+        for (int attempt = 1; ; attempt++) {
+            // A key says nothing about what it holds, so the mutation is only made at the CAS the check was read at
+            Optional<Long> cas = ownedTaskCas(collection, taskId, patch.getUserId());
+            if (cas.isEmpty()) {
+                return Optional.empty();
+            }
+            if (patch.getVersion() != null && !patch.getVersion().equals(cas.get())) {
+                throw changedConcurrently(taskId, null);
+            }
+            try {
+                return Optional.of(collection.mutateIn(taskId, specs, MutateInOptions.mutateInOptions().cas(cas.get()))
+                        .cas());
+            } catch (DocumentNotFoundException e) {
+                return Optional.empty();
+            } catch (CasMismatchException e) {
+                // Without a version from the client, a write in between only means checking again
+                if (patch.getVersion() != null || attempt == CAS_ATTEMPTS) {
+                    throw changedConcurrently(taskId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the CAS of the document when it is a task of {@code userId}, with a sub-document lookup of its type and
+     * owner only. Empty for a missing document and for any other document, e.g. a user or a username claim.
+     */
+    private Optional<Long> ownedTaskCas(Collection collection, String taskId, String userId) {
+        LookupInResult result;
+        try {
+            result = collection.lookupIn(taskId, List.of(
+                    LookupInSpec.get(couchbaseTemplate.getConverter().getTypeKey()), LookupInSpec.get("userId")));
+        } catch (DocumentNotFoundException | DocumentNotJsonException | PathMismatchException e) {
+            return Optional.empty();
+        }
+        boolean owned = result.exists(0) && Task.class.getName().equals(result.contentAs(0, String.class))
+                && result.exists(1) && userId.equals(result.contentAs(1, String.class));
+        return owned ? Optional.of(result.cas()) : Optional.empty();
+    }
+
+    private static OptimisticLockingFailureException changedConcurrently(String taskId, Throwable cause) {
+        return new OptimisticLockingFailureException("Task with ID %s was changed concurrently".formatted(taskId), cause);
+    }
+
+    @Override
+    public boolean deleteOwned(String taskId, String userId) {
+        JsonObject parameters = JsonObject.create()
+                .put("taskId", taskId)
+                .put("type", Task.class.getName())
+                .put("userId", userId);
+        // USE KEYS fetches the document by key, so the owner check needs no index scan
+        String statement = "DELETE FROM %s USE KEYS $taskId WHERE `%s` = $type AND userId = $userId RETURNING RAW META().id"
+                .formatted(keyspace(), couchbaseTemplate.getConverter().getTypeKey());
+        return !couchbaseTemplate.getCouchbaseClientFactory().getCluster()
+                .query(statement, QueryOptions.queryOptions().parameters(parameters))
+                .rowsAs(String.class)
+                .isEmpty();
+    }
+
+    @Override
+    public List<String> migrateToUserScopedKeys() {
+        String typeKey = couchbaseTemplate.getConverter().getTypeKey();
+        JsonObject parameters = JsonObject.create().put("type", Task.class.getName());
+        List<String> legacyKeys = mutate(("SELECT RAW META(t).id FROM %s AS t "
+                + "WHERE t.`%s` = $type AND POSITION(META(t).id, t.userId || '::') != 0")
+                .formatted(keyspace(), typeKey), parameters);
+
+        ReactiveCollection collection = couchbaseTemplate.getCouchbaseClientFactory().getDefaultCollection().reactive();
+        return Flux.fromIterable(legacyKeys)
+                .flatMap(key -> moveToUserScopedKey(collection, typeKey, key), BULK_CONCURRENCY)
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Copies the task to its user-scoped key, then removes the legacy key at the CAS that was copied. A write in
+     * between fails the remove, so the copy is removed again at its own CAS and the task is copied afresh; a task that
+     * keeps changing stays where it is for the next run, and a task deleted in between is not brought back. A copy left
+     * behind by a crash between the two steps is overwritten by the next run, which selects the legacy key again.
+     * Emits the owner of a moved task.
+     */
+    private Mono<String> moveToUserScopedKey(ReactiveCollection collection, String typeKey, String key) {
+        return collection.get(key)
+                .flatMap(result -> {
+                    JsonObject task = result.contentAsObject();
+                    String userId = task.getString("userId");
+                    // Checked again, as the document may have changed since it was selected
+                    if (!Task.class.getName().equals(task.getString(typeKey)) || userId == null
+                            || key.startsWith(userId + "::")) {
+                        return Mono.<String>empty();
+                    }
+                    String scopedKey = userId + "::" + key;
+                    // The copy is a plain upsert: nothing else writes user-scoped keys of legacy tasks
+                    return collection.upsert(scopedKey, task)
+                            .flatMap(copy -> collection.remove(key, RemoveOptions.removeOptions().cas(result.cas()))
+                                    .thenReturn(userId)
+                                    .onErrorResume(e -> e instanceof CasMismatchException
+                                                    || e instanceof DocumentNotFoundException,
+                                            e -> removeCopy(collection, scopedKey, copy.cas()).then(Mono.error(e))));
+                })
+                .retryWhen(Retry.max(CAS_ATTEMPTS - 1)
+                        .filter(CasMismatchException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .onErrorResume(CasMismatchException.class, e -> Mono.empty())
+                .onErrorResume(DocumentNotFoundException.class, e -> Mono.empty());
+    }
+
+    /**
+     * Removes a copy made by {@link #moveToUserScopedKey} unless it was written since, so that a task is never listed
+     * under both keys.
+     */
+    private static Mono<Void> removeCopy(ReactiveCollection collection, String scopedKey, long cas) {
+        return collection.remove(scopedKey, RemoveOptions.removeOptions().cas(cas))
+                .then()
+                .onErrorResume(e -> e instanceof CasMismatchException || e instanceof DocumentNotFoundException,
+                        e -> Mono.empty());
+    }
+
+    private String where(TaskSelection selection, JsonObject parameters) {
+        StringBuilder where = new StringBuilder("`%s` = $type AND userId = $userId"
+                .formatted(couchbaseTemplate.getConverter().getTypeKey()));
+        parameters.put("type", Task.class.getName());
+        parameters.put("userId", selection.getUserId());
+
+        if (selection.getTaskIds() != null) {
+            where.append(" AND META().id IN $taskIds");
+            parameters.put("taskIds", JsonArray.from(selection.getTaskIds()));
+        }
+        if (selection.getCompleted() != null) {
+            where.append(" AND completed = $whereCompleted");
+            parameters.put("whereCompleted", selection.getCompleted());
+        }
+        return where.toString();
+    }
+
+    private List<String> mutate(String statement, JsonObject parameters) {
+        // request_plus so that tasks written just before the call are part of the selection
+        return couchbaseTemplate.getCouchbaseClientFactory().getCluster()
+                .query(statement, QueryOptions.queryOptions()
+                        .parameters(parameters)
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS))
+                .rowsAs(String.class);
+    }
+
+    private String keyspace() {
+        return "`%s`".formatted(couchbaseTemplate.getBucketName());
+    }
+}
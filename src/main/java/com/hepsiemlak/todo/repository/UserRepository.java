@@ -9,7 +9,7 @@ import java.util.Optional;
 /**
  * @author suleyman.yildirim
  */
-public interface UserRepository extends CrudRepository<User, Long> {
+public interface UserRepository extends CrudRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByUsername(String username);
 
     Optional<User> findByUserId(String userId);
@@ -0,0 +1,29 @@
+package com.hepsiemlak.todo.repository;
+
+import com.hepsiemlak.todo.model.User;
+
+import java.util.stream.Stream;
+
+/**
+ * @author suleyman.yildirim
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Stores a new user with a KV insert, which unlike {@code save} never overwrites an existing document.
+     *
+     * @throws org.springframework.dao.DuplicateKeyException when a user with the same ID already exists
+     */
+    User insert(User user);
+
+    /**
+     * Streams the ID of every user, including users written just before the call. Callers must close the stream.
+     */
+    Stream<String> streamAllUserIds();
+
+    /**
+     * Whether a user holds {@code username} up to case and surrounding whitespace, the way username lookups are
+     * keyed. A query over all users, for use until every user has a lookup document.
+     */
+    boolean existsByNormalizedUsername(String username);
+}
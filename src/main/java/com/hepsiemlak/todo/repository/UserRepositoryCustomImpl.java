@@ -0,0 +1,46 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryScanConsistency;
+import com.hepsiemlak.todo.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * @author suleyman.yildirim
+ */
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final CouchbaseTemplate couchbaseTemplate;
+
+    @Override
+    public User insert(User user) {
+        return couchbaseTemplate.insertById(User.class).one(user);
+    }
+
+    @Override
+    public Stream<String> streamAllUserIds() {
+        // Answered from the key index of users alone; rows are streamed rather than collected
+        String statement = "SELECT RAW META().id FROM `%s` WHERE `%s` = $type"
+                .formatted(couchbaseTemplate.getBucketName(), couchbaseTemplate.getConverter().getTypeKey());
+        return couchbaseTemplate.getCouchbaseClientFactory().getCluster().reactive()
+                .query(statement, QueryOptions.queryOptions()
+                        .parameters(JsonObject.create().put("type", User.class.getName()))
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS))
+                .flatMapMany(result -> result.rowsAs(String.class))
+                .toStream();
+    }
+
+    @Override
+    public boolean existsByNormalizedUsername(String username) {
+        return !couchbaseTemplate.getCouchbaseClientFactory().getCluster()
+                .query(ReactiveUserRepositoryCustomImpl.normalizedUsernameStatement(couchbaseTemplate.getBucketName(),
+                                couchbaseTemplate.getConverter().getTypeKey()),
+                        ReactiveUserRepositoryCustomImpl.normalizedUsernameOptions(username))
+                .rowsAs(Integer.class).isEmpty();
+    }
+}
@@ -0,0 +1,139 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Collection;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Maps a normalized username to the ID of the user that holds it, one small document per username. Resolving a
+ * username is then a KV get instead of a N1QL query, and inserting the document is what claims the username.
+ * <p>
+ * Lookup keys start with {@code ::}. User IDs cannot contain {@code :}, so no user document (keyed by the user ID)
+ * and no user-scoped task ({@code <userId>::<taskId>}) can have such a key.
+ *
+ * @author suleyman.yildirim
+ */
+@Repository
+@Profile("!in-memory")
+public class UsernameLookupRepository {
+
+    private static final String KEY_PREFIX = "::username::";
+    private static final String COMPLETE_KEY = "::username-lookups::complete";
+
+    private final CouchbaseTemplate couchbaseTemplate;
+
+    /**
+     * Set once the marker written by {@link #markComplete()} has been seen; it is never removed.
+     */
+    private volatile boolean complete;
+
+    public UsernameLookupRepository(CouchbaseTemplate couchbaseTemplate) {
+        this.couchbaseTemplate = couchbaseTemplate;
+    }
+
+    /**
+     * Claims {@code username} for {@code userId}. Returns false when the username is already taken.
+     */
+    public boolean insert(String username, String userId) {
+        try {
+            collection().insert(key(username), userId);
+            return true;
+        } catch (DocumentExistsException e) {
+            return false;
+        }
+    }
+
+    public Optional<String> findUserId(String username) {
+        try {
+            return Optional.of(collection().get(key(username)).contentAs(String.class));
+        } catch (DocumentNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Releases the username again, e.g. when saving the user that claimed it failed.
+     */
+    public void remove(String username) {
+        try {
+            collection().remove(key(username));
+        } catch (DocumentNotFoundException e) {
+            // Already released
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #insert(String, String)}.
+     */
+    public Mono<Boolean> insertReactive(String username, String userId) {
+        return collection().reactive().insert(key(username), userId)
+                .thenReturn(true)
+                .onErrorResume(DocumentExistsException.class, e -> Mono.just(false));
+    }
+
+    /**
+     * Non-blocking variant of {@link #findUserId(String)}; empty when the username is unknown.
+     */
+    public Mono<String> findUserIdReactive(String username) {
+        return collection().reactive().get(key(username))
+                .map(result -> result.contentAs(String.class))
+                .onErrorResume(DocumentNotFoundException.class, e -> Mono.empty());
+    }
+
+    /**
+     * Non-blocking variant of {@link #remove(String)}.
+     */
+    public Mono<Void> removeReactive(String username) {
+        return collection().reactive().remove(key(username))
+                .then()
+                .onErrorResume(DocumentNotFoundException.class, e -> Mono.empty());
+    }
+
+    /**
+     * Whether every user has a lookup document, so that a missing one means the username is free. Users registered
+     * before lookup documents existed have none until {@code UserService.backfillUsernameLookups} has run.
+     */
+    public boolean isComplete() {
+        if (!complete) {
+            complete = collection().exists(COMPLETE_KEY).exists();
+        }
+        return complete;
+    }
+
+    /**
+     * Non-blocking variant of {@link #isComplete()}.
+     */
+    public Mono<Boolean> isCompleteReactive() {
+        if (complete) {
+            return Mono.just(true);
+        }
+        return collection().reactive().exists(COMPLETE_KEY)
+                .map(result -> complete = result.exists());
+    }
+
+    /**
+     * Records for every instance that all users have a lookup document.
+     */
+    public void markComplete() {
+        collection().upsert(COMPLETE_KEY, true);
+        complete = true;
+    }
+
+    private Collection collection() {
+        return couchbaseTemplate.getCouchbaseClientFactory().getDefaultCollection();
+    }
+
+    /**
+     * Usernames differing only in case or surrounding whitespace share a key, so they cannot both be registered.
+     */
+    protected static String key(String username) {
+        return KEY_PREFIX + username.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,174 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Documents of one type keyed by ID, with a secondary index on one field.
+ * <p>
+ * Reads take no lock. A write runs inside {@link ConcurrentHashMap#compute}, which only locks the hash bin of the
+ * document's key, and updates the index before the bin is released; writes to different documents run in parallel
+ * and writes to the same document are serialized. Each index entry is a sorted set of IDs, so a lookup by field
+ * costs O(k) in the number of matches and a keyset page starts at any position in O(log n).
+ * <p>
+ * Documents are copied on the way in and out, so callers may change what they pass in or get back, as with
+ * entities read from Couchbase.
+ *
+ * @author suleyman.yildirim
+ */
+final class InMemoryDocuments<T> {
+
+    private final ConcurrentHashMap<String, T> documents = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, NavigableSet<String>> index = new ConcurrentHashMap<>();
+    private final Function<T, String> indexedField;
+    private final UnaryOperator<T> copy;
+
+    InMemoryDocuments(Function<T, String> indexedField, UnaryOperator<T> copy) {
+        this.indexedField = indexedField;
+        this.copy = copy;
+    }
+
+    T get(String id) {
+        T document = documents.get(id);
+        return document == null ? null : copy.apply(document);
+    }
+
+    boolean contains(String id) {
+        return documents.containsKey(id);
+    }
+
+    long size() {
+        return documents.size();
+    }
+
+    /**
+     * Copies of all documents, in no particular order.
+     */
+    Stream<T> all() {
+        return documents.values().stream().map(copy);
+    }
+
+    /**
+     * IDs of all documents at the time of the call.
+     */
+    List<String> ids() {
+        return List.copyOf(documents.keySet());
+    }
+
+    /**
+     * Documents whose indexed field equals {@code value}, ordered by ID. The stream is lazy.
+     */
+    Stream<T> findBy(String value) {
+        NavigableSet<String> ids = index.get(value);
+        return ids == null ? Stream.empty() : resolve(ids.stream(), value);
+    }
+
+    /**
+     * At most {@code limit} documents whose indexed field equals {@code value} and whose ID sorts after
+     * {@code afterId}, ordered by ID.
+     */
+    List<T> findPageBy(String value, String afterId, int limit) {
+        NavigableSet<String> ids = index.get(value);
+        if (ids == null) {
+            return List.of();
+        }
+        return resolve(ids.tailSet(afterId, false).stream(), value).limit(limit).toList();
+    }
+
+    /**
+     * Replaces the document stored under {@code id} with {@code update} applied to a copy of it, or to null when
+     * there is none; a null result removes it. An exception thrown by {@code update} leaves the document as it was.
+     * Returns the result of {@code update}.
+     */
+    @SuppressWarnings("unchecked")
+    T compute(String id, UnaryOperator<T> update) {
+        Object[] updated = new Object[1];
+        documents.compute(id, (key, current) -> {
+            updated[0] = update.apply(current == null ? null : copy.apply(current));
+            return store(key, current, (T) updated[0]);
+        });
+        return (T) updated[0];
+    }
+
+    /**
+     * Like {@link #compute(String, UnaryOperator)}, but only for an existing document that matches
+     * {@code condition}. Returns null when the document does not exist or does not match.
+     */
+    @SuppressWarnings("unchecked")
+    T update(String id, Predicate<? super T> condition, UnaryOperator<T> update) {
+        Object[] updated = new Object[1];
+        documents.computeIfPresent(id, (key, current) -> {
+            if (!condition.test(current)) {
+                return current;
+            }
+            updated[0] = update.apply(copy.apply(current));
+            return store(key, current, (T) updated[0]);
+        });
+        return (T) updated[0];
+    }
+
+    /**
+     * Removes the document if it matches {@code condition} and returns it, or returns null.
+     */
+    @SuppressWarnings("unchecked")
+    T remove(String id, Predicate<? super T> condition) {
+        Object[] removed = new Object[1];
+        documents.computeIfPresent(id, (key, current) -> {
+            if (!condition.test(current)) {
+                return current;
+            }
+            removed[0] = current;
+            return store(key, current, null);
+        });
+        return (T) removed[0];
+    }
+
+    void clear() {
+        ids().forEach(id -> remove(id, document -> true));
+    }
+
+    /**
+     * Passes every stored document to {@code action} without copying it; {@code action} must not change it.
+     */
+    void forEach(Consumer<? super T> action) {
+        documents.values().forEach(action);
+    }
+
+    private T store(String id, T current, T updated) {
+        T stored = updated == null ? null : copy.apply(updated);
+        String before = current == null ? null : indexedField.apply(current);
+        String after = stored == null ? null : indexedField.apply(stored);
+        if (!Objects.equals(before, after)) {
+            // Add before removing, so that a concurrent lookup never misses a document that only changed its field
+            if (after != null) {
+                index.compute(after, (value, ids) -> {
+                    NavigableSet<String> entry = ids == null ? new ConcurrentSkipListSet<>() : ids;
+                    entry.add(id);
+                    return entry;
+                });
+            }
+            if (before != null) {
+                index.computeIfPresent(before, (value, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        return stored;
+    }
+
+    private Stream<T> resolve(Stream<String> ids, String value) {
+        // An index entry can briefly outlive the field value it was made for, so every match is checked again
+        return ids.map(documents::get)
+                .filter(document -> document != null && value.equals(indexedField.apply(document)))
+                .map(copy);
+    }
+}
@@ -0,0 +1,112 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import org.reactivestreams.Publisher;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReactiveCrudRepository} over an in-memory {@link CrudRepository}. Its calls never block, so they run on
+ * the subscribing thread.
+ *
+ * @author suleyman.yildirim
+ */
+abstract class InMemoryReactiveCrudRepository<T> implements ReactiveCrudRepository<T, String> {
+
+    private final CrudRepository<T, String> repository;
+
+    InMemoryReactiveCrudRepository(CrudRepository<T, String> repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        return Mono.fromSupplier(() -> repository.save(entity));
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<T> findById(String id) {
+        return Mono.fromSupplier(() -> repository.findById(id).orElse(null));
+    }
+
+    @Override
+    public Mono<T> findById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return Mono.fromSupplier(() -> repository.existsById(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<T> findAll() {
+        return Flux.defer(() -> Flux.fromIterable(repository.findAll()));
+    }
+
+    @Override
+    public Flux<T> findAllById(Iterable<String> ids) {
+        return Flux.defer(() -> Flux.fromIterable(repository.findAllById(ids)));
+    }
+
+    @Override
+    public Flux<T> findAllById(Publisher<String> idStream) {
+        return Flux.from(idStream).concatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(repository::count);
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return Mono.fromRunnable(() -> repository.deleteById(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(T entity) {
+        return Mono.fromRunnable(() -> repository.delete(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends String> ids) {
+        return Mono.fromRunnable(() -> repository.deleteAllById(ids));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        return Mono.fromRunnable(() -> repository.deleteAll(entities));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(repository::deleteAll);
+    }
+}
@@ -0,0 +1,30 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.repository.ReactiveTaskRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link ReactiveTaskRepository} over the tasks of an {@link InMemoryTaskRepository}.
+ *
+ * @author suleyman.yildirim
+ */
+public class InMemoryReactiveTaskRepository extends InMemoryReactiveCrudRepository<Task> implements ReactiveTaskRepository {
+
+    private final InMemoryTaskRepository taskRepository;
+
+    public InMemoryReactiveTaskRepository(InMemoryTaskRepository taskRepository) {
+        super(taskRepository);
+        this.taskRepository = taskRepository;
+    }
+
+    @Override
+    public Flux<Task> findByUserId(String userId) {
+        return Flux.defer(() -> Flux.fromStream(taskRepository.streamByUserId(userId)));
+    }
+
+    @Override
+    public Flux<Task> findPageByUserId(String userId, String afterTaskId, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(taskRepository.findPageByUserId(userId, afterTaskId, limit)));
+    }
+}
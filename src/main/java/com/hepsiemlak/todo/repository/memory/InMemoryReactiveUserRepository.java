@@ -0,0 +1,35 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.model.User;
+import com.hepsiemlak.todo.repository.ReactiveUserRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReactiveUserRepository} over the users of an {@link InMemoryUserRepository}.
+ *
+ * @author suleyman.yildirim
+ */
+public class InMemoryReactiveUserRepository extends InMemoryReactiveCrudRepository<User> implements ReactiveUserRepository {
+
+    private final InMemoryUserRepository userRepository;
+
+    public InMemoryReactiveUserRepository(InMemoryUserRepository userRepository) {
+        super(userRepository);
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Mono<User> findByUsername(String username) {
+        return Mono.fromSupplier(() -> userRepository.findByUsername(username).orElse(null));
+    }
+
+    @Override
+    public Mono<User> insert(User user) {
+        return Mono.fromSupplier(() -> userRepository.insert(user));
+    }
+
+    @Override
+    public Mono<Boolean> existsByNormalizedUsername(String username) {
+        return Mono.fromSupplier(() -> userRepository.existsByNormalizedUsername(username));
+    }
+}
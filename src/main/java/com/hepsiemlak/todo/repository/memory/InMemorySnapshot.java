@@ -0,0 +1,309 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Saves the in-memory repositories to {@code file} every {@code interval} and at shutdown, and loads them from it
+ * at startup, so a restart does not begin with an empty store.
+ * <p>
+ * The file is a compact binary encoding that is written and read through a memory-mapped buffer: loading it costs
+ * one pass over the mapped pages without intermediate copies. A snapshot is taken while writes go on, so each
+ * document is consistent but writes made during the snapshot may be partly missing; the one taken at shutdown, after
+ * the web server stopped, is complete. The file is replaced atomically, so a crash leaves the previous snapshot;
+ * a file that cannot be read stops the startup instead of being overwritten by an empty store.
+ *
+ * @author suleyman.yildirim
+ */
+@Slf4j
+public class InMemorySnapshot implements InitializingBean, DisposableBean {
+
+    private static final int MAGIC = 0x54444d31;
+    private static final int NULL = -1;
+
+    private final InMemoryTaskRepository taskRepository;
+    private final InMemoryUserRepository userRepository;
+    private final InMemoryTaskListVersionRepository taskListVersionRepository;
+    private final InMemoryUsernameLookupRepository usernameLookupRepository;
+    private final Path file;
+    private final TaskScheduler taskScheduler;
+    private final Duration interval;
+
+    private volatile ScheduledFuture<?> scheduledSave;
+
+    public InMemorySnapshot(InMemoryTaskRepository taskRepository,
+                            InMemoryUserRepository userRepository,
+                            InMemoryTaskListVersionRepository taskListVersionRepository,
+                            InMemoryUsernameLookupRepository usernameLookupRepository,
+                            Path file, TaskScheduler taskScheduler, Duration interval) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.taskListVersionRepository = taskListVersionRepository;
+        this.usernameLookupRepository = usernameLookupRepository;
+        this.file = file;
+        this.taskScheduler = taskScheduler;
+        this.interval = interval;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (Files.isReadable(file)) {
+            load();
+        }
+        if (!interval.isZero() && !interval.isNegative()) {
+            scheduledSave = taskScheduler.scheduleWithFixedDelay(this::saveQuietly, Instant.now().plus(interval), interval);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        ScheduledFuture<?> scheduled = scheduledSave;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        saveQuietly();
+    }
+
+    /**
+     * Writes a snapshot of all repositories to the file.
+     */
+    public void save() {
+        long start = System.nanoTime();
+        byte[] snapshot;
+        try {
+            snapshot = encode();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Path temp = null;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, snapshot.length);
+                buffer.put(snapshot);
+                buffer.force();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Failed to save in-memory snapshot to " + file, e);
+        }
+        log.debug("Saved {} bytes of in-memory snapshot to {} in {} ms", snapshot.length, file,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /**
+     * Loads the snapshot in the file into the repositories.
+     */
+    public void load() {
+        long start = System.nanoTime();
+        Snapshot snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            snapshot = decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load in-memory snapshot from " + file, e);
+        }
+
+        snapshot.tasks().forEach(taskRepository::restore);
+        snapshot.users().forEach(userRepository::restore);
+        taskListVersionRepository.restore(snapshot.taskListVersions());
+        usernameLookupRepository.restore(snapshot.userIdsByUsername());
+        log.info("Loaded {} tasks and {} users from {} in {} ms", snapshot.tasks().size(), snapshot.users().size(),
+                file, Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (RuntimeException e) {
+            // The previous snapshot stays in place
+            log.warn("Failed to save in-memory snapshot", e);
+        }
+    }
+
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+
+        List<Task> tasks = new ArrayList<>();
+        taskRepository.forEach(tasks::add);
+        out.writeInt(tasks.size());
+        for (Task task : tasks) {
+            writeTask(out, task);
+        }
+
+        List<User> users = new ArrayList<>();
+        userRepository.forEach(users::add);
+        out.writeInt(users.size());
+        for (User user : users) {
+            writeString(out, user.getUserId());
+            writeString(out, user.getUsername());
+            writeString(out, user.getEmail());
+            List<Task> userTasks = user.getTasks();
+            out.writeInt(userTasks == null ? NULL : userTasks.size());
+            if (userTasks != null) {
+                for (Task task : userTasks) {
+                    writeTask(out, task);
+                }
+            }
+        }
+
+        Map<String, Long> versions = taskListVersionRepository.versions();
+        out.writeInt(versions.size());
+        for (Map.Entry<String, Long> version : versions.entrySet()) {
+            writeString(out, version.getKey());
+            out.writeLong(version.getValue());
+        }
+
+        Map<String, String> userIds = usernameLookupRepository.userIdsByKey();
+        out.writeInt(userIds.size());
+        for (Map.Entry<String, String> userId : userIds.entrySet()) {
+            writeString(out, userId.getKey());
+            writeString(out, userId.getValue());
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Snapshot decode(ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not an in-memory snapshot");
+            }
+
+            int taskCount = in.getInt();
+            List<Task> tasks = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(readTask(in));
+            }
+
+            int userCount = in.getInt();
+            List<User> users = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                User user = User.builder()
+                        .userId(readString(in))
+                        .username(readString(in))
+                        .email(readString(in))
+                        .build();
+                int userTaskCount = in.getInt();
+                if (userTaskCount != NULL) {
+                    List<Task> userTasks = new ArrayList<>(userTaskCount);
+                    for (int j = 0; j < userTaskCount; j++) {
+                        userTasks.add(readTask(in));
+                    }
+                    user.setTasks(userTasks);
+                }
+                users.add(user);
+            }
+
+            int versionCount = in.getInt();
+            Map<String, Long> versions = new HashMap<>(versionCount * 2);
+            for (int i = 0; i < versionCount; i++) {
+                versions.put(readString(in), in.getLong());
+            }
+
+            int userIdCount = in.getInt();
+            Map<String, String> userIds = new HashMap<>(userIdCount * 2);
+            for (int i = 0; i < userIdCount; i++) {
+                userIds.put(readString(in), readString(in));
+            }
+            return new Snapshot(tasks, users, versions, userIds);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Truncated in-memory snapshot", e);
+        }
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        writeString(out, task.getTaskId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        writeString(out, task.getDueDate());
+        writeString(out, task.getPriority());
+        out.writeByte(task.getCompleted() == null ? NULL : task.getCompleted() ? 1 : 0);
+        writeString(out, task.getUserId());
+        out.writeBoolean(task.getVersion() != null);
+        out.writeLong(task.getVersion() == null ? 0 : task.getVersion());
+    }
+
+    private static Task readTask(ByteBuffer in) {
+        Task task = Task.builder()
+                .taskId(readString(in))
+                .title(readString(in))
+                .description(readString(in))
+                .dueDate(readString(in))
+                .priority(readString(in))
+                .build();
+        byte completed = in.get();
+        task.setCompleted(completed == NULL ? null : completed == 1);
+        task.setUserId(readString(in));
+        boolean hasVersion = in.get() != 0;
+        long version = in.getLong();
+        task.setVersion(hasVersion ? version : null);
+        return task;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Only a leftover temp file
+        }
+    }
+
+    private record Snapshot(List<Task> tasks, List<User> users, Map<String, Long> taskListVersions,
+                            Map<String, String> userIdsByUsername) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.repository.TaskListVersionRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link TaskListVersionRepository} held in memory.
+ *
+ * @author suleyman.yildirim
+ */
+public class InMemoryTaskListVersionRepository extends TaskListVersionRepository {
+
+    private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    public InMemoryTaskListVersionRepository() {
+        super(null);
+    }
+
+    @Override
+    public long findByUserId(String userId) {
+        return versions.getOrDefault(userId, 0L);
+    }
+
+    @Override
+    public void increment(String userId) {
+        versions.merge(userId, 1L, Long::sum);
+    }
+
+    @Override
+    public Mono<Long> findByUserIdReactive(String userId) {
+        return Mono.fromSupplier(() -> findByUserId(userId));
+    }
+
+    @Override
+    public Mono<Void> incrementReactive(String userId) {
+        return Mono.fromRunnable(() -> increment(userId));
+    }
+
+    /**
+     * Current version of every task list that was written, by user ID.
+     */
+    Map<String, Long> versions() {
+        return Map.copyOf(versions);
+    }
+
+    void restore(Map<String, Long> restored) {
+        versions.putAll(restored);
+    }
+}
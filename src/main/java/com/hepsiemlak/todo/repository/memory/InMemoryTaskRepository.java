@@ -0,0 +1,313 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskChanges;
+import com.hepsiemlak.todo.model.TaskPatch;
+import com.hepsiemlak.todo.model.TaskSelection;
+import com.hepsiemlak.todo.repository.BulkWriteResult;
+import com.hepsiemlak.todo.repository.TaskRepository;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link TaskRepository} held in memory, with tasks indexed by owner. It keeps the write semantics of the Couchbase
+ * repository: saving a task without a version inserts it, saving one with a version replaces it only at that
+ * version, and every write gives the task a new version, unique across all tasks like a CAS.
+ *
+ * @author suleyman.yildirim
+ */
+public class InMemoryTaskRepository implements TaskRepository {
+
+    private static final String SEPARATOR = "::";
+    private static final int CAS_ATTEMPTS = 3;
+
+    private final InMemoryDocuments<Task> tasks = new InMemoryDocuments<>(Task::getUserId, InMemoryTaskRepository::copy);
+    private final AtomicLong casSequence = new AtomicLong();
+
+    @Override
+    public <S extends Task> S save(S task) {
+        if (task.getTaskId() == null) {
+            task.setTaskId(UUID.randomUUID().toString());
+        }
+        Long expectedVersion = task.getVersion();
+        Task saved = tasks.compute(task.getTaskId(), current -> {
+            if (expectedVersion == null || expectedVersion == 0) {
+                if (current != null) {
+                    throw duplicateKey(task.getTaskId());
+                }
+            } else if (current == null) {
+                throw new DataRetrievalFailureException("Task with ID %s does not exist".formatted(task.getTaskId()));
+            } else if (!expectedVersion.equals(current.getVersion())) {
+                throw changedConcurrently(task.getTaskId());
+            }
+            return withNewVersion(task);
+        });
+        task.setVersion(saved.getVersion());
+        return task;
+    }
+
+    @Override
+    public <S extends Task> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(task -> saved.add(save(task)));
+        return saved;
+    }
+
+    @Override
+    public Optional<Task> findById(String taskId) {
+        return Optional.ofNullable(tasks.get(taskId));
+    }
+
+    @Override
+    public boolean existsById(String taskId) {
+        return tasks.contains(taskId);
+    }
+
+    @Override
+    public Iterable<Task> findAll() {
+        return tasks.all().toList();
+    }
+
+    @Override
+    public Iterable<Task> findAllById(Iterable<String> taskIds) {
+        return StreamSupport.stream(taskIds.spliterator(), false)
+                .map(tasks::get)
+                .filter(task -> task != null)
+                .toList();
+    }
+
+    @Override
+    public long count() {
+        return tasks.size();
+    }
+
+    @Override
+    public void deleteById(String taskId) {
+        removeById(taskId);
+    }
+
+    @Override
+    public void delete(Task task) {
+        removeById(task.getTaskId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> taskIds) {
+        taskIds.forEach(this::removeById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Task> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        tasks.clear();
+    }
+
+    @Override
+    public Optional<List<Task>> findByUserId(String userId) {
+        return Optional.of(tasks.findBy(userId).toList());
+    }
+
+    @Override
+    public Optional<Task> findByTaskIdAndUserId(String taskId, String userId) {
+        return findById(taskId).filter(task -> userId.equals(task.getUserId()));
+    }
+
+    @Override
+    public Stream<Task> streamByUserId(String userId) {
+        return tasks.findBy(userId);
+    }
+
+    @Override
+    public List<Task> findPageByUserId(String userId, String afterTaskId, int limit) {
+        return tasks.findPageBy(userId, afterTaskId, limit);
+    }
+
+    @Override
+    public List<BulkWriteResult<Task>> insertAll(List<Task> tasksToInsert) {
+        List<BulkWriteResult<Task>> results = new ArrayList<>(tasksToInsert.size());
+        for (Task task : tasksToInsert) {
+            try {
+                results.add(BulkWriteResult.success(insert(task)));
+            } catch (RuntimeException e) {
+                results.add(BulkWriteResult.failure(e));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<String> updateAll(TaskSelection selection, TaskChanges changes) {
+        List<String> updated = new ArrayList<>();
+        for (String taskId : candidates(selection)) {
+            Task task = tasks.update(taskId, current -> selects(selection, current), current -> {
+                if (changes.getCompleted() != null) {
+                    current.setCompleted(changes.getCompleted());
+                }
+                if (changes.getPriority() != null) {
+                    current.setPriority(changes.getPriority());
+                }
+                if (changes.getDueDate() != null) {
+                    current.setDueDate(changes.getDueDate());
+                }
+                current.setVersion(casSequence.incrementAndGet());
+                return current;
+            });
+            if (task != null) {
+                updated.add(taskId);
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public List<String> deleteAll(TaskSelection selection) {
+        List<String> deleted = new ArrayList<>();
+        for (String taskId : candidates(selection)) {
+            if (tasks.remove(taskId, current -> selects(selection, current)) != null) {
+                deleted.add(taskId);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<Long> patch(String taskId, TaskPatch patch) {
+        Task patched = tasks.update(taskId, current -> patch.getUserId().equals(current.getUserId()), current -> {
+            if (patch.getVersion() != null && !patch.getVersion().equals(current.getVersion())) {
+                throw changedConcurrently(taskId);
+            }
+            if (patch.getTitle() != null) {
+                current.setTitle(patch.getTitle());
+            }
+            if (patch.getDescription() != null) {
+                current.setDescription(patch.getDescription());
+            }
+            if (patch.getDueDate() != null) {
+                current.setDueDate(patch.getDueDate());
+            }
+            if (patch.getPriority() != null) {
+                current.setPriority(patch.getPriority());
+            }
+            if (patch.getCompleted() != null) {
+                current.setCompleted(patch.getCompleted());
+            }
+            current.setVersion(casSequence.incrementAndGet());
+            return current;
+        });
+        return Optional.ofNullable(patched).map(Task::getVersion);
+    }
+
+    private boolean removeById(String taskId) {
+        return tasks.remove(taskId, current -> true) != null;
+    }
+
+    @Override
+    public boolean deleteOwned(String taskId, String userId) {
+        return tasks.remove(taskId, current -> userId.equals(current.getUserId())) != null;
+    }
+
+    @Override
+    public List<String> migrateToUserScopedKeys() {
+        List<String> ownerIds = new ArrayList<>();
+        for (String taskId : tasks.ids()) {
+            // Copy first, then remove the original only at the version that was copied, as Couchbase does with CAS
+            for (int attempt = 0; attempt < CAS_ATTEMPTS; attempt++) {
+                Task task = tasks.get(taskId);
+                if (task == null || task.getUserId() == null || taskId.startsWith(task.getUserId() + SEPARATOR)) {
+                    break;
+                }
+                Long copiedVersion = task.getVersion();
+                String scopedId = task.getUserId() + SEPARATOR + taskId;
+                task.setTaskId(scopedId);
+                Long copyVersion = tasks.compute(scopedId, current -> withNewVersion(task)).getVersion();
+                if (tasks.remove(taskId, current -> Objects.equals(copiedVersion, current.getVersion())) != null) {
+                    ownerIds.add(task.getUserId());
+                    break;
+                }
+                // The original changed or was deleted after the copy: drop the copy so the task is never listed twice
+                tasks.remove(scopedId, current -> Objects.equals(copyVersion, current.getVersion()));
+            }
+        }
+        return ownerIds;
+    }
+
+    /**
+     * Stores {@code task} as it is, version included, e.g. when loading a snapshot.
+     */
+    void restore(Task task) {
+        tasks.compute(task.getTaskId(), current -> task);
+        casSequence.accumulateAndGet(task.getVersion() == null ? 0 : task.getVersion(), Math::max);
+    }
+
+    void forEach(Consumer<? super Task> action) {
+        tasks.forEach(action);
+    }
+
+    private Task insert(Task task) {
+        if (task.getTaskId() == null) {
+            task.setTaskId(UUID.randomUUID().toString());
+        }
+        return tasks.compute(task.getTaskId(), current -> {
+            if (current != null) {
+                throw duplicateKey(task.getTaskId());
+            }
+            return withNewVersion(task);
+        });
+    }
+
+    private Task withNewVersion(Task task) {
+        Task stored = copy(task);
+        stored.setVersion(casSequence.incrementAndGet());
+        return stored;
+    }
+
+    private Collection<String> candidates(TaskSelection selection) {
+        if (selection.getTaskIds() != null) {
+            return new LinkedHashSet<>(selection.getTaskIds());
+        }
+        return tasks.findBy(selection.getUserId()).map(Task::getTaskId).toList();
+    }
+
+    private static boolean selects(TaskSelection selection, Task task) {
+        return selection.getUserId().equals(task.getUserId())
+                && (selection.getCompleted() == null || selection.getCompleted().equals(task.getCompleted()));
+    }
+
+    private static DuplicateKeyException duplicateKey(String taskId) {
+        return new DuplicateKeyException("Task with ID %s already exists".formatted(taskId));
+    }
+
+    private static OptimisticLockingFailureException changedConcurrently(String taskId) {
+        return new OptimisticLockingFailureException("Task with ID %s was changed concurrently".formatted(taskId));
+    }
+
+    static Task copy(Task task) {
+        return Task.builder()
+                .taskId(task.getTaskId())
+                .title(task.getTitle())
+                .description(task.getDescription())
+                .dueDate(task.getDueDate())
+                .priority(task.getPriority())
+                .completed(task.getCompleted())
+                .userId(task.getUserId())
+                .version(task.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.model.User;
+import com.hepsiemlak.todo.repository.UserRepository;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link UserRepository} held in memory, with users indexed by username.
+ *
+ * @author suleyman.yildirim
+ */
+public class InMemoryUserRepository implements UserRepository {
+
+    private final InMemoryDocuments<User> users = new InMemoryDocuments<>(User::getUsername, InMemoryUserRepository::copy);
+
+    @Override
+    public <S extends User> S save(S user) {
+        if (user.getUserId() == null) {
+            user.setUserId(UUID.randomUUID().toString());
+        }
+        users.compute(user.getUserId(), current -> user);
+        return user;
+    }
+
+    @Override
+    public User insert(User user) {
+        if (user.getUserId() == null) {
+            user.setUserId(UUID.randomUUID().toString());
+        }
+        users.compute(user.getUserId(), current -> {
+            if (current != null) {
+                throw new DuplicateKeyException("User with ID %s already exists".formatted(user.getUserId()));
+            }
+            return user;
+        });
+        return user;
+    }
+
+    @Override
+    public <S extends User> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(user -> saved.add(save(user)));
+        return saved;
+    }
+
+    @Override
+    public Optional<User> findById(String userId) {
+        return Optional.ofNullable(users.get(userId));
+    }
+
+    @Override
+    public Optional<User> findByUserId(String userId) {
+        return findById(userId);
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return users.findBy(username).findFirst();
+    }
+
+    @Override
+    public boolean existsById(String userId) {
+        return users.contains(userId);
+    }
+
+    @Override
+    public Iterable<User> findAll() {
+        return users.all().toList();
+    }
+
+    @Override
+    public Iterable<User> findAllById(Iterable<String> userIds) {
+        return StreamSupport.stream(userIds.spliterator(), false)
+                .map(users::get)
+                .filter(user -> user != null)
+                .toList();
+    }
+
+    @Override
+    public long count() {
+        return users.size();
+    }
+
+    @Override
+    public Stream<String> streamAllUserIds() {
+        return users.ids().stream();
+    }
+
+    @Override
+    public boolean existsByNormalizedUsername(String username) {
+        String normalized = username.trim().toLowerCase(Locale.ROOT);
+        return users.all().anyMatch(user -> user.getUsername() != null
+                && user.getUsername().trim().toLowerCase(Locale.ROOT).equals(normalized));
+    }
+
+    @Override
+    public void deleteById(String userId) {
+        users.remove(userId, current -> true);
+    }
+
+    @Override
+    public void delete(User user) {
+        deleteById(user.getUserId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> userIds) {
+        userIds.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends User> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        users.clear();
+    }
+
+    /**
+     * Stores {@code user} as it is, e.g. when loading a snapshot.
+     */
+    void restore(User user) {
+        users.compute(user.getUserId(), current -> user);
+    }
+
+    void forEach(Consumer<? super User> action) {
+        users.forEach(action);
+    }
+
+    static User copy(User user) {
+        return User.builder()
+                .userId(user.getUserId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .tasks(user.getTasks() == null ? null
+                        : new ArrayList<>(user.getTasks().stream().map(InMemoryTaskRepository::copy).toList()))
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.repository.UsernameLookupRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link UsernameLookupRepository} held in memory. Claiming a username is a {@code putIfAbsent}, so as with the
+ * Couchbase insert exactly one of several concurrent claims succeeds. Every user held here was registered with a
+ * lookup, so the lookups are always complete.
+ *
+ * @author suleyman.yildirim
+ */
+public class InMemoryUsernameLookupRepository extends UsernameLookupRepository {
+
+    private final ConcurrentHashMap<String, String> userIds = new ConcurrentHashMap<>();
+
+    public InMemoryUsernameLookupRepository() {
+        super(null);
+    }
+
+    @Override
+    public boolean insert(String username, String userId) {
+        return userIds.putIfAbsent(key(username), userId) == null;
+    }
+
+    @Override
+    public Optional<String> findUserId(String username) {
+        return Optional.ofNullable(userIds.get(key(username)));
+    }
+
+    @Override
+    public void remove(String username) {
+        userIds.remove(key(username));
+    }
+
+    @Override
+    public Mono<Boolean> insertReactive(String username, String userId) {
+        return Mono.fromSupplier(() -> insert(username, userId));
+    }
+
+    @Override
+    public Mono<String> findUserIdReactive(String username) {
+        return Mono.fromSupplier(() -> userIds.get(key(username)));
+    }
+
+    @Override
+    public Mono<Void> removeReactive(String username) {
+        return Mono.fromRunnable(() -> remove(username));
+    }
+
+    @Override
+    public boolean isComplete() {
+        return true;
+    }
+
+    @Override
+    public Mono<Boolean> isCompleteReactive() {
+        return Mono.just(true);
+    }
+
+    @Override
+    public void markComplete() {
+        // Always complete
+    }
+
+    /**
+     * User ID of every claimed username, by lookup key.
+     */
+    Map<String, String> userIdsByKey() {
+        return Map.copyOf(userIds);
+    }
+
+    void restore(Map<String, String> restored) {
+        userIds.putAll(restored);
+    }
+}
@@ -0,0 +1,162 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.exception.ErrorCode;
+import com.hepsiemlak.todo.exception.TaskConflictException;
+import com.hepsiemlak.todo.exception.TaskNotFoundException;
+import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskPage;
+import com.hepsiemlak.todo.repository.ReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.TaskListVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link TaskService}, active with the {@code reactive} profile. It shares the task
+ * cache, key scheme and cursor format with the servlet stack, so both can serve the same bucket.
+ *
+ * @author suleyman.yildirim
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveTaskService {
+
+    private final ReactiveTaskRepository taskRepository;
+    private final TaskCache taskCache;
+    private final TaskListVersionRepository taskListVersionRepository;
+    private final TaskKeys taskKeys;
+    private final KnownUserFilter knownUserFilter;
+
+    public Mono<Task> createTask(Task task) {
+        // A new task has no CAS yet; without this a client-sent version would turn the insert into a replace
+        task.setVersion(null);
+        task.setTaskId(taskKeys.newKey(task.getUserId(), task.getTaskId()));
+        return taskRepository.save(task)
+                .onErrorMap(TaskService::isDuplicate, e -> TaskService.taskExists(task.getTaskId(), e))
+                .flatMap(createdTask -> {
+                    taskCache.put(createdTask);
+                    return taskListVersionRepository.incrementReactive(createdTask.getUserId()).thenReturn(createdTask);
+                });
+    }
+
+    public Mono<Long> getTaskListVersion(String userId) {
+        if (!knownUserFilter.mightContain(userId)) {
+            return Mono.just(0L);
+        }
+        return taskListVersionRepository.findByUserIdReactive(userId);
+    }
+
+    public Mono<List<Task>> getTasksByUser(String userId) {
+        if (!knownUserFilter.mightContain(userId)) {
+            return Mono.error(userNotFound(userId));
+        }
+        return taskRepository.findByUserId(userId)
+                .collectList()
+                .filter(tasks -> !tasks.isEmpty())
+                .switchIfEmpty(Mono.error(() -> userNotFound(userId)));
+    }
+
+    /**
+     * See {@link TaskService#getTaskPageByUser(String, String, int)}.
+     */
+    public Mono<TaskPage> getTaskPageByUser(String userId, String cursor, int limit) {
+        if (!knownUserFilter.mightContain(userId)) {
+            return Mono.error(userNotFound(userId));
+        }
+        return Mono.fromCallable(() -> TaskCursors.decode(cursor))
+                .flatMap(afterTaskId -> taskRepository.findPageByUserId(userId, afterTaskId, limit + 1).collectList())
+                .flatMap(tasks -> {
+                    if (cursor == null && tasks.isEmpty()) {
+                        return Mono.error(userNotFound(userId));
+                    }
+                    if (tasks.size() <= limit) {
+                        return Mono.just(new TaskPage(tasks, null));
+                    }
+                    List<Task> page = new ArrayList<>(tasks.subList(0, limit));
+                    return Mono.just(new TaskPage(page, TaskCursors.encode(page.get(limit - 1).getTaskId())));
+                });
+    }
+
+    public Flux<Task> streamTasksByUser(String userId) {
+        if (!knownUserFilter.mightContain(userId)) {
+            return Flux.empty();
+        }
+        return taskRepository.findByUserId(userId);
+    }
+
+    public Mono<Task> getTaskByIdAndUser(String taskId, String userId) {
+        return taskCache.get(userId, taskId, Mono.defer(() -> findOwnedTask(taskId, userId)))
+                .switchIfEmpty(Mono.error(() -> taskNotFound(taskId, userId)));
+    }
+
+    public Mono<Task> updateTaskForUser(String taskId, Task updatedTask) {
+        String userId = updatedTask.getUserId();
+        Long expectedVersion = updatedTask.getVersion();
+        return findOwnedTask(taskId, userId)
+                .switchIfEmpty(Mono.error(() -> taskNotFound(taskId, userId)))
+                .flatMap(existingTask -> {
+                    if (expectedVersion != null && !expectedVersion.equals(existingTask.getVersion())) {
+                        return Mono.error(taskConflict(taskId, null));
+                    }
+                    return taskRepository.save(Task.builder()
+                            .taskId(taskId)
+                            .userId(existingTask.getUserId())
+                            .title(updatedTask.getTitle())
+                            .description(updatedTask.getDescription())
+                            .dueDate(updatedTask.getDueDate())
+                            .priority(updatedTask.getPriority())
+                            .completed(updatedTask.getCompleted())
+                            .version(expectedVersion != null ? expectedVersion : existingTask.getVersion())
+                            .build());
+                })
+                .onErrorMap(OptimisticLockingFailureException.class, e -> {
+                    taskCache.evict(userId, taskId);
+                    return taskConflict(taskId, e);
+                })
+                .flatMap(savedTask -> {
+                    taskCache.put(savedTask);
+                    return taskListVersionRepository.incrementReactive(savedTask.getUserId()).thenReturn(savedTask);
+                });
+    }
+
+    public Mono<Void> deleteTaskForUser(String taskId, String userId) {
+        return findOwnedTask(taskId, userId)
+                .switchIfEmpty(Mono.error(() -> taskNotFound(taskId, userId)))
+                .flatMap(taskRepository::delete)
+                .then(Mono.defer(() -> {
+                    taskCache.evict(userId, taskId);
+                    return taskListVersionRepository.incrementReactive(userId);
+                }));
+    }
+
+    private Mono<Task> findOwnedTask(String taskId, String userId) {
+        if (!taskKeys.mayBelongTo(userId, taskId)) {
+            return Mono.empty();
+        }
+        return taskRepository.findById(taskId)
+                .filter(task -> userId.equals(task.getUserId()));
+    }
+
+    private static UserNotFoundException userNotFound(String userId) {
+        return new UserNotFoundException(ErrorCode.USER_NOT_FOUND, "User with ID %s was not found or has no tasks.".formatted(userId));
+    }
+
+    private static TaskNotFoundException taskNotFound(String taskId, String userId) {
+        return new TaskNotFoundException(ErrorCode.TASK_NOT_FOUND, "Task with ID %s not found for user %s".formatted(taskId, userId));
+    }
+
+    private static TaskConflictException taskConflict(String taskId, Throwable cause) {
+        return new TaskConflictException(ErrorCode.TASK_CONFLICT,
+                "Task with ID %s was changed since it was read.".formatted(taskId), cause);
+    }
+}
@@ -0,0 +1,95 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.exception.ErrorCode;
+import com.hepsiemlak.todo.exception.UserExistsException;
+import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.User;
+import com.hepsiemlak.todo.repository.ReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.ReactiveUserRepository;
+import com.hepsiemlak.todo.repository.UsernameLookupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link UserService}, active with the {@code reactive} profile.
+ *
+ * @author suleyman.yildirim
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserService {
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveTaskRepository taskRepository;
+    private final UsernameLookupRepository usernameLookupRepository;
+    private final KnownUserFilter knownUserFilter;
+
+    /**
+     * See {@link UserService#registerUser(User)}.
+     */
+    public Mono<User> registerUser(User user) {
+        return usernameLookupRepository.isCompleteReactive()
+                .flatMap(complete -> complete ? Mono.just(false)
+                        : userRepository.existsByNormalizedUsername(user.getUsername()))
+                .flatMap(takenWithoutLookup -> takenWithoutLookup ? Mono.just(false)
+                        : usernameLookupRepository.insertReactive(user.getUsername(), user.getUserId()))
+                .flatMap(claimed -> claimed
+                        ? userRepository.insert(user)
+                                .doOnNext(registeredUser -> knownUserFilter.add(registeredUser.getUserId()))
+                                .onErrorResume(e -> usernameLookupRepository.removeReactive(user.getUsername())
+                                        .then(Mono.error(e instanceof DuplicateKeyException
+                                                ? new UserExistsException(ErrorCode.USER_EXISTS,
+                                                        "User with ID %s already exists.".formatted(user.getUserId()), e)
+                                                : e)))
+                        : Mono.error(new UserExistsException(ErrorCode.USER_EXISTS,
+                                "Username %s is already taken.".formatted(user.getUsername()))));
+    }
+
+    public Mono<User> findUserByUsername(String username, boolean includeTasks) {
+        Mono<User> user = usernameLookupRepository.findUserIdReactive(username)
+                .flatMap(userRepository::findById)
+                .filter(found -> found.getUsername() != null && found.getUsername().trim().equalsIgnoreCase(username.trim()))
+                .switchIfEmpty(Mono.defer(() -> userRepository.findByUsername(username)
+                        .flatMap(found -> usernameLookupRepository.insertReactive(found.getUsername(), found.getUserId())
+                                .thenReturn(found))))
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(ErrorCode.USER_NOT_FOUND,
+                        "User with username %s not found.".formatted(username))));
+        if (!includeTasks) {
+            return user;
+        }
+        return user.flatMap(found -> taskRepository.findByUserId(found.getUserId())
+                .collectList()
+                .map(tasks -> {
+                    found.setTasks(tasks);
+                    return found;
+                }));
+    }
+
+    /**
+     * The user and its tasks are both keyed by the ID, so they are read concurrently.
+     */
+    public Mono<User> findByUserId(String id, boolean includeTasks) {
+        Mono<User> user = userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(ErrorCode.USER_NOT_FOUND,
+                        "User with ID %s not found.".formatted(id))));
+        if (!includeTasks) {
+            return user;
+        }
+        return Mono.zip(user, taskRepository.findByUserId(id).collectList(), (found, tasks) -> {
+            found.setTasks(tasks);
+            return found;
+        });
+    }
+
+    public Mono<Boolean> existsByUserId(String id) {
+        if (!knownUserFilter.mightContain(id)) {
+            return Mono.just(false);
+        }
+        return userRepository.existsById(id);
+    }
+}
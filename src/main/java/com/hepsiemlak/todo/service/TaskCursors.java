@@ -0,0 +1,36 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.exception.ErrorCode;
+import com.hepsiemlak.todo.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque page cursors: the key of the last task of a page, URL-safe Base64 encoded.
+ *
+ * @author suleyman.yildirim
+ */
+public final class TaskCursors {
+
+    private TaskCursors() {
+    }
+
+    public static String encode(String taskId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(taskId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the task key to continue after, or the empty string, which sorts before every key, for the first page.
+     */
+    public static String decode(String cursor) {
+        if (cursor == null) {
+            return "";
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(ErrorCode.INVALID_CURSOR, "Cursor %s is not valid.".formatted(cursor), e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.hepsiemlak.todo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Document key scheme of tasks.
+ * <p>
+ * A task's ID is its document key, so every lookup by ID is a KV operation. With user-scoped keys enabled, new
+ * tasks are stored under {@code <userId>::<taskId>}; the key alone then proves ownership, which lets callers
+ * reject another user's task without reading it. Keys written before the switch stay readable.
+ *
+ * @author suleyman.yildirim
+ */
+@Component
+public class TaskKeys {
+
+    public static final String SEPARATOR = "::";
+
+    private final boolean userScoped;
+
+    public TaskKeys(@Value("${todo.tasks.user-scoped-keys:false}") boolean userScoped) {
+        this.userScoped = userScoped;
+    }
+
+    public boolean isUserScoped() {
+        return userScoped;
+    }
+
+    /**
+     * Returns the key a new task of the user is stored under.
+     */
+    public String newKey(String userId, String taskId) {
+        if (!userScoped || isScopedTo(userId, taskId)) {
+            return taskId;
+        }
+        return userId + SEPARATOR + taskId;
+    }
+
+    /**
+     * Returns false when the key is user-scoped to another user, so the task cannot belong to {@code userId}.
+     * Legacy keys carry no owner and always need a read to decide.
+     */
+    public boolean mayBelongTo(String userId, String taskId) {
+        return !taskId.contains(SEPARATOR) || isScopedTo(userId, taskId);
+    }
+
+    /**
+     * Returns true when the key itself names {@code userId} as the owner.
+     */
+    public static boolean isScopedTo(String userId, String taskId) {
+        return taskId.startsWith(userId + SEPARATOR);
+    }
+}
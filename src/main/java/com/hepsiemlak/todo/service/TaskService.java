@@ -1,64 +1,361 @@
 package com.hepsiemlak.todo.service;
 
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.cache.TaskCache;
 import com.hepsiemlak.todo.exception.ErrorCode;
+import com.hepsiemlak.todo.exception.TaskConflictException;
 import com.hepsiemlak.todo.exception.TaskNotFoundException;
 import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.BatchItemResult;
+import com.hepsiemlak.todo.model.BatchResult;
 import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskChanges;
+import com.hepsiemlak.todo.model.TaskPage;
+import com.hepsiemlak.todo.model.TaskPatch;
+import com.hepsiemlak.todo.model.TaskSelection;
+import com.hepsiemlak.todo.repository.BulkWriteResult;
+import com.hepsiemlak.todo.repository.TaskListVersionRepository;
 import com.hepsiemlak.todo.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * @author suleyman.yildirim
  */
 @Service
 public class TaskService {
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final TaskRepository taskRepository;
+    private final TaskCache taskCache;
+    private final TaskListVersionRepository taskListVersionRepository;
+    private final TaskKeys taskKeys;
+    private final KnownUserFilter knownUserFilter;
 
     @Autowired
-    public TaskService(TaskRepository taskRepository) {
+    public TaskService(TaskRepository taskRepository, TaskCache taskCache, TaskListVersionRepository taskListVersionRepository,
+                       TaskKeys taskKeys, KnownUserFilter knownUserFilter) {
         this.taskRepository = taskRepository;
+        this.taskCache = taskCache;
+        this.taskListVersionRepository = taskListVersionRepository;
+        this.taskKeys = taskKeys;
+        this.knownUserFilter = knownUserFilter;
     }
 
     public Task createTask(Task task) {
-        return taskRepository.save(task);
+        // A new task has no CAS yet; without this a client-sent version would turn the insert into a replace
+        task.setVersion(null);
+        task.setTaskId(taskKeys.newKey(task.getUserId(), task.getTaskId()));
+        Task createdTask;
+        try {
+            createdTask = taskRepository.save(task);
+        } catch (RuntimeException e) {
+            if (isDuplicate(e)) {
+                throw taskExists(task.getTaskId(), e);
+            }
+            throw e;
+        }
+        taskCache.put(createdTask);
+        taskListVersionRepository.increment(createdTask.getUserId());
+        return createdTask;
+    }
+
+    /**
+     * Creates all tasks with one concurrent bulk insert. Tasks whose owner does not pass {@code userExists} are
+     * reported as failed without being written; every other item succeeds or fails on its own.
+     */
+    public BatchResult createTasks(List<Task> tasks, Predicate<String> userExists) {
+        BatchItemResult[] items = new BatchItemResult[tasks.size()];
+        List<Task> toInsert = new ArrayList<>(tasks.size());
+        List<Integer> positions = new ArrayList<>(tasks.size());
+
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (!userExists.test(task.getUserId())) {
+                items[i] = failedItem(i, task.getTaskId(), ErrorCode.USER_NOT_FOUND,
+                        "User with ID %s not found.".formatted(task.getUserId()));
+                continue;
+            }
+            task.setVersion(null);
+            task.setTaskId(taskKeys.newKey(task.getUserId(), task.getTaskId()));
+            toInsert.add(task);
+            positions.add(i);
+        }
+
+        List<BulkWriteResult<Task>> written = toInsert.isEmpty() ? List.of() : taskRepository.insertAll(toInsert);
+
+        Set<String> changedUserIds = new LinkedHashSet<>();
+        for (int j = 0; j < written.size(); j++) {
+            int index = positions.get(j);
+            BulkWriteResult<Task> result = written.get(j);
+            Task task = toInsert.get(j);
+            if (result.isSuccess()) {
+                taskCache.put(result.getEntity());
+                changedUserIds.add(task.getUserId());
+                items[index] = BatchItemResult.builder()
+                        .index(index)
+                        .taskId(result.getEntity().getTaskId())
+                        .success(true)
+                        .task(result.getEntity())
+                        .build();
+            } else if (isDuplicate(result.getError())) {
+                items[index] = failedItem(index, task.getTaskId(), ErrorCode.TASK_EXISTS,
+                        taskExists(task.getTaskId(), null).getMessage());
+            } else {
+                items[index] = failedItem(index, task.getTaskId(), ErrorCode.TASK_WRITE_FAILED,
+                        "Failed to save task with ID %s.".formatted(task.getTaskId()));
+            }
+        }
+
+        changedUserIds.forEach(taskListVersionRepository::increment);
+        return BatchResult.of(Arrays.asList(items));
+    }
+
+    /**
+     * Applies {@code changes} to all selected tasks in one round trip.
+     */
+    public BatchResult updateTasks(TaskSelection selection, TaskChanges changes) {
+        return mutationResult(selection, taskRepository.updateAll(selection, changes));
+    }
+
+    /**
+     * Deletes all selected tasks in one round trip.
+     */
+    public BatchResult deleteTasks(TaskSelection selection) {
+        return mutationResult(selection, taskRepository.deleteAll(selection));
+    }
+
+    /**
+     * Moves all tasks stored under legacy keys to user-scoped keys and returns how many were moved. Refused while
+     * new tasks are still given legacy keys, as they would keep appearing behind the migration.
+     */
+    public int migrateToUserScopedKeys() {
+        if (!taskKeys.isUserScoped()) {
+            throw new IllegalStateException("Task keys can only be migrated with todo.tasks.user-scoped-keys=true");
+        }
+        List<String> ownerIds = taskRepository.migrateToUserScopedKeys();
+        taskCache.clear();
+        new LinkedHashSet<>(ownerIds).forEach(taskListVersionRepository::increment);
+        return ownerIds.size();
+    }
+
+    /**
+     * Returns a value that changes whenever any task of the user is created, updated or deleted.
+     */
+    public long getTaskListVersion(String userId) {
+        if (!knownUserFilter.mightContain(userId)) {
+            return 0L;
+        }
+        return taskListVersionRepository.findByUserId(userId);
     }
 
     public List<Task> getTasksByUser(String userId) {
+        if (!knownUserFilter.mightContain(userId)) {
+            throw userNotFound(userId);
+        }
         return taskRepository.findByUserId(userId)
                 .filter(tasks -> !tasks.isEmpty())
-                .orElseThrow(() -> new UserNotFoundException(ErrorCode.USER_NOT_FOUND, "User with ID %s was not found or has no tasks.".formatted(userId)));
+                .orElseThrow(() -> userNotFound(userId));
+    }
+
+    /**
+     * Returns at most {@code limit} tasks of the user, starting after the position encoded in {@code cursor}.
+     * One extra row is fetched to decide whether a next page exists, so no count query is needed.
+     */
+    public TaskPage getTaskPageByUser(String userId, String cursor, int limit) {
+        if (!knownUserFilter.mightContain(userId)) {
+            throw userNotFound(userId);
+        }
+        List<Task> tasks = taskRepository.findPageByUserId(userId, TaskCursors.decode(cursor), limit + 1);
+
+        if (cursor == null && tasks.isEmpty()) {
+            throw userNotFound(userId);
+        }
+
+        if (tasks.size() <= limit) {
+            return new TaskPage(tasks, null);
+        }
+
+        List<Task> page = new ArrayList<>(tasks.subList(0, limit));
+        return new TaskPage(page, TaskCursors.encode(page.get(limit - 1).getTaskId()));
+    }
+
+    /**
+     * Streams all tasks of the user without materialising them. Callers must close the returned stream.
+     */
+    public Stream<Task> streamTasksByUser(String userId) {
+        if (!knownUserFilter.mightContain(userId)) {
+            return Stream.empty();
+        }
+        return taskRepository.streamByUserId(userId);
     }
 
     public Task getTaskByIdAndUser(String taskId, String userId) {
-        return taskRepository.findByTaskIdAndUserId(taskId, userId)
+        return taskCache.get(userId, taskId, () -> findOwnedTask(taskId, userId))
                 .orElseThrow(() -> new TaskNotFoundException(ErrorCode.TASK_NOT_FOUND, "Task with ID %s not found for user %s".formatted(taskId, userId)));
     }
 
+    /**
+     * Replaces the task. When the client sends the version it read, the write only succeeds if the task is still
+     * at that version; for a user-scoped key that check is all that is needed, so the task is not read first.
+     */
     public Task updateTaskForUser(String taskId, Task updatedTask) {
+        String userId = updatedTask.getUserId();
+        Long expectedVersion = updatedTask.getVersion();
 
-        Task existingTask = taskRepository.findByTaskIdAndUserId(taskId, updatedTask.getUserId())
-                .orElseThrow(() ->  new TaskNotFoundException(ErrorCode.TASK_NOT_FOUND, "Task with ID %s not found for user %s".formatted(taskId, updatedTask.getUserId())));
+        Long version = expectedVersion;
+        if (expectedVersion == null || !TaskKeys.isScopedTo(userId, taskId)) {
+            Task existingTask = findOwnedTask(taskId, userId)
+                    .orElseThrow(() -> taskNotFound(taskId, userId));
+            if (expectedVersion != null && !expectedVersion.equals(existingTask.getVersion())) {
+                throw taskConflict(taskId, null);
+            }
+            version = existingTask.getVersion();
+        }
 
         Task updatedExistingTask = Task.builder()
                 .taskId(taskId)
-                .userId(existingTask.getUserId())
+                .userId(userId)
                 .title(updatedTask.getTitle())
                 .description(updatedTask.getDescription())
                 .dueDate(updatedTask.getDueDate())
                 .priority(updatedTask.getPriority())
                 .completed(updatedTask.getCompleted())
+                .version(version)
                 .build();
 
-        return taskRepository.save(updatedExistingTask);
+        Task savedTask;
+        try {
+            savedTask = taskRepository.save(updatedExistingTask);
+        } catch (OptimisticLockingFailureException e) {
+            taskCache.evict(userId, taskId);
+            throw taskConflict(taskId, e);
+        } catch (DataRetrievalFailureException e) {
+            throw taskNotFound(taskId, userId);
+        }
+        taskCache.put(savedTask);
+        taskListVersionRepository.increment(savedTask.getUserId());
+        return savedTask;
     }
 
+    /**
+     * Writes only the given fields with a sub-document mutation and returns the task's new version. The repository
+     * checks the type and owner of the document, so the task itself is never read.
+     */
+    public long patchTaskForUser(String taskId, TaskPatch patch) {
+        String userId = patch.getUserId();
+        if (!taskKeys.mayBelongTo(userId, taskId)) {
+            throw taskNotFound(taskId, userId);
+        }
+
+        long version;
+        try {
+            version = taskRepository.patch(taskId, patch)
+                    .orElseThrow(() -> taskNotFound(taskId, userId));
+        } catch (OptimisticLockingFailureException e) {
+            throw taskConflict(taskId, e);
+        } finally {
+            // Only some fields are known after the write, so the cached copy is dropped rather than refreshed
+            taskCache.evict(userId, taskId);
+        }
+        taskListVersionRepository.increment(userId);
+        return version;
+    }
+
+    /**
+     * Deletes the task in one round trip, with a DELETE that checks type and owner on the server. A user-scoped key
+     * only proves who may own the document, not that it is a task, so it gets the same check; a key scoped to
+     * another user is rejected without I/O.
+     */
     public void deleteTaskForUser(String taskId, String userId) {
-        Task existingTask = taskRepository.findByTaskIdAndUserId(taskId, userId)
-                .orElseThrow(() -> new TaskNotFoundException(ErrorCode.TASK_NOT_FOUND, "Task with ID %s not found for user %s".formatted(taskId, userId)));
+        boolean deleted = taskKeys.mayBelongTo(userId, taskId) && taskRepository.deleteOwned(taskId, userId);
+        if (!deleted) {
+            throw taskNotFound(taskId, userId);
+        }
+
+        taskCache.evict(userId, taskId);
+        taskListVersionRepository.increment(userId);
+    }
+
+    /**
+     * Reads the task with a KV get on its key and checks the owner, instead of a N1QL query on (taskId, userId).
+     */
+    private Optional<Task> findOwnedTask(String taskId, String userId) {
+        if (!taskKeys.mayBelongTo(userId, taskId)) {
+            return Optional.empty();
+        }
+        return taskRepository.findById(taskId)
+                .filter(task -> userId.equals(task.getUserId()));
+    }
+
+    private static UserNotFoundException userNotFound(String userId) {
+        return new UserNotFoundException(ErrorCode.USER_NOT_FOUND, "User with ID %s was not found or has no tasks.".formatted(userId));
+    }
+
+    private static TaskNotFoundException taskNotFound(String taskId, String userId) {
+        return new TaskNotFoundException(ErrorCode.TASK_NOT_FOUND, "Task with ID %s not found for user %s".formatted(taskId, userId));
+    }
+
+    private static TaskConflictException taskConflict(String taskId, Throwable cause) {
+        return new TaskConflictException(ErrorCode.TASK_CONFLICT,
+                "Task with ID %s was changed since it was read.".formatted(taskId), cause);
+    }
+
+    /**
+     * Reports one item per requested ID, or per changed ID when the selection was a predicate only, and drops
+     * the changed tasks from the cache.
+     */
+    private BatchResult mutationResult(TaskSelection selection, List<String> changedTaskIds) {
+        String userId = selection.getUserId();
+        changedTaskIds.forEach(taskId -> taskCache.evict(userId, taskId));
+        if (!changedTaskIds.isEmpty()) {
+            taskListVersionRepository.increment(userId);
+        }
+
+        List<String> requestedTaskIds = selection.getTaskIds() != null ? selection.getTaskIds() : changedTaskIds;
+        Set<String> changed = new HashSet<>(changedTaskIds);
+        List<BatchItemResult> items = new ArrayList<>(requestedTaskIds.size());
+        for (int i = 0; i < requestedTaskIds.size(); i++) {
+            String taskId = requestedTaskIds.get(i);
+            items.add(changed.contains(taskId)
+                    ? BatchItemResult.builder().index(i).taskId(taskId).success(true).build()
+                    : failedItem(i, taskId, ErrorCode.TASK_NOT_FOUND,
+                            "Task with ID %s not found for user %s".formatted(taskId, userId)));
+        }
+        return BatchResult.of(items);
+    }
+
+    private static BatchItemResult failedItem(int index, String taskId, ErrorCode errorCode, String message) {
+        return BatchItemResult.builder()
+                .index(index)
+                .taskId(taskId)
+                .success(false)
+                .error(errorCode.getCode())
+                .message(message)
+                .build();
+    }
+
+    static TaskConflictException taskExists(String taskId, Throwable cause) {
+        return new TaskConflictException(ErrorCode.TASK_EXISTS, "Task with ID %s already exists.".formatted(taskId), cause);
+    }
 
-        taskRepository.delete(existingTask);
+    static boolean isDuplicate(Throwable error) {
+        return error instanceof DuplicateKeyException || error instanceof DocumentExistsException
+                || error.getCause() instanceof DocumentExistsException;
     }
 }
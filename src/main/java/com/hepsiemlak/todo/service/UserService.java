@@ -2,58 +2,187 @@ package com.hepsiemlak.todo.service;
 
 
 import com.couchbase.client.core.error.CouchbaseException;
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.config.TaskLoadPool;
 import com.hepsiemlak.todo.exception.ErrorCode;
 import com.hepsiemlak.todo.exception.UserExistsException;
 import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.Task;
 import com.hepsiemlak.todo.model.User;
 import com.hepsiemlak.todo.repository.TaskRepository;
 import com.hepsiemlak.todo.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.hepsiemlak.todo.repository.UsernameLookupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
     private final TaskRepository taskRepository;
+    private final UsernameLookupRepository usernameLookupRepository;
+    private final KnownUserFilter knownUserFilter;
+    private final Executor taskLoadExecutor;
 
+    @Autowired
+    public UserService(UserRepository userRepository, TaskRepository taskRepository,
+                       UsernameLookupRepository usernameLookupRepository, KnownUserFilter knownUserFilter,
+                       TaskLoadPool taskLoadPool) {
+        this(userRepository, taskRepository, usernameLookupRepository, knownUserFilter, taskLoadPool.executor());
+    }
+
+    public UserService(UserRepository userRepository, TaskRepository taskRepository,
+                       UsernameLookupRepository usernameLookupRepository, KnownUserFilter knownUserFilter,
+                       Executor taskLoadExecutor) {
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.usernameLookupRepository = usernameLookupRepository;
+        this.knownUserFilter = knownUserFilter;
+        this.taskLoadExecutor = taskLoadExecutor;
+    }
+
+    /**
+     * Claims the username with an insert of its lookup document, then inserts the user. Both writes fail instead
+     * of overwriting, so of several concurrent registrations of the same ID or username exactly one succeeds.
+     * Until {@link #backfillUsernameLookups()} has run, users without a lookup document are found by query first.
+     */
     public User registerUser(User user) {
         try {
-            Optional<User> existingUserId = userRepository.findByUserId(user.getUserId());
-
-            if (existingUserId.isPresent()) {
+            if ((!usernameLookupRepository.isComplete()
+                    && userRepository.existsByNormalizedUsername(user.getUsername()))
+                    || !usernameLookupRepository.insert(user.getUsername(), user.getUserId())) {
+                throw new UserExistsException(ErrorCode.USER_EXISTS,
+                        "Username %s is already taken.".formatted(user.getUsername()));
+            }
+            try {
+                User registeredUser = userRepository.insert(user);
+                knownUserFilter.add(registeredUser.getUserId());
+                return registeredUser;
+            } catch (DuplicateKeyException e) {
+                usernameLookupRepository.remove(user.getUsername());
                 throw new UserExistsException(ErrorCode.USER_EXISTS,
-                        "User with ID %s already exists.".formatted(user.getUserId()));
+                        "User with ID %s already exists.".formatted(user.getUserId()), e);
+            } catch (RuntimeException e) {
+                usernameLookupRepository.remove(user.getUsername());
+                throw e;
             }
-            return userRepository.save(user);
         } catch (CouchbaseException e) {
             throw new CouchbaseException("Failed to save user  with ID %s to Couchbase".formatted(user.getUserId()), e);
         }
     }
 
-    public User findUserByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .map(this::loadTasksForUser)
+    /**
+     * The tasks can only be looked up once the user's ID is known, so with {@code includeTasks} this costs two
+     * consecutive reads.
+     */
+    public User findUserByUsername(String username, boolean includeTasks) {
+        User user = usernameLookupRepository.findUserId(username)
+                .flatMap(userRepository::findById)
+                .filter(found -> isSameUsername(found.getUsername(), username))
+                .or(() -> findUnindexedUserByUsername(username))
                 .orElseThrow(() -> new UserNotFoundException(ErrorCode.USER_NOT_FOUND,
                         "User with username %s not found.".formatted(username)));
+        if (includeTasks) {
+            loadTasksForUser(user.getUserId()).ifPresent(user::setTasks);
+        }
+        return user;
     }
 
-    public User findByUserId(String id) {
-        return userRepository.findByUserId(id)
-                .map(this::loadTasksForUser)
-                .orElseThrow(() -> new UserNotFoundException(ErrorCode.USER_NOT_FOUND,
-                        "User with ID %s not found.".formatted(id)));
+    /**
+     * With {@code includeTasks} the tasks are loaded on {@code taskLoadExecutor} while the user is read, since
+     * both only need the ID. A load still queued when the user turns out not to exist is dropped; one already
+     * running completes, on a pool bounded by {@code todo.users.task-load.pool-size}.
+     */
+    public User findByUserId(String id, boolean includeTasks) {
+        if (!knownUserFilter.mightContain(id)) {
+            throw userNotFound(id);
+        }
+        if (!includeTasks) {
+            return userRepository.findByUserId(id)
+                    .orElseThrow(() -> userNotFound(id));
+        }
+
+        CompletableFuture<Optional<List<Task>>> tasks =
+                CompletableFuture.supplyAsync(() -> loadTasksForUser(id), taskLoadExecutor);
+        User user = userRepository.findByUserId(id)
+                .orElseThrow(() -> {
+                    tasks.cancel(false);
+                    return userNotFound(id);
+                });
+        try {
+            tasks.join().ifPresent(user::setTasks);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return user;
+    }
+
+    /**
+     * An ID the known-user filter rejects is answered without I/O; any other is checked with a KV exists on the
+     * user's key, as users are keyed by their ID.
+     */
+    public boolean existsByUserId(String id) {
+        return knownUserFilter.mightContain(id) && userRepository.existsById(id);
+    }
+
+    /**
+     * Writes the lookup document of every user registered before lookups existed, then marks the lookups complete
+     * so that registrations stop querying usernames. Of two such users whose usernames differ only in case, the one
+     * streamed first keeps the lookup. Returns the number of lookup documents written.
+     */
+    public int backfillUsernameLookups() {
+        int written = 0;
+        try (Stream<String> userIds = userRepository.streamAllUserIds()) {
+            for (String userId : (Iterable<String>) userIds::iterator) {
+                Optional<User> user = userRepository.findById(userId);
+                if (user.isPresent() && user.get().getUsername() != null
+                        && usernameLookupRepository.insert(user.get().getUsername(), userId)) {
+                    written++;
+                }
+            }
+        }
+        usernameLookupRepository.markComplete();
+        return written;
     }
 
-    private User loadTasksForUser(User user) {
+    /**
+     * Users registered before the lookup documents existed are found by query once; the lookup is written then,
+     * so later reads of the same username are KV only. Once {@link #backfillUsernameLookups()} has run every user has
+     * a lookup document, so a miss is answered without the query.
+     */
+    private Optional<User> findUnindexedUserByUsername(String username) {
+        if (usernameLookupRepository.isComplete()) {
+            return Optional.empty();
+        }
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(found -> usernameLookupRepository.insert(found.getUsername(), found.getUserId()));
+        return user;
+    }
+
+    private static boolean isSameUsername(String stored, String requested) {
+        return stored != null && stored.trim().equalsIgnoreCase(requested.trim());
+    }
+
+    private Optional<List<Task>> loadTasksForUser(String userId) {
         try {
-            taskRepository.findByUserId(user.getUserId()).ifPresent(user::setTasks);
-            return user;
+            return taskRepository.findByUserId(userId);
         } catch (CouchbaseException e) {
-            throw new CouchbaseException("Failed to load tasks for user with ID %s.".formatted(user.getUserId()), e);
+            throw new CouchbaseException("Failed to load tasks for user with ID %s.".formatted(userId), e);
         }
     }
+
+    private static UserNotFoundException userNotFound(String id) {
+        return new UserNotFoundException(ErrorCode.USER_NOT_FOUND, "User with ID %s not found.".formatted(id));
+    }
 }
@@ -0,0 +1,120 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.repository.TaskListVersionRepository;
+import com.hepsiemlak.todo.repository.TaskRepository;
+import com.hepsiemlak.todo.service.TaskKeys;
+import com.hepsiemlak.todo.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.stubbing.Answer;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the former read-then-delete path with {@link TaskService#deleteTaskForUser(String, String)} when every
+ * Couchbase round trip takes {@link #LATENCY}, on a pool sized like Tomcat's default.
+ * <p>
+ * Run with {@code mvn test -Dtest=DeleteRoundTripBenchmarkTest -Dbenchmark=true}.
+ *
+ * @author suleyman.yildirim
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DeleteRoundTripBenchmarkTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(2);
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int DELETES = 20_000;
+
+    private final LongAdder roundTrips = new LongAdder();
+
+    private TaskRepository taskRepository;
+    private TaskService taskService;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(TaskRepository.class);
+        Answer<Object> roundTrip = invocation -> {
+            roundTrips.increment();
+            Thread.sleep(LATENCY.toMillis());
+            return switch (invocation.getMethod().getName()) {
+                case "findById" -> Optional.of(Task.builder().taskId(invocation.getArgument(0)).userId(USER_ID).build());
+                case "deleteOwned" -> true;
+                default -> null;
+            };
+        };
+        when(taskRepository.findById(anyString())).thenAnswer(roundTrip);
+        doAnswer(roundTrip).when(taskRepository).delete(any(Task.class));
+        when(taskRepository.deleteOwned(anyString(), anyString())).thenAnswer(roundTrip);
+
+        taskService = new TaskService(taskRepository, new TaskCache(true, 10_000, Duration.ofMinutes(1)),
+                mock(TaskListVersionRepository.class), new TaskKeys(true), new KnownUserFilter(false, 1, 0.01, DataSize.ofBytes(8)));
+    }
+
+    @Test
+    void compareDeletePaths() throws Exception {
+        // Act
+        Result readThenDelete = run(taskId -> taskRepository.findById(taskId).ifPresent(taskRepository::delete),
+                i -> "task-" + i);
+        Result legacyKeyDelete = run(taskId -> taskService.deleteTaskForUser(taskId, USER_ID), i -> "task-" + i);
+        Result scopedKeyDelete = run(taskId -> taskService.deleteTaskForUser(taskId, USER_ID),
+                i -> USER_ID + TaskKeys.SEPARATOR + "task-" + i);
+
+        // Assert
+        assertEquals(2 * DELETES, readThenDelete.roundTrips());
+        assertEquals(DELETES, legacyKeyDelete.roundTrips());
+        assertEquals(DELETES, scopedKeyDelete.roundTrips());
+        readThenDelete.print("read then delete");
+        legacyKeyDelete.print("DELETE, legacy key");
+        scopedKeyDelete.print("DELETE, scoped key");
+    }
+
+    private Result run(Consumer<String> delete, IntFunction<String> taskIds)
+            throws Exception {
+        roundTrips.reset();
+        ExecutorService tomcatThreads = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> responses = new ArrayList<>(DELETES);
+            for (int i = 0; i < DELETES; i++) {
+                String taskId = taskIds.apply(i);
+                responses.add(tomcatThreads.submit(() -> delete.accept(taskId)));
+            }
+            for (Future<?> response : responses) {
+                response.get();
+            }
+            return new Result(System.nanoTime() - start, roundTrips.sum());
+        } finally {
+            tomcatThreads.shutdownNow();
+        }
+    }
+
+    private record Result(long nanos, long roundTrips) {
+
+        void print(String path) {
+            System.out.printf("%-20s: %d deletes, %d round trips, %d ms (%.0f deletes/s)%n",
+                    path, DELETES, roundTrips, nanos / 1_000_000, DELETES / (nanos / 1_000_000_000.0));
+        }
+    }
+}
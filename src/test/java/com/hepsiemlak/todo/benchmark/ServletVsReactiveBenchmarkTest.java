@@ -0,0 +1,127 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.repository.ReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.TaskListVersionRepository;
+import com.hepsiemlak.todo.repository.TaskRepository;
+import com.hepsiemlak.todo.service.ReactiveTaskService;
+import com.hepsiemlak.todo.service.TaskKeys;
+import com.hepsiemlak.todo.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares single-task reads of the servlet and the reactive stack while every Couchbase call takes
+ * {@link #LATENCY}. The servlet stack gets a pool as large as Tomcat's default, so the blocking side is limited by
+ * threads the way it is in production; the cache is disabled so every read reaches the repository.
+ * <p>
+ * Run with {@code mvn test -Dtest=ServletVsReactiveBenchmarkTest -Dbenchmark=true}.
+ *
+ * @author suleyman.yildirim
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ServletVsReactiveBenchmarkTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(50);
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int REQUESTS = 5_000;
+
+    private TaskService taskService;
+    private ReactiveTaskService reactiveTaskService;
+
+    @BeforeEach
+    void setUp() {
+        TaskCache disabledCache = new TaskCache(false, 0, Duration.ZERO);
+        TaskKeys taskKeys = new TaskKeys(false);
+
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        when(taskRepository.findById(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(LATENCY.toMillis());
+            return Optional.of(task(invocation.getArgument(0)));
+        });
+        taskService = new TaskService(taskRepository, disabledCache, mock(TaskListVersionRepository.class), taskKeys,
+                new KnownUserFilter(false, 1, 0.01, DataSize.ofBytes(8)));
+
+        ReactiveTaskRepository reactiveTaskRepository = mock(ReactiveTaskRepository.class);
+        when(reactiveTaskRepository.findById(anyString())).thenAnswer(invocation ->
+                Mono.just(task(invocation.getArgument(0))).delayElement(LATENCY));
+        reactiveTaskService = new ReactiveTaskService(reactiveTaskRepository, disabledCache,
+                mock(TaskListVersionRepository.class), taskKeys,
+                new KnownUserFilter(false, 1, 0.01, DataSize.ofBytes(8)));
+    }
+
+    @Test
+    void compareSingleTaskReads() throws Exception {
+        // Act
+        Run servlet = runServlet();
+        Run reactive = runReactive();
+
+        // Assert
+        assertEquals(REQUESTS, servlet.served(), "servlet requests answered with their task");
+        assertEquals(REQUESTS, reactive.served(), "reactive requests answered with their task");
+        System.out.printf("servlet : %d requests in %d ms (%.0f req/s)%n", REQUESTS, servlet.nanos() / 1_000_000, throughput(servlet.nanos()));
+        System.out.printf("reactive: %d requests in %d ms (%.0f req/s)%n", REQUESTS, reactive.nanos() / 1_000_000, throughput(reactive.nanos()));
+    }
+
+    private Run runServlet() throws Exception {
+        ExecutorService tomcatThreads = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<Task>> responses = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                String taskId = "task-" + i;
+                responses.add(tomcatThreads.submit(() -> taskService.getTaskByIdAndUser(taskId, USER_ID)));
+            }
+            long served = 0;
+            for (int i = 0; i < REQUESTS; i++) {
+                if (("task-" + i).equals(responses.get(i).get().getTaskId())) {
+                    served++;
+                }
+            }
+            return new Run(served, System.nanoTime() - start);
+        } finally {
+            tomcatThreads.shutdownNow();
+        }
+    }
+
+    private Run runReactive() {
+        long start = System.nanoTime();
+        Long served = Flux.range(0, REQUESTS)
+                .flatMap(i -> reactiveTaskService.getTaskByIdAndUser("task-" + i, USER_ID)
+                        .filter(task -> ("task-" + i).equals(task.getTaskId())), REQUESTS)
+                .count()
+                .block();
+        return new Run(served, System.nanoTime() - start);
+    }
+
+    private static double throughput(long nanos) {
+        return REQUESTS / (nanos / 1_000_000_000.0);
+    }
+
+    private record Run(long served, long nanos) {
+    }
+
+    private static Task task(String taskId) {
+        return Task.builder().taskId(taskId).userId(USER_ID).title("title").build();
+    }
+}
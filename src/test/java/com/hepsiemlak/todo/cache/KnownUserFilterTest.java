@@ -0,0 +1,168 @@
+package com.hepsiemlak.todo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author suleyman.yildirim
+ */
+class KnownUserFilterTest {
+
+    private static Stream<String> userIds(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "user-" + i);
+    }
+
+    @Test
+    void mightContain_ShouldLetEveryIdThroughUntilBuilt() {
+        // Arrange
+        KnownUserFilter filter = new KnownUserFilter(true, 1000, 0.01, DataSize.ofKilobytes(16));
+
+        // Act & Assert
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain(USER_ID));
+        assertEquals(0, filter.getCheckCount());
+    }
+
+    @Test
+    void mightContain_ShouldLetEveryIdThroughWhenDisabled() {
+        // Arrange
+        KnownUserFilter filter = new KnownUserFilter(false, 1000, 0.01, DataSize.ofKilobytes(16));
+
+        // Act
+        long read = filter.rebuild(Stream.of("someone-else"));
+
+        // Assert
+        assertEquals(0, read);
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain(USER_ID));
+    }
+
+    @Test
+    void rebuild_ShouldNeverRejectKnownUsers() {
+        // Arrange
+        KnownUserFilter filter = new KnownUserFilter(true, 10_000, 0.01, DataSize.ofMegabytes(1));
+
+        // Act
+        long read = filter.rebuild(userIds(0, 10_000));
+
+        // Assert
+        assertEquals(10_000, read);
+        assertTrue(userIds(0, 10_000).allMatch(filter::mightContain));
+        assertEquals(0, filter.getRejectionCount());
+    }
+
+    @Test
+    void rebuild_ShouldKeepFalsePositivesNearTheConfiguredRate() {
+        // Arrange
+        KnownUserFilter filter = new KnownUserFilter(true, 10_000, 0.01, DataSize.ofMegabytes(1));
+        filter.rebuild(userIds(0, 10_000));
+
+        // Act
+        long falsePositives = userIds(10_000, 110_000).filter(filter::mightContain).count();
+
+        // Assert
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(100_000 - falsePositives, filter.getRejectionCount());
+        assertEquals(100_000, filter.getCheckCount());
+    }
+
+    @Test
+    void rebuild_ShouldDropUsersThatNoLongerExist() {
+        // Arrange
+        KnownUserFilter filter = new KnownUserFilter(true, 1000, 0.001, DataSize.ofKilobytes(16));
+        filter.rebuild(Stream.of(USER_ID));
+
+        // Act
+        filter.rebuild(Stream.empty());
+
+        // Assert
+        assertFalse(filter.mightContain(USER_ID));
+    }
+
+    @Test
+    void add_ShouldMakeNewUsersKnownImmediately() {
+        // Arrange
+        KnownUserFilter filter = new KnownUserFilter(true, 1000, 0.001, DataSize.ofKilobytes(16));
+        filter.rebuild(Stream.empty());
+
+        // Act
+        filter.add(USER_ID);
+
+        // Assert
+        assertTrue(filter.mightContain(USER_ID));
+    }
+
+    @Test
+    void add_ShouldReachARebuildInProgress() {
+        // Arrange
+        KnownUserFilter filter = new KnownUserFilter(true, 1000, 0.001, DataSize.ofKilobytes(16));
+        filter.rebuild(Stream.empty());
+
+        // Act: the user registers while the rebuild is still reading the bucket
+        filter.rebuild(Stream.of("user-0").peek(id -> filter.add(USER_ID)));
+
+        // Assert
+        assertTrue(filter.mightContain(USER_ID));
+    }
+
+    @Test
+    void add_ShouldNotBeLostToAConcurrentRebuild() throws InterruptedException {
+        // Arrange
+        KnownUserFilter filter = new KnownUserFilter(true, 100_000, 0.001, DataSize.ofMegabytes(1));
+        filter.rebuild(Stream.empty());
+        Set<String> bucket = ConcurrentHashMap.newKeySet();
+        AtomicBoolean registering = new AtomicBoolean(true);
+        // Each rebuild reads the bucket as it is when its stream is first pulled, like the query of the refresher
+        Thread rebuilder = new Thread(() -> {
+            while (registering.get()) {
+                filter.rebuild(Stream.of(bucket).flatMap(ids -> List.copyOf(ids).stream()));
+            }
+        });
+        rebuilder.start();
+
+        // Act: users are written to the bucket, then added, as by a registration
+        userIds(0, 20_000).forEach(id -> {
+            bucket.add(id);
+            filter.add(id);
+        });
+        registering.set(false);
+        rebuilder.join();
+
+        // Assert
+        assertTrue(userIds(0, 20_000).allMatch(filter::mightContain));
+        assertEquals(0, filter.getRejectionCount());
+    }
+
+    @Test
+    void mightContain_ShouldRejectUnknownIdsOnceBuilt() {
+        // Arrange
+        KnownUserFilter filter = new KnownUserFilter(true, 1000, 0.001, DataSize.ofKilobytes(16));
+        filter.rebuild(Stream.of(USER_ID));
+
+        // Act & Assert
+        assertTrue(filter.mightContain(USER_ID));
+        assertFalse(filter.mightContain("unknown-user"));
+        assertEquals(2, filter.getCheckCount());
+        assertEquals(1, filter.getRejectionCount());
+    }
+
+    @Test
+    void constructor_ShouldCapTheFilterAtTheMemoryBudget() {
+        // Act
+        KnownUserFilter filter = new KnownUserFilter(true, 100_000_000, 0.01, DataSize.ofKilobytes(1));
+
+        // Assert
+        assertEquals(8 * 1024, filter.getBitCount());
+        assertTrue(filter.getHashCount() >= 1);
+    }
+}
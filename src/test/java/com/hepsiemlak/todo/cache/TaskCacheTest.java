@@ -0,0 +1,133 @@
+package com.hepsiemlak.todo.cache;
+
+import com.hepsiemlak.todo.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author suleyman.yildirim
+ */
+class TaskCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private static Task task(String taskId) {
+        return new Task(taskId, "title", "description", "2024-08-30", "High", false, USER_ID, null);
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndServeHitsFromCache() {
+        // Arrange
+        TaskCache cache = new TaskCache(true, 10, Duration.ofMinutes(1), clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        cache.get(USER_ID, "1", () -> {
+            loads.incrementAndGet();
+            return Optional.of(task("1"));
+        });
+        Optional<Task> cached = cache.get(USER_ID, "1", () -> {
+            loads.incrementAndGet();
+            return Optional.of(task("1"));
+        });
+
+        // Assert
+        assertEquals(Optional.of(task("1")), cached);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void get_ShouldNotCacheMissingTasks() {
+        // Arrange
+        TaskCache cache = new TaskCache(true, 10, Duration.ofMinutes(1), clock::get);
+
+        // Act
+        cache.get(USER_ID, "1", Optional::empty);
+
+        // Assert
+        assertEquals(0, cache.size());
+        assertEquals(Optional.of(task("1")), cache.get(USER_ID, "1", () -> Optional.of(task("1"))));
+    }
+
+    @Test
+    void put_ShouldEvictLeastRecentlyUsedEntry_WhenMaxSizeIsReached() {
+        // Arrange
+        TaskCache cache = new TaskCache(true, 2, Duration.ofMinutes(1), clock::get);
+        cache.put(task("1"));
+        cache.put(task("2"));
+        cache.get(USER_ID, "1", Optional::empty);
+
+        // Act
+        cache.put(task("3"));
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.get(USER_ID, "2", Optional::empty).isEmpty());
+        assertTrue(cache.get(USER_ID, "1", Optional::empty).isPresent());
+    }
+
+    @Test
+    void get_ShouldReloadEntry_WhenTtlHasPassed() {
+        // Arrange
+        TaskCache cache = new TaskCache(true, 10, Duration.ofSeconds(1), clock::get);
+        cache.put(task("1"));
+
+        // Act
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        Task reloaded = task("1");
+        reloaded.setTitle("reloaded");
+        Optional<Task> result = cache.get(USER_ID, "1", () -> Optional.of(reloaded));
+
+        // Assert
+        assertEquals("reloaded", result.orElseThrow().getTitle());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void get_ShouldNotStoreLoadedTask_WhenWriteHappenedDuringLoad() {
+        // Arrange
+        TaskCache cache = new TaskCache(true, 10, Duration.ofMinutes(1), clock::get);
+        Task stale = task("1");
+
+        // Act: the task is deleted while a reader is still loading the old copy
+        cache.get(USER_ID, "1", () -> {
+            cache.evict(USER_ID, "1");
+            return Optional.of(stale);
+        });
+
+        // Assert
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_ShouldAlwaysLoad_WhenDisabled() {
+        // Arrange
+        TaskCache cache = new TaskCache(false, 10, Duration.ofMinutes(1), clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        cache.put(task("1"));
+        cache.get(USER_ID, "1", () -> {
+            loads.incrementAndGet();
+            return Optional.of(task("1"));
+        });
+        cache.get(USER_ID, "1", () -> {
+            loads.incrementAndGet();
+            return Optional.of(task("1"));
+        });
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,219 @@
+package com.hepsiemlak.todo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author suleyman.yildirim
+ */
+class VerifiedJwtCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-08-30T10:00:00Z");
+
+    private final AtomicReference<Instant> clock = new AtomicReference<>(NOW);
+    private final AtomicInteger decodes = new AtomicInteger();
+
+    private final JwtDecoder decoder = token -> {
+        decodes.incrementAndGet();
+        return jwt(token, NOW.plus(Duration.ofMinutes(5)));
+    };
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("client")
+                .issuedAt(NOW)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    @Test
+    void get_ShouldDecodeOnceAndServeRepeatedTokensFromCache() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 10, clock::get);
+
+        // Act
+        Jwt first = cache.get("token", decoder);
+        Jwt second = cache.get("token", decoder);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, decodes.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void get_ShouldDecodeAgainOnceTheTokenExpired() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 10, clock::get);
+        cache.get("token", decoder);
+
+        // Act
+        clock.set(NOW.plus(Duration.ofMinutes(5)));
+        cache.get("token", decoder);
+
+        // Assert
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void get_ShouldNotCacheTokensWithoutExpiry() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 10, clock::get);
+        JwtDecoder noExpiry = token -> Jwt.withTokenValue(token).header("alg", "RS256").subject("client").build();
+
+        // Act
+        cache.get("token", noExpiry);
+
+        // Assert
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_ShouldNotCacheRejectedTokens() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 10, clock::get);
+        JwtDecoder rejecting = token -> {
+            throw new BadJwtException("Invalid signature");
+        };
+
+        // Act & Assert
+        assertThrows(BadJwtException.class, () -> cache.get("token", rejecting));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_ShouldEvictLeastRecentlyUsedTokensOnceFull() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 2, clock::get);
+        cache.get("a", decoder);
+        cache.get("b", decoder);
+        cache.get("a", decoder);
+
+        // Act
+        cache.get("c", decoder);
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cache.get("a", decoder);
+        assertEquals(3, decodes.get());
+    }
+
+    @Test
+    void get_ShouldEvictATenthOfTheEntriesOnceFull() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 100, clock::get);
+        IntStream.range(0, 100).forEach(i -> cache.get("token-" + i, decoder));
+        cache.get("token-0", decoder);
+
+        // Act
+        cache.get("token-100", decoder);
+
+        // Assert: the oldest tokens went, the one used again stayed
+        assertEquals(90, cache.size());
+        assertEquals(11, cache.getEvictionCount());
+        cache.get("token-0", decoder);
+        cache.get("token-100", decoder);
+        assertEquals(101, decodes.get());
+    }
+
+    @Test
+    void get_ShouldBeBackWithinMaxSizeAfterConcurrentStores() throws Exception {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 1000, clock::get);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+
+        // Act
+        try {
+            List<Future<?>> writers = IntStream.range(0, 8)
+                    .<Future<?>>mapToObj(thread -> threads.submit(() -> IntStream.range(0, 10_000)
+                            .forEach(i -> cache.get(thread + "-" + i, decoder))))
+                    .toList();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        // Assert
+        assertTrue(cache.size() <= 1000, () -> "size: " + cache.size());
+        assertEquals(80_000, cache.getMissCount());
+    }
+
+    @Test
+    void invalidateAll_ShouldForceVerificationAgain() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 10, clock::get);
+        cache.get("token", decoder);
+
+        // Act
+        cache.invalidateAll();
+        cache.get("token", decoder);
+
+        // Assert
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void invalidateAll_ShouldDiscardDecodesThatWereInFlight() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 10, clock::get);
+        JwtDecoder rotatingMidDecode = token -> {
+            cache.invalidateAll();
+            return decoder.decode(token);
+        };
+
+        // Act
+        cache.get("token", rotatingMidDecode);
+
+        // Assert
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_ShouldCacheReactiveDecodes() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(true, 10, clock::get);
+        ReactiveJwtDecoder reactiveDecoder = token -> Mono.fromCallable(() -> decoder.decode(token));
+
+        // Act
+        cache.get("token", reactiveDecoder).block();
+        cache.get("token", reactiveDecoder).block();
+
+        // Assert
+        assertEquals(1, decodes.get());
+    }
+
+    @Test
+    void get_ShouldAlwaysDecodeWhenDisabled() {
+        // Arrange
+        VerifiedJwtCache cache = new VerifiedJwtCache(false, 10, clock::get);
+
+        // Act
+        cache.get("token", decoder);
+        cache.get("token", decoder);
+
+        // Assert
+        assertEquals(2, decodes.get());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,155 @@
+package com.hepsiemlak.todo.config;
+
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestOperations;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author suleyman.yildirim
+ */
+class JwkSetRefresherTest {
+
+    private static final String JWK_SET_URI = "http://authorization-server:9000/oauth2/jwks";
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    @TempDir
+    Path dir;
+
+    private RSAKey key;
+    private RestOperations restOperations;
+    private TaskScheduler taskScheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        key = new RSAKeyGenerator(2048).keyID("current").generate();
+        restOperations = mock(RestOperations.class);
+        taskScheduler = mock(TaskScheduler.class);
+    }
+
+    private JwkSetSource source() {
+        return new JwkSetSource(JWK_SET_URI, restOperations, Duration.ofSeconds(30), System::nanoTime);
+    }
+
+    private JwkSetRefresher refresher(JwkSetSource source, double jitter) {
+        return new JwkSetRefresher(source, taskScheduler, REFRESH_INTERVAL, jitter,
+                dir.resolve("jwks.json").toString());
+    }
+
+    @Test
+    void afterSingletonsInstantiated_ShouldFetchSaveAndScheduleTheNextRefresh() throws Exception {
+        // Arrange
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(new JWKSet(key).toString(true));
+        JwkSetSource source = source();
+
+        // Act
+        refresher(source, 0.1).afterSingletonsInstantiated();
+
+        // Assert
+        assertNotNull(source.getJwkSet().getKeyByKeyId("current"));
+        JWKSet saved = JWKSet.parse(Files.readString(dir.resolve("jwks.json")));
+        assertNotNull(saved.getKeyByKeyId("current"));
+        assertFalse(saved.getKeyByKeyId("current").isPrivate());
+        verify(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void afterSingletonsInstantiated_ShouldServeSavedKeysWhileTheAuthorizationServerIsDown() throws Exception {
+        // Arrange
+        when(restOperations.getForObject(eq(JWK_SET_URI), eq(String.class)))
+                .thenReturn(new JWKSet(key).toString(true))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+        refresher(source(), 0.1).afterSingletonsInstantiated();
+        JwkSetSource restarted = source();
+
+        // Act
+        refresher(restarted, 0.1).afterSingletonsInstantiated();
+
+        // Assert
+        JWKSelector selector = new JWKSelector(new JWKMatcher.Builder().keyID("current").build());
+        assertEquals(1, restarted.get(selector, null).size());
+        assertEquals(1, restarted.getFetchFailureCount());
+    }
+
+    @Test
+    void afterSingletonsInstantiated_ShouldCreateTheDirectoryForTheProcessUserOnly() throws Exception {
+        // Arrange
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(new JWKSet(key).toString(true));
+        Path cacheFile = dir.resolve("todo-app").resolve("jwks.json");
+
+        // Act
+        new JwkSetRefresher(source(), taskScheduler, REFRESH_INTERVAL, 0.1, cacheFile.toString())
+                .afterSingletonsInstantiated();
+
+        // Assert
+        assertEquals(PosixFilePermissions.fromString("rwx------"),
+                Files.getPosixFilePermissions(cacheFile.getParent()));
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(cacheFile));
+    }
+
+    @Test
+    void afterSingletonsInstantiated_ShouldIgnoreAFileOthersMayWrite() throws Exception {
+        // Arrange: a key planted by another user of the machine
+        when(restOperations.getForObject(eq(JWK_SET_URI), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+        Path cacheFile = dir.resolve("jwks.json");
+        Files.writeString(cacheFile, new JWKSet(key).toPublicJWKSet().toString());
+        Files.setPosixFilePermissions(cacheFile, PosixFilePermissions.fromString("rw-rw-rw-"));
+        JwkSetSource source = source();
+
+        // Act
+        refresher(source, 0.1).afterSingletonsInstantiated();
+
+        // Assert
+        assertNull(source.getJwkSet());
+    }
+
+    @Test
+    void afterSingletonsInstantiated_ShouldNotWriteIntoADirectoryOthersMayWrite() throws Exception {
+        // Arrange
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(new JWKSet(key).toString(true));
+        Path shared = Files.createDirectory(dir.resolve("shared"));
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        // Act
+        new JwkSetRefresher(source(), taskScheduler, REFRESH_INTERVAL, 0.1, shared.resolve("jwks.json").toString())
+                .afterSingletonsInstantiated();
+
+        // Assert
+        assertFalse(Files.exists(shared.resolve("jwks.json")));
+    }
+
+    @Test
+    void nextDelay_ShouldStayWithinTheJitter() {
+        // Arrange
+        JwkSetRefresher refresher = refresher(source(), 0.1);
+
+        // Act & Assert
+        for (int i = 0; i < 1000; i++) {
+            Duration delay = refresher.nextDelay();
+            assertTrue(delay.compareTo(Duration.ofSeconds(270)) >= 0, delay::toString);
+            assertTrue(delay.compareTo(Duration.ofSeconds(330)) <= 0, delay::toString);
+        }
+        assertEquals(REFRESH_INTERVAL, refresher(source(), 0).nextDelay());
+    }
+}
@@ -0,0 +1,155 @@
+package com.hepsiemlak.todo.config;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author suleyman.yildirim
+ */
+class JwkSetSourceTest {
+
+    private static final String JWK_SET_URI = "http://authorization-server:9000/oauth2/jwks";
+    private static final Duration MIN_REFETCH_INTERVAL = Duration.ofSeconds(30);
+
+    private static RSAKey oldKey;
+    private static RSAKey newKey;
+
+    private final AtomicLong clock = new AtomicLong();
+    private RestOperations restOperations;
+    private JwkSetSource source;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        oldKey = new RSAKeyGenerator(2048).keyID("old").generate();
+        newKey = new RSAKeyGenerator(2048).keyID("new").generate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        restOperations = mock(RestOperations.class);
+        source = new JwkSetSource(JWK_SET_URI, restOperations, MIN_REFETCH_INTERVAL, clock::get);
+    }
+
+    private static String jwks(RSAKey... keys) {
+        return new JWKSet(List.of((JWK[]) keys)).toString(true);
+    }
+
+    private static JWKSelector keyId(String keyId) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+    }
+
+    @Test
+    void get_ShouldFetchOnceAndServeKnownKeysFromMemory() throws Exception {
+        // Arrange
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(jwks(oldKey));
+
+        // Act
+        source.get(keyId("old"), null);
+        List<JWK> keys = source.get(keyId("old"), null);
+
+        // Assert
+        assertEquals("old", keys.get(0).getKeyID());
+        verify(restOperations, times(1)).getForObject(JWK_SET_URI, String.class);
+        assertEquals(0, source.getKeyMissCount());
+    }
+
+    @Test
+    void get_ShouldRefetchForUnknownKeysAtMostOncePerInterval() throws Exception {
+        // Arrange
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(jwks(oldKey));
+        source.refresh();
+
+        // Act
+        clock.addAndGet(MIN_REFETCH_INTERVAL.toNanos());
+        List<JWK> first = source.get(keyId("unknown"), null);
+        List<JWK> second = source.get(keyId("unknown"), null);
+
+        // Assert
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(restOperations, times(2)).getForObject(JWK_SET_URI, String.class);
+        assertEquals(2, source.getKeyMissCount());
+    }
+
+    @Test
+    void get_ShouldFindKeysAddedByARotation() throws Exception {
+        // Arrange
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(jwks(oldKey), jwks(newKey));
+        source.refresh();
+        AtomicInteger rotations = new AtomicInteger();
+        source.onRotation(rotations::incrementAndGet);
+
+        // Act
+        clock.addAndGet(MIN_REFETCH_INTERVAL.toNanos());
+        List<JWK> keys = source.get(keyId("new"), null);
+
+        // Assert
+        assertEquals("new", keys.get(0).getKeyID());
+        assertEquals(1, rotations.get());
+    }
+
+    @Test
+    void refresh_ShouldNotNotifyListenersWhenKeysAreUnchanged() throws Exception {
+        // Arrange
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(jwks(oldKey));
+        AtomicInteger rotations = new AtomicInteger();
+        source.onRotation(rotations::incrementAndGet);
+
+        // Act
+        source.refresh();
+        source.refresh();
+
+        // Assert
+        assertEquals(0, rotations.get());
+        assertEquals(2, source.getFetchCount());
+    }
+
+    @Test
+    void refresh_ShouldKeepHeldKeysWhenTheAuthorizationServerIsDown() throws Exception {
+        // Arrange
+        when(restOperations.getForObject(JWK_SET_URI, String.class))
+                .thenReturn(jwks(oldKey))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+        source.refresh();
+
+        // Act & Assert
+        assertThrows(KeySourceException.class, () -> source.refresh());
+        assertEquals("old", source.get(keyId("old"), null).get(0).getKeyID());
+        assertEquals(1, source.getFetchFailureCount());
+    }
+
+    @Test
+    void seed_ShouldServeSavedKeysWithoutFetching() throws Exception {
+        // Arrange
+        source.seed(new JWKSet(oldKey.toPublicJWK()));
+
+        // Act
+        List<JWK> keys = source.get(keyId("old"), null);
+
+        // Assert
+        assertEquals("old", keys.get(0).getKeyID());
+        verifyNoInteractions(restOperations);
+    }
+}
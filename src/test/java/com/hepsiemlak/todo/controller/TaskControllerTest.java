@@ -1,11 +1,18 @@
 package com.hepsiemlak.todo.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hepsiemlak.todo.cache.VerifiedJwtCache;
+import com.hepsiemlak.todo.config.JwkSetSource;
 import com.hepsiemlak.todo.config.OAuth2ResourceServerSecurityConfiguration;
 import com.hepsiemlak.todo.exception.ErrorCode;
+import com.hepsiemlak.todo.exception.TaskConflictException;
 import com.hepsiemlak.todo.exception.TaskNotFoundException;
 import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.BatchItemResult;
+import com.hepsiemlak.todo.model.BatchResult;
 import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskPage;
+import com.hepsiemlak.todo.model.TaskPatch;
 import com.hepsiemlak.todo.model.User;
 import com.hepsiemlak.todo.service.TaskService;
 import com.hepsiemlak.todo.service.UserService;
@@ -15,13 +22,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static com.hepsiemlak.todo.contants.TodoTestConstants.TASK_ID;
 import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
@@ -32,7 +42,10 @@ import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -53,6 +66,12 @@ class TaskControllerTest {
     @MockBean
     private TaskService taskService;
 
+    @MockBean
+    private JwkSetSource jwkSetSource;
+
+    @MockBean
+    private VerifiedJwtCache verifiedJwtCache;
+
     private Task task;
     private User user;
 
@@ -79,7 +98,7 @@ class TaskControllerTest {
     void testCreateTask_Success() throws Exception {
         // Arrange
 
-        when(userService.findByUserId(anyString())).thenReturn((user));
+        when(userService.existsByUserId(USER_ID)).thenReturn(true);
         when(taskService.createTask(any(Task.class))).thenReturn(task);
 
         // Act & Assert
@@ -100,8 +119,7 @@ class TaskControllerTest {
     @Test
     void testCreateTask_UserNotFound() throws Exception {
         // Arrange
-        when(userService.findByUserId(anyString())).thenThrow(new UserNotFoundException(ErrorCode.USER_NOT_FOUND,
-                "User with ID %s not found.".formatted("id")));
+        when(userService.existsByUserId(USER_ID)).thenReturn(false);
 
         // Act & Assert
         mockMvc.perform(post("/v1/tasks")
@@ -110,6 +128,50 @@ class TaskControllerTest {
                         .content(objectMapper.writeValueAsString(task)))
                 .andExpect(status().isNotFound())
                 .andExpect(res -> assertTrue(res.getResolvedException() instanceof UserNotFoundException));
+
+        verify(taskService, never()).createTask(any(Task.class));
+    }
+
+    @Test
+    void testCreateTask_TaskExists() throws Exception {
+        // Arrange
+        when(userService.existsByUserId(USER_ID)).thenReturn(true);
+        when(taskService.createTask(any(Task.class))).thenThrow(new TaskConflictException(ErrorCode.TASK_EXISTS,
+                "Task with ID %s already exists.".formatted(TASK_ID)));
+
+        // Act & Assert
+        mockMvc.perform(post("/v1/tasks")
+                        .with(jwt().jwt((jwt) -> jwt.claim("scope", "message:write")))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(task)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value(ErrorCode.TASK_EXISTS.getCode()));
+    }
+
+    @Test
+    void testCreateTasks_ReturnsMultiStatus_WhenSomeItemsFail() throws Exception {
+        // Arrange
+        BatchResult result = BatchResult.of(List.of(
+                BatchItemResult.builder().index(0).taskId(TASK_ID).success(true).task(task).build(),
+                BatchItemResult.builder().index(1).taskId("2").success(false).error(ErrorCode.TASK_EXISTS.getCode()).build()));
+
+        when(userService.existsByUserId(USER_ID)).thenReturn(true);
+        when(taskService.createTasks(anyList(), any())).thenReturn(result);
+
+        Task second = new Task("2", "Task 2", "Description 2", "2024-08-16", "Medium", true, USER_ID, null);
+
+        // Act & Assert
+        mockMvc.perform(post("/v1/tasks:batch")
+                        .with(jwt().jwt((jwt) -> jwt.claim("scope", "message:write")))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(task, second))))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[1].error").value("TASK_EXISTS"));
+
+        // Both tasks share one owner, which is looked up only once
+        verify(userService, times(1)).existsByUserId(USER_ID);
     }
 
     @Test
@@ -155,6 +217,20 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.userId").value(task.getUserId()));
     }
 
+    @Test
+    void testGetTaskByIdAndUser_NotModified_WhenETagMatchesVersion() throws Exception {
+        // Arrange
+        task.setVersion(5L);
+        when(taskService.getTaskByIdAndUser(anyString(), anyString())).thenReturn(task);
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/users/1/tasks/1")
+                        .with(jwt().jwt((jwt) -> jwt.claim("scope", "message:read")))
+                        .header("If-None-Match", "\"5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     @Test
     void testGetTaskByIdAndUser_TaskNotFound() throws Exception {
         // Arrange
@@ -172,8 +248,8 @@ class TaskControllerTest {
     void getAllTasks_ShouldReturnTasks_WhenUserExists() throws Exception {
         // Arrange
         List<Task> tasks = Arrays.asList(
-                new Task("1", "Task 1", "Description 1", "2024-08-15", "High", false, USER_ID),
-                new Task("2", "Task 2", "Description 2", "2024-08-16", "Medium", true, USER_ID)
+                new Task("1", "Task 1", "Description 1", "2024-08-15", "High", false, USER_ID, null),
+                new Task("2", "Task 2", "Description 2", "2024-08-16", "Medium", true, USER_ID, null)
         );
 
         when(taskService.getTasksByUser(USER_ID)).thenReturn(tasks);
@@ -190,6 +266,36 @@ class TaskControllerTest {
         verify(taskService, times(1)).getTasksByUser(USER_ID);
     }
 
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:read")
+    void getAllTasks_ShouldReturnNotModified_WithoutLoadingTasks_WhenETagMatches() throws Exception {
+        // Arrange
+        when(taskService.getTaskListVersion(USER_ID)).thenReturn(7L);
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/tasks")
+                        .param("userId", USER_ID)
+                        .header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"7\""));
+
+        verify(taskService, never()).getTasksByUser(anyString());
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:read")
+    void getAllTasks_ShouldReturnNotFound_WhenETagIsZeroAndUserDoesNotExist() throws Exception {
+        // Arrange
+        when(taskService.getTaskListVersion(USER_ID)).thenReturn(0L);
+        when(taskService.getTasksByUser(USER_ID)).thenThrow(new UserNotFoundException(ErrorCode.USER_NOT_FOUND));
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/tasks")
+                        .param("userId", USER_ID)
+                        .header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser(authorities = "SCOPE_message:read")
     void getAllTasks_ShouldReturnNotFound_WhenUserDoesNotExist() throws Exception {
@@ -214,6 +320,61 @@ class TaskControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:read")
+    void getTaskPage_ShouldReturnTasksAndNextCursor_WhenLimitIsGiven() throws Exception {
+        // Arrange
+        TaskPage page = new TaskPage(List.of(task), "Mg");
+
+        when(taskService.getTaskPageByUser(USER_ID, null, 1)).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/tasks")
+                        .param("userId", USER_ID)
+                        .param("limit", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks", hasSize(1)))
+                .andExpect(jsonPath("$.tasks[0].title").value("title"))
+                .andExpect(jsonPath("$.nextCursor").value("Mg"));
+
+        verify(taskService, never()).getTasksByUser(anyString());
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:read")
+    void getTaskPage_ShouldReturnBadRequest_WhenLimitIsOutOfRange() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/v1/tasks")
+                        .param("userId", USER_ID)
+                        .param("limit", "0")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(taskService, never()).getTaskPageByUser(anyString(), any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:read")
+    void exportTasks_ShouldStreamOneTaskPerLine() throws Exception {
+        // Arrange
+        Task second = new Task("2", "Task 2", "Description 2", "2024-08-16", "Medium", true, USER_ID, null);
+
+        when(taskService.streamTasksByUser(USER_ID)).thenReturn(Stream.of(task, second));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/v1/users/{userId}/tasks/export", USER_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(task) + "\n"
+                        + objectMapper.writeValueAsString(second) + "\n"));
+    }
+
     @Test
     @WithMockUser(authorities = "SCOPE_message:write")
     void updateTask_ShouldReturnUpdatedTask_WhenValidTaskDataIsProvided() throws Exception {
@@ -275,6 +436,102 @@ class TaskControllerTest {
         verify(taskService, times(1)).updateTaskForUser(TASK_ID,  updatedTask);
     }
 
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:write")
+    void updateTask_ShouldReturnConflict_WhenVersionIsStale() throws Exception {
+        // Arrange
+        when(taskService.updateTaskForUser(anyString(), any(Task.class))).thenThrow(new TaskConflictException(ErrorCode.TASK_CONFLICT,
+                "Task with ID %s was changed since it was read.".formatted(TASK_ID)));
+
+        // Act & Assert
+        mockMvc.perform(put("/v1/tasks/{id}", TASK_ID)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"taskId\": 1, \"title\": \"Updated Task\", \"description\": \"Updated Description\", \"dueDate\": \"2024-09-01\", \"priority\": \"Low\", \"completed\": true, \"userId\": 1, \"version\": 7}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value(ErrorCode.TASK_CONFLICT.getCode()));
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:write")
+    void updateTask_ShouldReturnConflict_WhenWriteLosesARace() throws Exception {
+        // Arrange
+        when(taskService.updateTaskForUser(anyString(), any(Task.class)))
+                .thenThrow(new OptimisticLockingFailureException("Task with ID %s was changed concurrently".formatted(TASK_ID)));
+
+        // Act & Assert
+        mockMvc.perform(put("/v1/tasks/{id}", TASK_ID)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"taskId\": 1, \"title\": \"Updated Task\", \"description\": \"Updated Description\", \"dueDate\": \"2024-09-01\", \"priority\": \"Low\", \"completed\": true, \"userId\": 1}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value(ErrorCode.TASK_CONFLICT.getCode()));
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:write")
+    void patchTask_ShouldReturnNewVersionAsETag() throws Exception {
+        // Arrange
+        TaskPatch patch = TaskPatch.builder().userId(USER_ID).completed(true).version(7L).build();
+        when(taskService.patchTaskForUser(TASK_ID, patch)).thenReturn(9L);
+
+        // Act & Assert
+        mockMvc.perform(patch("/v1/tasks/{id}", TASK_ID)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\": \"1\", \"completed\": true, \"version\": 7}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"9\""));
+
+        verify(taskService, times(1)).patchTaskForUser(TASK_ID, patch);
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:write")
+    void patchTask_ShouldReturnBadRequest_WhenNothingIsChanged() throws Exception {
+        // Act & Assert
+        mockMvc.perform(patch("/v1/tasks/{id}", TASK_ID)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\": \"1\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(taskService, never()).patchTaskForUser(anyString(), any(TaskPatch.class));
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:write")
+    void deleteTasks_ShouldReturnCounts_WhenClearingCompletedTasks() throws Exception {
+        // Arrange
+        BatchResult result = BatchResult.of(List.of(
+                BatchItemResult.builder().index(0).taskId(TASK_ID).success(true).build()));
+
+        when(taskService.deleteTasks(any())).thenReturn(result);
+
+        // Act & Assert
+        mockMvc.perform(post("/v1/tasks:batchDelete")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\": \"1\", \"completed\": true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(0));
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_message:write")
+    void updateTasks_ShouldReturnBadRequest_WhenNothingIsSelected() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/v1/tasks:batchUpdate")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"where\": {\"userId\": \"1\"}, \"set\": {\"completed\": true}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsInAnyOrder("Either task ids or completed must be given")));
+
+        verify(taskService, never()).updateTasks(any(), any());
+    }
+
     @Test
     @WithMockUser(authorities = "SCOPE_message:write")
     void deleteTask_ShouldReturnNoContent_WhenTaskIsDeleted() throws Exception {
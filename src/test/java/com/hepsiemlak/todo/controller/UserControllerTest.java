@@ -3,6 +3,7 @@ package com.hepsiemlak.todo.controller;
 import com.hepsiemlak.todo.exception.ErrorCode;
 import com.hepsiemlak.todo.exception.UserExistsException;
 import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.Task;
 import com.hepsiemlak.todo.model.User;
 import com.hepsiemlak.todo.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,8 +14,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -79,7 +84,7 @@ class UserControllerTest {
                 .email("existinguser@example.com")
                 .build();
 
-        when(userService.findUserByUsername("existinguser")).thenReturn(existingUser);
+        when(userService.findUserByUsername("existinguser", false)).thenReturn(existingUser);
 
         mockMvc.perform(get("/v1/user")
                         .with(jwt().jwt((jwt) -> jwt.claim("scope", "message:read")))
@@ -91,7 +96,7 @@ class UserControllerTest {
 
     @Test
     void testFindUserByUsername_UserNotFoundException() throws Exception {
-        when(userService.findUserByUsername("nonexistentuser")).thenThrow( new UserNotFoundException(ErrorCode.USER_NOT_FOUND,
+        when(userService.findUserByUsername("nonexistentuser", false)).thenThrow( new UserNotFoundException(ErrorCode.USER_NOT_FOUND,
                         "User with username %s not found.".formatted("nonexistentuser")));
 
         mockMvc.perform(get("/v1/user/nonexistentuser")
@@ -108,7 +113,7 @@ class UserControllerTest {
                 .email("existinguser@example.com")
                 .build();
 
-        when(userService.findByUserId(anyString())).thenReturn(existingUser);
+        when(userService.findByUserId(anyString(), eq(false))).thenReturn(existingUser);
 
         mockMvc.perform(get("/v1/user/id")
                         .with(jwt().jwt((jwt) -> jwt.claim("scope", "message:read")))
@@ -118,9 +123,29 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.email").value("existinguser@example.com"));
     }
 
+    @Test
+    void testFindUserById_IncludeTasks() throws Exception {
+
+        var existingUser =  User.builder()
+                .userId("1")
+                .username("existinguser")
+                .email("existinguser@example.com")
+                .tasks(List.of(Task.builder().taskId("1").userId("1").title("title").build()))
+                .build();
+
+        when(userService.findByUserId("1", true)).thenReturn(existingUser);
+
+        mockMvc.perform(get("/v1/user/id")
+                        .with(jwt().jwt((jwt) -> jwt.claim("scope", "message:read")))
+                        .param("id", "1")
+                        .param("include", UserController.INCLUDE_TASKS))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[0].taskId").value("1"));
+    }
+
     @Test
     void testFindUserById_UserNotFoundException() throws Exception {
-        when(userService.findByUserId(anyString())).thenReturn(null);
+        when(userService.findByUserId(anyString(), anyBoolean())).thenReturn(null);
 
         mockMvc.perform(get("/v1/user/1").with(jwt().jwt((jwt) -> jwt.claim("scope", "message:read"))))
                 .andExpect(status().isNotFound());
@@ -0,0 +1,217 @@
+package com.hepsiemlak.todo.metrics;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.exception.TaskNotFoundException;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.repository.ReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.TaskRepository;
+import com.hepsiemlak.todo.repository.TaskRepositoryCustomImpl;
+import com.hepsiemlak.todo.repository.UserRepository;
+import com.hepsiemlak.todo.repository.UserRepositoryCustomImpl;
+import com.hepsiemlak.todo.repository.memory.InMemoryReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskListVersionRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskRepository;
+import com.hepsiemlak.todo.service.TaskKeys;
+import com.hepsiemlak.todo.service.TaskService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.core.ExecutableExistsByIdOperation.ExecutableExistsById;
+import org.springframework.data.couchbase.core.ExecutableFindByQueryOperation.ExecutableFindByQuery;
+import org.springframework.data.couchbase.core.ExecutableRemoveByQueryOperation.ExecutableRemoveByQuery;
+import org.springframework.data.couchbase.core.ReactiveCouchbaseTemplate;
+import org.springframework.data.couchbase.core.convert.MappingCouchbaseConverter;
+import org.springframework.data.couchbase.repository.config.RepositoryOperationsMapping;
+import org.springframework.data.couchbase.repository.support.CouchbaseRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author suleyman.yildirim
+ */
+class MethodTimingAspectTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MethodTimingAspect aspect = new MethodTimingAspect(registry);
+
+    @SuppressWarnings("unchecked")
+    private <T> T timed(T target) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(aspect);
+        return (T) proxyFactory.getProxy();
+    }
+
+    private static Task task(String taskId) {
+        return new Task(taskId, "title", "description", "2024-08-30", "High", false, USER_ID, null);
+    }
+
+    private Timer timer(String name, String className, String method, String outcome, String exception) {
+        return registry.find(name)
+                .tag("class", className)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .timer();
+    }
+
+    @Test
+    void repositoryCall_ShouldBeTimedUnderItsRepositoryInterface() {
+        // Arrange
+        TaskRepository taskRepository = timed(new InMemoryTaskRepository());
+
+        // Act
+        taskRepository.save(task("1"));
+        taskRepository.findById("1");
+        taskRepository.findById("1");
+
+        // Assert
+        Timer timer = timer(MethodTimingAspect.REPOSITORY_TIMER, "TaskRepository", "findById", "SUCCESS", "none");
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void springDataRepositoryCall_ShouldBeTimedUnderTheInterfaceItsProxyImplements() {
+        // Arrange: both repositories are proxies of SimpleCouchbaseRepository, timed as in the application
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(SpringDataRepositoryConfiguration.class)) {
+            SimpleMeterRegistry meterRegistry = context.getBean(SimpleMeterRegistry.class);
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            TaskRepository taskRepository = context.getBean(TaskRepository.class);
+
+            // Act
+            boolean userExists = userRepository.existsById(USER_ID);
+            taskRepository.existsById("1");
+            taskRepository.existsById("2");
+
+            // Assert
+            assertTrue(userExists);
+            assertEquals(1, meterRegistry.get(MethodTimingAspect.REPOSITORY_TIMER).tag("class", "UserRepository")
+                    .tag("method", "existsById").timer().count());
+            assertEquals(2, meterRegistry.get(MethodTimingAspect.REPOSITORY_TIMER).tag("class", "TaskRepository")
+                    .tag("method", "existsById").timer().count());
+            assertNull(meterRegistry.find(MethodTimingAspect.REPOSITORY_TIMER)
+                    .tag("class", "SimpleCouchbaseRepository").timer());
+        }
+    }
+
+    @Test
+    void serviceCall_ShouldBeTaggedWithTheExceptionItThrows() {
+        // Arrange
+        TaskService taskService = timed(new TaskService(new InMemoryTaskRepository(),
+                new TaskCache(true, 10, Duration.ofMinutes(1)), new InMemoryTaskListVersionRepository(),
+                new TaskKeys(false), new KnownUserFilter(false, 1000, 0.01, DataSize.ofKilobytes(1))));
+
+        // Act & Assert
+        assertThrows(TaskNotFoundException.class, () -> taskService.getTaskByIdAndUser("missing", USER_ID));
+        Timer timer = timer(MethodTimingAspect.SERVICE_TIMER, "TaskService", "getTaskByIdAndUser", "ERROR",
+                "TaskNotFoundException");
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+        assertNull(timer(MethodTimingAspect.SERVICE_TIMER, "TaskService", "getTaskByIdAndUser", "SUCCESS", "none"));
+    }
+
+    @Test
+    void monoResult_ShouldBeTimedOnceSubscribed() {
+        // Arrange
+        InMemoryTaskRepository taskRepository = new InMemoryTaskRepository();
+        taskRepository.save(task("1"));
+        ReactiveTaskRepository reactiveTaskRepository = timed(new InMemoryReactiveTaskRepository(taskRepository));
+
+        // Act
+        Mono<Task> found = reactiveTaskRepository.findById("1");
+
+        // Assert
+        assertNull(timer(MethodTimingAspect.REPOSITORY_TIMER, "ReactiveTaskRepository", "findById", "SUCCESS", "none"));
+        assertEquals("1", found.block().getTaskId());
+        assertEquals(1, timer(MethodTimingAspect.REPOSITORY_TIMER, "ReactiveTaskRepository", "findById", "SUCCESS",
+                "none").count());
+    }
+
+    @Test
+    void exceptionType_ShouldBeTheCouchbaseExceptionBehindATranslatedOne() {
+        // Arrange
+        DataRetrievalFailureException translated = new DataRetrievalFailureException("Not found",
+                new DocumentNotFoundException(null));
+
+        // Act & Assert
+        assertEquals(DocumentNotFoundException.class, MethodTimingAspect.exceptionType(translated));
+        assertEquals(IllegalStateException.class, MethodTimingAspect.exceptionType(new IllegalStateException()));
+    }
+
+    /**
+     * Repositories created by Spring Data, as in the application, over a template that only answers
+     * {@code existsById}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @EnableAspectJAutoProxy
+    static class SpringDataRepositoryConfiguration {
+
+        @Bean
+        SimpleMeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        MethodTimingAspect methodTimingAspect(MeterRegistry meterRegistry) {
+            return new MethodTimingAspect(meterRegistry);
+        }
+
+        @Bean
+        CouchbaseTemplate couchbaseTemplate() {
+            MappingCouchbaseConverter converter = new MappingCouchbaseConverter();
+            converter.afterPropertiesSet();
+            ExecutableExistsById existsById = mock(ExecutableExistsById.class, RETURNS_SELF);
+            when(existsById.one(USER_ID)).thenReturn(true);
+
+            CouchbaseTemplate couchbaseTemplate = mock(CouchbaseTemplate.class);
+            when(couchbaseTemplate.getConverter()).thenReturn(converter);
+            when(couchbaseTemplate.getBucketName()).thenReturn("default");
+            when(couchbaseTemplate.reactive()).thenReturn(mock(ReactiveCouchbaseTemplate.class));
+            when(couchbaseTemplate.existsById(any())).thenReturn(existsById);
+            // Query methods are prepared when a repository is created
+            doReturn(mock(ExecutableFindByQuery.class, RETURNS_SELF)).when(couchbaseTemplate).findByQuery(any());
+            doReturn(mock(ExecutableRemoveByQuery.class, RETURNS_SELF)).when(couchbaseTemplate).removeByQuery(any());
+            return couchbaseTemplate;
+        }
+
+        @Bean
+        CouchbaseRepositoryFactory couchbaseRepositoryFactory(CouchbaseTemplate couchbaseTemplate) {
+            return new CouchbaseRepositoryFactory(new RepositoryOperationsMapping(couchbaseTemplate));
+        }
+
+        @Bean
+        UserRepository userRepository(CouchbaseRepositoryFactory factory, CouchbaseTemplate couchbaseTemplate) {
+            return factory.getRepository(UserRepository.class,
+                    RepositoryFragments.just(new UserRepositoryCustomImpl(couchbaseTemplate)));
+        }
+
+        @Bean
+        TaskRepository taskRepository(CouchbaseRepositoryFactory factory, CouchbaseTemplate couchbaseTemplate) {
+            return factory.getRepository(TaskRepository.class,
+                    RepositoryFragments.just(new TaskRepositoryCustomImpl(couchbaseTemplate, null)));
+        }
+    }
+}
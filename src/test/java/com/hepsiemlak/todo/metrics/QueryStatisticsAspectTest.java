@@ -0,0 +1,94 @@
+package com.hepsiemlak.todo.metrics;
+
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.repository.ReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.TaskRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryTaskRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.couchbase.core.convert.MappingCouchbaseConverter;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author suleyman.yildirim
+ */
+class QueryStatisticsAspectTest {
+
+    private final QueryStatistics queryStatistics =
+            new QueryStatistics(Duration.ofSeconds(1), 20, Duration.ofMinutes(5));
+    private final InMemoryTaskRepository taskRepository = new InMemoryTaskRepository();
+    private final QueryStatisticsAspect aspect = new QueryStatisticsAspect(queryStatistics, converter(), "default");
+
+    private static MappingCouchbaseConverter converter() {
+        MappingCouchbaseConverter converter = new MappingCouchbaseConverter();
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    // Proxied by interface, as Spring Data repositories are
+    @SuppressWarnings("unchecked")
+    private <T> T recorded(Object target) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(aspect);
+        return (T) proxyFactory.getProxy();
+    }
+
+    private static Task task(String taskId) {
+        return new Task(taskId, "title", "description", "2024-08-30", "High", false, USER_ID, null);
+    }
+
+    @Test
+    void derivedQuery_ShouldBeRecordedWithItsResultCount() {
+        // Arrange
+        taskRepository.save(task("1"));
+        taskRepository.save(task("2"));
+        TaskRepository recordedRepository = recorded(taskRepository);
+
+        // Act
+        recordedRepository.findByUserId(USER_ID);
+        recordedRepository.findById("1");
+
+        // Assert
+        List<RepositoryQueryStatistics> top = queryStatistics.top();
+        assertEquals(1, top.size());
+        assertEquals("TaskRepository.findByUserId", top.get(0).getQuery());
+        assertTrue(top.get(0).getStatement()
+                .endsWith("FROM `default` WHERE `_class` = \"com.hepsiemlak.todo.model.Task\" AND `userId` = $1"));
+        assertEquals(1, top.get(0).getCount());
+        assertEquals(2.0, top.get(0).getMeanResultCount());
+    }
+
+    @Test
+    void fluxQuery_ShouldBeRecordedOnceCompleted() {
+        // Arrange
+        taskRepository.save(task("1"));
+        ReactiveTaskRepository recordedRepository = recorded(new InMemoryReactiveTaskRepository(taskRepository));
+
+        // Act
+        Flux<Task> tasks = recordedRepository.findByUserId(USER_ID);
+
+        // Assert
+        assertTrue(queryStatistics.top().isEmpty());
+        assertEquals(1, tasks.collectList().block().size());
+        assertEquals(1.0, queryStatistics.top().get(0).getMeanResultCount());
+    }
+
+    @Test
+    void querySite_ShouldCarryTheStatementOfAnAnnotatedQuery() throws NoSuchMethodException {
+        // Act
+        QueryStatisticsAspect.QuerySite querySite = aspect.querySite(
+                TaskRepository.class.getMethod("findPageByUserId", String.class, String.class, int.class));
+
+        // Assert
+        assertEquals("TaskRepository.findPageByUserId", querySite.query());
+        assertTrue(querySite.statement().contains("ORDER BY META().id LIMIT $3"));
+        assertFalse(querySite.statement().contains("#{"), querySite.statement());
+    }
+}
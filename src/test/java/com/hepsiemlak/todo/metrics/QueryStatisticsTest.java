@@ -0,0 +1,77 @@
+package com.hepsiemlak.todo.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author suleyman.yildirim
+ */
+class QueryStatisticsTest {
+
+    private static final String FIND_BY_USER_ID = "TaskRepository.findByUserId";
+    private static final String FIND_BY_USERNAME = "UserRepository.findByUsername";
+    private static final String FIND_PAGE_BY_USER_ID = "TaskRepository.findPageByUserId";
+
+    private final QueryStatistics queryStatistics =
+            new QueryStatistics(Duration.ofSeconds(1), 2, Duration.ofMinutes(5));
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    void top_ShouldListTheQueriesWithTheHighestTotalElapsedTimeFirst() {
+        // Arrange
+        queryStatistics.record(FIND_BY_USER_ID, null, "a", millis(4), 10, null);
+        queryStatistics.record(FIND_BY_USER_ID, null, "b", millis(4), 10, null);
+        queryStatistics.record(FIND_BY_USERNAME, null, "c", millis(6), 1, null);
+        queryStatistics.record(FIND_PAGE_BY_USER_ID, "SELECT ...", "d", millis(1), 20, null);
+
+        // Act
+        List<RepositoryQueryStatistics> top = queryStatistics.top();
+
+        // Assert
+        assertEquals(2, top.size());
+        assertEquals(FIND_BY_USER_ID, top.get(0).getQuery());
+        assertEquals(2, top.get(0).getCount());
+        assertEquals(8.0, top.get(0).getTotalElapsedMillis());
+        assertEquals(FIND_BY_USERNAME, top.get(1).getQuery());
+    }
+
+    @Test
+    void top_ShouldAverageResultCountsOverSuccessfulExecutionsOnly() {
+        // Arrange
+        queryStatistics.record(FIND_PAGE_BY_USER_ID, "SELECT ...", "a", millis(2), 4, null);
+        queryStatistics.record(FIND_PAGE_BY_USER_ID, "SELECT ...", "b", millis(6), 8, null);
+        queryStatistics.record(FIND_PAGE_BY_USER_ID, "SELECT ...", "c", millis(10), -1, new IllegalStateException());
+
+        // Act
+        RepositoryQueryStatistics statistics = queryStatistics.top().get(0);
+
+        // Assert
+        assertEquals("SELECT ...", statistics.getStatement());
+        assertEquals(3, statistics.getCount());
+        assertEquals(1, statistics.getFailures());
+        assertEquals(6.0, statistics.getMeanElapsedMillis());
+        assertEquals(10.0, statistics.getMaxElapsedMillis());
+        assertEquals("c", statistics.getSlowestParametersHash());
+        assertEquals(6.0, statistics.getMeanResultCount());
+    }
+
+    @Test
+    void reset_ShouldDropAllStatistics() {
+        // Arrange
+        queryStatistics.record(FIND_BY_USER_ID, null, "a", millis(1), 1, null);
+
+        // Act
+        queryStatistics.reset();
+
+        // Assert
+        assertTrue(queryStatistics.top().isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryOptions;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.couchbase.BucketDefinition;
+import org.testcontainers.couchbase.CouchbaseContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks with EXPLAIN that the statements Spring Data generates for each repository method are planned on the
+ * index declared for them on the entity. Needs Docker; the test is skipped where it is not available.
+ *
+ * @author suleyman.yildirim
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryIndexPlanTest {
+
+    private static final String BUCKET = "default";
+
+    @Container
+    static final CouchbaseContainer couchbase = new CouchbaseContainer("couchbase/server:7.2.4")
+            .withBucket(new BucketDefinition(BUCKET));
+
+    @DynamicPropertySource
+    static void couchbaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.couchbase.connection-string", couchbase::getConnectionString);
+        registry.add("spring.couchbase.username", couchbase::getUsername);
+        registry.add("spring.couchbase.password", couchbase::getPassword);
+        registry.add("spring.couchbase.bucket.name", () -> BUCKET);
+    }
+
+    @Autowired
+    private CouchbaseTemplate couchbaseTemplate;
+
+    @Test
+    void findByUserId_UsesOwnerIndex() throws NoSuchMethodException {
+        assertPlanUses(Task.OWNER_INDEX, TaskRepository.class.getMethod("findByUserId", String.class), "1");
+    }
+
+    @Test
+    void streamByUserId_UsesOwnerIndex() throws NoSuchMethodException {
+        assertPlanUses(Task.OWNER_INDEX, TaskRepository.class.getMethod("streamByUserId", String.class), "1");
+    }
+
+    @Test
+    void findPageByUserId_UsesOwnerIndex() throws NoSuchMethodException {
+        assertPlanUses(Task.OWNER_INDEX,
+                TaskRepository.class.getMethod("findPageByUserId", String.class, String.class, int.class), "1", "", 10);
+    }
+
+    @Test
+    void findByTaskIdAndUserId_UsesOwnerIndex() throws NoSuchMethodException {
+        assertPlanUses(Task.OWNER_INDEX,
+                TaskRepository.class.getMethod("findByTaskIdAndUserId", String.class, String.class), "1", "1");
+    }
+
+    @Test
+    void reactiveFindByUserId_UsesOwnerIndex() throws NoSuchMethodException {
+        assertPlanUses(Task.OWNER_INDEX, ReactiveTaskRepository.class.getMethod("findByUserId", String.class), "1");
+    }
+
+    @Test
+    void selectionByCompletion_UsesOwnerCompletedIndex() {
+        // The predicate TaskRepositoryCustomImpl builds for a selection by completion state
+        assertPlanUses(Task.OWNER_COMPLETED_INDEX, "SELECT RAW META().id FROM `%s` WHERE `_class` = \"%s\" AND userId = $userId AND completed = $completed"
+                        .formatted(BUCKET, Task.class.getName()),
+                QueryOptions.queryOptions().parameters(JsonObject.create().put("userId", "1").put("completed", true)));
+    }
+
+    @Test
+    void findByUsername_UsesUsernameIndex() throws NoSuchMethodException {
+        assertPlanUses(User.USERNAME_INDEX, UserRepository.class.getMethod("findByUsername", String.class), "newuser");
+    }
+
+    @Test
+    void findByUserId_OnUsers_UsesKeyIndex() throws NoSuchMethodException {
+        assertPlanUses(User.KEY_INDEX, UserRepository.class.getMethod("findByUserId", String.class), "1");
+    }
+
+    /**
+     * EXPLAINs the statement Spring Data generates for {@code method}, so a change of the method or of the
+     * entity that no longer matches the index fails here.
+     */
+    private void assertPlanUses(String index, Method method, Object... arguments) {
+        String statement = RepositoryStatements.of(method, couchbaseTemplate.getConverter(), couchbaseTemplate.getBucketName());
+        assertPlanUses(index, statement, QueryOptions.queryOptions().parameters(JsonArray.from(arguments)));
+    }
+
+    private void assertPlanUses(String index, String statement, QueryOptions options) {
+        String plan = couchbaseTemplate.getCouchbaseClientFactory().getCluster()
+                .query("EXPLAIN " + statement, options)
+                .rowsAsObject()
+                .get(0)
+                .toString();
+
+        assertTrue(plan.contains("\"index\":\"" + index + "\""),
+                () -> "Expected %s in plan %s of %s".formatted(index, plan, statement));
+    }
+}
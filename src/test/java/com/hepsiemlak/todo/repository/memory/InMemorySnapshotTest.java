@@ -0,0 +1,79 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author suleyman.yildirim
+ */
+class InMemorySnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+
+    private InMemorySnapshot snapshot(InMemoryTaskRepository taskRepository, InMemoryUserRepository userRepository,
+                                      InMemoryTaskListVersionRepository taskListVersionRepository,
+                                      InMemoryUsernameLookupRepository usernameLookupRepository) {
+        return new InMemorySnapshot(taskRepository, userRepository, taskListVersionRepository,
+                usernameLookupRepository, dir.resolve("store.snapshot"), taskScheduler, Duration.ZERO);
+    }
+
+    @Test
+    void afterPropertiesSet_ShouldRestoreWhatDestroySaved() {
+        // Arrange
+        InMemoryTaskRepository taskRepository = new InMemoryTaskRepository();
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        InMemoryTaskListVersionRepository taskListVersionRepository = new InMemoryTaskListVersionRepository();
+        InMemoryUsernameLookupRepository usernameLookupRepository = new InMemoryUsernameLookupRepository();
+        Task task = taskRepository.save(new Task("1", "title", null, "2024-08-30", "High", null, USER_ID, null));
+        User user = userRepository.insert(new User(USER_ID, "user", "user@example.com", List.of(task)));
+        taskListVersionRepository.increment(USER_ID);
+        usernameLookupRepository.insert("User", USER_ID);
+        snapshot(taskRepository, userRepository, taskListVersionRepository, usernameLookupRepository).destroy();
+
+        InMemoryTaskRepository restoredTasks = new InMemoryTaskRepository();
+        InMemoryUserRepository restoredUsers = new InMemoryUserRepository();
+        InMemoryTaskListVersionRepository restoredVersions = new InMemoryTaskListVersionRepository();
+        InMemoryUsernameLookupRepository restoredLookups = new InMemoryUsernameLookupRepository();
+
+        // Act
+        snapshot(restoredTasks, restoredUsers, restoredVersions, restoredLookups).afterPropertiesSet();
+
+        // Assert
+        assertEquals(Optional.of(task), restoredTasks.findById("1"));
+        assertEquals(Optional.of(user), restoredUsers.findByUsername("user"));
+        assertEquals(1, restoredVersions.findByUserId(USER_ID));
+        assertEquals(Optional.of(USER_ID), restoredLookups.findUserId("user"));
+
+        // Versions continue after the restored ones, so a stale version never matches again
+        Task next = restoredTasks.save(new Task("2", "title", "description", "2024-08-30", "High", false, USER_ID, null));
+        assertTrue(next.getVersion() > task.getVersion());
+    }
+
+    @Test
+    void afterPropertiesSet_ShouldFail_WhenTheSnapshotIsCorrupt() throws Exception {
+        // Arrange
+        Files.write(dir.resolve("store.snapshot"), new byte[]{1, 2, 3});
+        InMemorySnapshot snapshot = snapshot(new InMemoryTaskRepository(), new InMemoryUserRepository(),
+                new InMemoryTaskListVersionRepository(), new InMemoryUsernameLookupRepository());
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class, snapshot::afterPropertiesSet);
+    }
+}
@@ -0,0 +1,221 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskChanges;
+import com.hepsiemlak.todo.model.TaskPatch;
+import com.hepsiemlak.todo.model.TaskSelection;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author suleyman.yildirim
+ */
+class InMemoryTaskRepositoryTest {
+
+    private final InMemoryTaskRepository repository = new InMemoryTaskRepository();
+
+    private static Task task(String taskId, String userId) {
+        return new Task(taskId, "title", "description", "2024-08-30", "High", false, userId, null);
+    }
+
+    @Test
+    void save_ShouldInsertWithNewVersion_AndRejectSecondInsert() {
+        // Act
+        Task saved = repository.save(task("1", USER_ID));
+
+        // Assert
+        assertNotNull(saved.getVersion());
+        assertEquals(Optional.of(saved), repository.findById("1"));
+        assertThrows(DuplicateKeyException.class, () -> repository.save(task("1", USER_ID)));
+    }
+
+    @Test
+    void save_ShouldReplaceOnlyAtTheReadVersion() {
+        // Arrange
+        Task saved = repository.save(task("1", USER_ID));
+        Task stale = task("1", USER_ID);
+        stale.setVersion(saved.getVersion());
+        Task missing = task("2", USER_ID);
+        missing.setVersion(1L);
+
+        // Act
+        saved.setTitle("changed");
+        Task replaced = repository.save(saved);
+
+        // Assert
+        assertNotEquals(stale.getVersion(), replaced.getVersion());
+        assertEquals("changed", repository.findById("1").orElseThrow().getTitle());
+        assertThrows(OptimisticLockingFailureException.class, () -> repository.save(stale));
+        assertThrows(DataRetrievalFailureException.class, () -> repository.save(missing));
+    }
+
+    @Test
+    void findById_ShouldReturnCopies() {
+        // Arrange
+        repository.save(task("1", USER_ID));
+
+        // Act
+        repository.findById("1").orElseThrow().setTitle("changed");
+
+        // Assert
+        assertEquals("title", repository.findById("1").orElseThrow().getTitle());
+    }
+
+    @Test
+    void findByUserId_ShouldFollowOwnerChanges() {
+        // Arrange
+        Task saved = repository.save(task("1", USER_ID));
+        repository.save(task("2", "other"));
+
+        // Act
+        saved.setUserId("other");
+        repository.save(saved);
+
+        // Assert
+        assertEquals(Optional.of(List.of()), repository.findByUserId(USER_ID));
+        assertEquals(List.of("1", "2"), repository.findByUserId("other").orElseThrow().stream().map(Task::getTaskId).toList());
+        assertTrue(repository.findByTaskIdAndUserId("1", USER_ID).isEmpty());
+    }
+
+    @Test
+    void findPageByUserId_ShouldReturnTasksAfterTheGivenKeyInKeyOrder() {
+        // Arrange
+        IntStream.range(0, 5).forEach(i -> repository.save(task("t" + i, USER_ID)));
+        repository.save(task("t9", "other"));
+
+        // Act
+        List<Task> first = repository.findPageByUserId(USER_ID, "", 2);
+        List<Task> last = repository.findPageByUserId(USER_ID, "t2", 10);
+
+        // Assert
+        assertEquals(List.of("t0", "t1"), first.stream().map(Task::getTaskId).toList());
+        assertEquals(List.of("t3", "t4"), last.stream().map(Task::getTaskId).toList());
+    }
+
+    @Test
+    void updateAllAndDeleteAll_ShouldOnlyTouchSelectedTasksOfTheUser() {
+        // Arrange
+        repository.save(task("1", USER_ID));
+        Task completed = task("2", USER_ID);
+        completed.setCompleted(true);
+        repository.save(completed);
+        repository.save(task("3", "other"));
+        TaskSelection open = TaskSelection.builder().userId(USER_ID).completed(false).build();
+
+        // Act
+        List<String> updated = repository.updateAll(open, TaskChanges.builder().priority("Low").build());
+        List<String> deleted = repository.deleteAll(TaskSelection.builder().userId(USER_ID).taskIds(List.of("2", "3")).build());
+
+        // Assert
+        assertEquals(List.of("1"), updated);
+        assertEquals("Low", repository.findById("1").orElseThrow().getPriority());
+        assertEquals(List.of("2"), deleted);
+        assertTrue(repository.existsById("3"));
+    }
+
+    @Test
+    void patch_ShouldApplyOnlyAtTheGivenVersion() {
+        // Arrange
+        Long version = repository.save(task("1", USER_ID)).getVersion();
+
+        // Act
+        Optional<Long> patched = repository.patch("1", TaskPatch.builder().userId(USER_ID).completed(true).version(version).build());
+
+        // Assert
+        assertTrue(patched.isPresent());
+        assertTrue(repository.findById("1").orElseThrow().getCompleted());
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> repository.patch("1", TaskPatch.builder().userId(USER_ID).title("x").version(version).build()));
+        assertEquals(Optional.empty(), repository.patch("2", TaskPatch.builder().userId(USER_ID).title("x").build()));
+    }
+
+    @Test
+    void patch_ShouldNotWriteTaskOfOtherUser() {
+        // Arrange
+        repository.save(task("1", "other"));
+
+        // Act
+        Optional<Long> patched = repository.patch("1", TaskPatch.builder().userId(USER_ID).title("x").build());
+
+        // Assert
+        assertEquals(Optional.empty(), patched);
+        assertEquals("title", repository.findById("1").orElseThrow().getTitle());
+    }
+
+    @Test
+    void deleteOwned_ShouldKeepTasksOfOtherUsers() {
+        // Arrange
+        repository.save(task("1", USER_ID));
+
+        // Act & Assert
+        assertFalse(repository.deleteOwned("1", "other"));
+        assertTrue(repository.deleteOwned("1", USER_ID));
+        assertFalse(repository.existsById("1"));
+    }
+
+    @Test
+    void migrateToUserScopedKeys_ShouldMoveLegacyKeysOnly() {
+        // Arrange
+        repository.save(task("1", USER_ID));
+        repository.save(task(USER_ID + "::2", USER_ID));
+
+        // Act
+        List<String> owners = repository.migrateToUserScopedKeys();
+
+        // Assert
+        assertEquals(List.of(USER_ID), owners);
+        assertFalse(repository.existsById("1"));
+        assertTrue(repository.existsById(USER_ID + "::1"));
+        assertTrue(repository.existsById(USER_ID + "::2"));
+    }
+
+    @Test
+    void save_ShouldLetExactlyOneOfConcurrentWritersWinEachVersion() throws Exception {
+        // Arrange
+        int threads = 8;
+        int rounds = 200;
+        repository.save(task("1", USER_ID));
+        AtomicInteger successes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        try {
+            List<Future<?>> futures = IntStream.range(0, threads).<Future<?>>mapToObj(i -> executor.submit(() -> {
+                for (int round = 0; round < rounds; round++) {
+                    Task read = repository.findById("1").orElseThrow();
+                    read.setTitle("writer " + i);
+                    try {
+                        repository.save(read);
+                        successes.incrementAndGet();
+                    } catch (OptimisticLockingFailureException e) {
+                        // Lost the race for this version
+                    }
+                }
+            })).toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        Task last = repository.findById("1").orElseThrow();
+        assertTrue(successes.get() >= rounds);
+        assertEquals(1, repository.findByUserId(USER_ID).orElseThrow().size());
+        assertEquals(last, repository.findByUserId(USER_ID).orElseThrow().get(0));
+    }
+}
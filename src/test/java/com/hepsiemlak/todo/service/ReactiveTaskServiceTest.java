@@ -0,0 +1,205 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.exception.InvalidCursorException;
+import com.hepsiemlak.todo.exception.TaskConflictException;
+import com.hepsiemlak.todo.exception.TaskNotFoundException;
+import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskPage;
+import com.hepsiemlak.todo.repository.ReactiveTaskRepository;
+import com.hepsiemlak.todo.repository.TaskListVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Flux;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.TASK_ID;
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author suleyman.yildirim
+ */
+@ExtendWith(MockitoExtension.class)
+class ReactiveTaskServiceTest {
+    @Mock
+    private ReactiveTaskRepository taskRepository;
+
+    @Mock
+    private TaskListVersionRepository taskListVersionRepository;
+
+    @Spy
+    private TaskCache taskCache = new TaskCache(true, 100, Duration.ofMinutes(1));
+
+    @Spy
+    private TaskKeys taskKeys = new TaskKeys(false);
+
+    @Spy
+    private KnownUserFilter knownUserFilter = new KnownUserFilter(true, 1000, 0.01, DataSize.ofKilobytes(16));
+
+    @InjectMocks
+    private ReactiveTaskService taskService;
+
+    private Task task;
+
+    @BeforeEach
+    public void setUp() {
+        task = Task.builder()
+                .taskId(TASK_ID)
+                .title("title")
+                .description("description")
+                .dueDate("2024-08-30")
+                .priority("High")
+                .completed(false)
+                .userId(USER_ID)
+                .build();
+    }
+
+    @Test
+    void testCreateTask_Success() {
+        // Arrange
+        when(taskRepository.save(any(Task.class))).thenReturn(Mono.just(task));
+        when(taskListVersionRepository.incrementReactive(USER_ID)).thenReturn(Mono.empty());
+
+        // Act
+        Task createdTask = taskService.createTask(task).block();
+
+        // Assert
+        assertEquals(task, createdTask);
+        verify(taskListVersionRepository).incrementReactive(USER_ID);
+    }
+
+    @Test
+    void testGetTasksByUser_NoTasks() {
+        // Arrange
+        when(taskRepository.findByUserId(USER_ID)).thenReturn(Flux.empty());
+
+        // Act & Assert
+        assertThrows(UserNotFoundException.class, () -> taskService.getTasksByUser(USER_ID).block());
+    }
+
+    @Test
+    void testGetTasksByUser_UnknownUserIsRejectedWithoutIo() {
+        // Arrange
+        knownUserFilter.rebuild(Stream.of(USER_ID));
+
+        // Act & Assert
+        assertThrows(UserNotFoundException.class, () -> taskService.getTasksByUser("unknown-user").block());
+        assertEquals(0L, taskService.getTaskListVersion("unknown-user").block());
+        verifyNoInteractions(taskRepository, taskListVersionRepository);
+    }
+
+    @Test
+    void testGetTaskPageByUser_ReturnsNextCursor() {
+        // Arrange
+        Task second = Task.builder().taskId("task-2").userId(USER_ID).title("second").build();
+        Task third = Task.builder().taskId("task-3").userId(USER_ID).title("third").build();
+        when(taskRepository.findPageByUserId(USER_ID, "", 3)).thenReturn(Flux.just(task, second, third));
+
+        // Act
+        TaskPage page = taskService.getTaskPageByUser(USER_ID, null, 2).block();
+
+        // Assert
+        assertNotNull(page);
+        assertEquals(List.of(task, second), page.getTasks());
+        assertEquals(TaskCursors.encode("task-2"), page.getNextCursor());
+    }
+
+    @Test
+    void testGetTaskPageByUser_InvalidCursor() {
+        // Act & Assert
+        assertThrows(InvalidCursorException.class, () -> taskService.getTaskPageByUser(USER_ID, "not a cursor!", 2).block());
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void testGetTaskByIdAndUser_ServedFromCacheOnSecondRead() {
+        // Arrange
+        when(taskRepository.findById(TASK_ID)).thenReturn(Mono.just(task));
+
+        // Act
+        taskService.getTaskByIdAndUser(TASK_ID, USER_ID).block();
+        Task cached = taskService.getTaskByIdAndUser(TASK_ID, USER_ID).block();
+
+        // Assert
+        assertEquals(task, cached);
+        verify(taskRepository, times(1)).findById(TASK_ID);
+    }
+
+    @Test
+    void testGetTaskByIdAndUser_OtherOwner() {
+        // Arrange
+        when(taskRepository.findById(TASK_ID)).thenReturn(Mono.just(task));
+
+        // Act & Assert
+        assertThrows(TaskNotFoundException.class, () -> taskService.getTaskByIdAndUser(TASK_ID, "someone-else").block());
+    }
+
+    @Test
+    void testDeleteTaskForUser_Success() {
+        // Arrange
+        when(taskRepository.findById(TASK_ID)).thenReturn(Mono.just(task));
+        when(taskRepository.delete(task)).thenReturn(Mono.empty());
+        when(taskListVersionRepository.incrementReactive(USER_ID)).thenReturn(Mono.empty());
+
+        // Act
+        taskService.deleteTaskForUser(TASK_ID, USER_ID).block();
+
+        // Assert
+        verify(taskRepository).delete(task);
+        verify(taskCache).evict(USER_ID, TASK_ID);
+        verify(taskListVersionRepository).incrementReactive(USER_ID);
+    }
+
+    @Test
+    void testDeleteTaskForUser_NotFound() {
+        // Arrange
+        when(taskRepository.findById(TASK_ID)).thenReturn(Mono.empty());
+
+        // Act & Assert
+        assertThrows(TaskNotFoundException.class, () -> taskService.deleteTaskForUser(TASK_ID, USER_ID).block());
+        verify(taskRepository, never()).delete(any(Task.class));
+    }
+
+    @Test
+    void testUpdateTaskForUser_StaleVersionIsConflict() {
+        // Arrange
+        task.setVersion(2L);
+        Task update = Task.builder().title("new title").userId(USER_ID).version(1L).build();
+        when(taskRepository.findById(TASK_ID)).thenReturn(Mono.just(task));
+
+        // Act & Assert
+        assertThrows(TaskConflictException.class, () -> taskService.updateTaskForUser(TASK_ID, update).block());
+        verify(taskRepository, never()).save(any(Task.class));
+    }
+
+    @Test
+    void testUpdateTaskForUser_SavesAtClientVersion() {
+        // Arrange
+        task.setVersion(2L);
+        Task update = Task.builder().title("new title").userId(USER_ID).version(2L).build();
+        when(taskRepository.findById(TASK_ID)).thenReturn(Mono.just(task));
+        when(taskRepository.save(any(Task.class))).thenReturn(Mono.error(new OptimisticLockingFailureException("cas mismatch")));
+
+        // Act & Assert
+        assertThrows(TaskConflictException.class, () -> taskService.updateTaskForUser(TASK_ID, update).block());
+        verify(taskRepository).save(argThat(saved -> Long.valueOf(2L).equals(saved.getVersion())));
+        verify(taskCache).evict(USER_ID, TASK_ID);
+        verify(taskListVersionRepository, never()).incrementReactive(USER_ID);
+    }
+}
@@ -1,9 +1,20 @@
 package com.hepsiemlak.todo.service;
 
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.cache.TaskCache;
 import com.hepsiemlak.todo.exception.ErrorCode;
+import com.hepsiemlak.todo.exception.InvalidCursorException;
+import com.hepsiemlak.todo.exception.TaskConflictException;
 import com.hepsiemlak.todo.exception.TaskNotFoundException;
 import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.BatchResult;
 import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.model.TaskChanges;
+import com.hepsiemlak.todo.model.TaskPage;
+import com.hepsiemlak.todo.model.TaskPatch;
+import com.hepsiemlak.todo.model.TaskSelection;
+import com.hepsiemlak.todo.repository.BulkWriteResult;
+import com.hepsiemlak.todo.repository.TaskListVersionRepository;
 import com.hepsiemlak.todo.repository.TaskRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,12 +23,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.hepsiemlak.todo.contants.TodoTestConstants.TASK_ID;
 import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
@@ -33,6 +50,18 @@ class TaskServiceTest {
     @Mock
     private TaskRepository taskRepository;
 
+    @Mock
+    private TaskListVersionRepository taskListVersionRepository;
+
+    @Spy
+    private TaskCache taskCache = new TaskCache(true, 100, Duration.ofMinutes(1));
+
+    @Spy
+    private TaskKeys taskKeys = new TaskKeys(false);
+
+    @Spy
+    private KnownUserFilter knownUserFilter = new KnownUserFilter(true, 1000, 0.01, DataSize.ofKilobytes(16));
+
     @InjectMocks
     private TaskService taskService;
 
@@ -79,12 +108,237 @@ class TaskServiceTest {
 
     }
 
+    @Test
+    void testCreateTask_ClearsClientVersionAndBumpsListVersion() {
+        // Arrange
+        task.setVersion(42L);
+        Mockito.when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Task createdTask = taskService.createTask(task);
+
+        // Assert
+        assertNull(createdTask.getVersion());
+        verify(taskListVersionRepository, times(1)).increment(USER_ID);
+    }
+
+    @Test
+    void testCreateTask_ExistingTaskIdIsConflict() {
+        // Arrange
+        Mockito.when(taskRepository.save(any(Task.class))).thenThrow(new DuplicateKeyException("exists"));
+
+        // Act
+        TaskConflictException exception = assertThrows(TaskConflictException.class, () -> taskService.createTask(task));
+
+        // Assert
+        assertEquals(ErrorCode.TASK_EXISTS, exception.getErrorCode());
+        verify(taskCache, never()).put(any(Task.class));
+        verify(taskListVersionRepository, never()).increment(USER_ID);
+    }
+
+    @Test
+    void testGetTasksByUser_UnknownUserIsRejectedWithoutQuery() {
+        // Arrange
+        knownUserFilter.rebuild(Stream.of(USER_ID));
+
+        // Act & Assert
+        assertThrows(UserNotFoundException.class, () -> taskService.getTasksByUser("unknown-user"));
+        assertEquals(0L, taskService.getTaskListVersion("unknown-user"));
+        verifyNoInteractions(taskRepository, taskListVersionRepository);
+    }
+
+    @Test
+    void testUpdateTaskForUser_ReplacesWithVersionThatWasRead() {
+        // Arrange
+        Task existingTask = new Task(TASK_ID, "title", "description", "2024-08-30", "High", false, USER_ID, 7L);
+        Task updatedTask = new Task(TASK_ID, "Updated", "description", "2024-08-30", "High", true, USER_ID, null);
+
+        Mockito.when(taskRepository.findById(TASK_ID)).thenReturn(Optional.of(existingTask));
+        Mockito.when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Task savedTask = taskService.updateTaskForUser(TASK_ID, updatedTask);
+
+        // Assert
+        assertEquals(7L, savedTask.getVersion());
+        assertEquals("Updated", savedTask.getTitle());
+        verify(taskListVersionRepository, times(1)).increment(USER_ID);
+    }
+
+    @Test
+    void testUpdateTaskForUser_SkipsReadForScopedKeyWithClientVersion() {
+        // Arrange
+        String scopedId = USER_ID + TaskKeys.SEPARATOR + TASK_ID;
+        Task updatedTask = new Task(scopedId, "Updated", "description", "2024-08-30", "High", true, USER_ID, 7L);
+        Mockito.when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Task savedTask = taskService.updateTaskForUser(scopedId, updatedTask);
+
+        // Assert
+        assertEquals(7L, savedTask.getVersion());
+        verify(taskRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void testUpdateTaskForUser_ConflictWhenClientVersionIsStale() {
+        // Arrange
+        Task existingTask = new Task(TASK_ID, "title", "description", "2024-08-30", "High", false, USER_ID, 8L);
+        Task updatedTask = new Task(TASK_ID, "Updated", "description", "2024-08-30", "High", true, USER_ID, 7L);
+        Mockito.when(taskRepository.findById(TASK_ID)).thenReturn(Optional.of(existingTask));
+
+        // Act & Assert
+        TaskConflictException exception = assertThrows(TaskConflictException.class,
+                () -> taskService.updateTaskForUser(TASK_ID, updatedTask));
+        assertEquals(ErrorCode.TASK_CONFLICT, exception.getErrorCode());
+        verify(taskRepository, never()).save(any(Task.class));
+    }
+
+    @Test
+    void testUpdateTaskForUser_ConflictWhenCasCheckFails() {
+        // Arrange
+        Task existingTask = new Task(TASK_ID, "title", "description", "2024-08-30", "High", false, USER_ID, 7L);
+        Task updatedTask = new Task(TASK_ID, "Updated", "description", "2024-08-30", "High", true, USER_ID, null);
+        Mockito.when(taskRepository.findById(TASK_ID)).thenReturn(Optional.of(existingTask));
+        Mockito.when(taskRepository.save(any(Task.class))).thenThrow(new OptimisticLockingFailureException("cas"));
+
+        // Act & Assert
+        assertThrows(TaskConflictException.class, () -> taskService.updateTaskForUser(TASK_ID, updatedTask));
+        verify(taskListVersionRepository, never()).increment(anyString());
+    }
+
+    @Test
+    void testPatchTaskForUser_ScopedKeyIsPatchedWithoutRead() {
+        // Arrange
+        String scopedId = USER_ID + TaskKeys.SEPARATOR + TASK_ID;
+        TaskPatch patch = TaskPatch.builder().userId(USER_ID).completed(true).version(7L).build();
+        Mockito.when(taskRepository.patch(scopedId, patch)).thenReturn(Optional.of(9L));
+
+        // Act
+        long version = taskService.patchTaskForUser(scopedId, patch);
+
+        // Assert
+        assertEquals(9L, version);
+        verify(taskRepository, never()).findById(anyString());
+        verify(taskCache, times(1)).evict(USER_ID, scopedId);
+        verify(taskListVersionRepository, times(1)).increment(USER_ID);
+    }
+
+    @Test
+    void testPatchTaskForUser_LegacyKeyOfOtherUserIsNotFound() {
+        // Arrange
+        TaskPatch patch = TaskPatch.builder().userId(USER_ID).title("Updated").build();
+        Mockito.when(taskRepository.patch(TASK_ID, patch)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(TaskNotFoundException.class, () -> taskService.patchTaskForUser(TASK_ID, patch));
+        verify(taskRepository, never()).findById(anyString());
+        verify(taskListVersionRepository, never()).increment(anyString());
+    }
+
+    @Test
+    void testPatchTaskForUser_KeyScopedToOtherUserIsNotPatched() {
+        // Arrange
+        TaskPatch patch = TaskPatch.builder().userId(USER_ID).title("Updated").build();
+
+        // Act & Assert
+        assertThrows(TaskNotFoundException.class,
+                () -> taskService.patchTaskForUser("other" + TaskKeys.SEPARATOR + TASK_ID, patch));
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void testPatchTaskForUser_ConflictWhenCasCheckFails() {
+        // Arrange
+        String scopedId = USER_ID + TaskKeys.SEPARATOR + TASK_ID;
+        TaskPatch patch = TaskPatch.builder().userId(USER_ID).priority("Low").version(7L).build();
+        Mockito.when(taskRepository.patch(scopedId, patch)).thenThrow(new OptimisticLockingFailureException("cas"));
+
+        // Act & Assert
+        assertThrows(TaskConflictException.class, () -> taskService.patchTaskForUser(scopedId, patch));
+        verify(taskListVersionRepository, never()).increment(anyString());
+    }
+
+    @Test
+    void createTasks_ShouldReportEachItem_WhenSomeTasksFail() {
+        // Arrange
+        Task created = new Task("1", "Task 1", "Description 1", "2024-08-15", "High", false, USER_ID, null);
+        Task duplicate = new Task("2", "Task 2", "Description 2", "2024-08-16", "Medium", true, USER_ID, null);
+        Task orphan = new Task("3", "Task 3", "Description 3", "2024-08-17", "Low", false, "unknown", null);
+
+        when(taskRepository.insertAll(List.of(created, duplicate))).thenReturn(List.of(
+                BulkWriteResult.success(created),
+                BulkWriteResult.failure(new DuplicateKeyException("exists"))));
+
+        // Act
+        BatchResult result = taskService.createTasks(List.of(created, duplicate, orphan), USER_ID::equals);
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertTrue(result.getItems().get(0).isSuccess());
+        assertEquals(ErrorCode.TASK_EXISTS.getCode(), result.getItems().get(1).getError());
+        assertEquals(ErrorCode.USER_NOT_FOUND.getCode(), result.getItems().get(2).getError());
+        verify(taskRepository, times(1)).insertAll(anyList());
+        verify(taskListVersionRepository, times(1)).increment(USER_ID);
+    }
+
+    @Test
+    void updateTasks_ShouldReportIdsThatWereNotChanged() {
+        // Arrange
+        TaskSelection selection = TaskSelection.builder().userId(USER_ID).taskIds(List.of(TASK_ID, "missing")).build();
+        TaskChanges changes = TaskChanges.builder().completed(true).build();
+
+        when(taskRepository.updateAll(selection, changes)).thenReturn(List.of(TASK_ID));
+
+        // Act
+        BatchResult result = taskService.updateTasks(selection, changes);
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertEquals(ErrorCode.TASK_NOT_FOUND.getCode(), result.getItems().get(1).getError());
+        verify(taskCache, times(1)).evict(USER_ID, TASK_ID);
+        verify(taskListVersionRepository, times(1)).increment(USER_ID);
+    }
+
+    @Test
+    void deleteTasks_ShouldReportEveryDeletedTask_WhenSelectingByPredicate() {
+        // Arrange
+        TaskSelection selection = TaskSelection.builder().userId(USER_ID).completed(true).build();
+
+        when(taskRepository.deleteAll(selection)).thenReturn(List.of("1", "2"));
+
+        // Act
+        BatchResult result = taskService.deleteTasks(selection);
+
+        // Assert
+        assertEquals(2, result.getSucceeded());
+        assertEquals(0, result.getFailed());
+        verify(taskRepository, never()).delete(any(Task.class));
+    }
+
+    @Test
+    void deleteTasks_ShouldNotBumpListVersion_WhenNothingMatched() {
+        // Arrange
+        TaskSelection selection = TaskSelection.builder().userId(USER_ID).completed(true).build();
+
+        when(taskRepository.deleteAll(selection)).thenReturn(List.of());
+
+        // Act
+        BatchResult result = taskService.deleteTasks(selection);
+
+        // Assert
+        assertEquals(0, result.getSucceeded());
+        verify(taskListVersionRepository, never()).increment(anyString());
+    }
+
     @Test
     void testGetTaskByIdAndUser_Success() {
         // Arrange
         String  taskId = task.getTaskId();
         String userId = task.getUserId();
-        Mockito.when(taskRepository.findByTaskIdAndUserId(taskId, userId)).thenReturn(Optional.of(task));
+        Mockito.when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
 
         // Act
         Task foundTask = taskService.getTaskByIdAndUser(taskId, userId);
@@ -100,12 +354,56 @@ class TaskServiceTest {
         assertEquals(userId, foundTask.getUserId());
     }
 
+    @Test
+    void testGetTaskByIdAndUser_SecondReadIsServedFromCache() {
+        // Arrange
+        Mockito.when(taskRepository.findById(TASK_ID)).thenReturn(Optional.of(task));
+
+        // Act
+        taskService.getTaskByIdAndUser(TASK_ID, USER_ID);
+        Task foundTask = taskService.getTaskByIdAndUser(TASK_ID, USER_ID);
+
+        // Assert
+        assertEquals(task, foundTask);
+        verify(taskRepository, times(1)).findById(TASK_ID);
+    }
+
+    @Test
+    void testGetTaskByIdAndUser_TaskOfAnotherUser_IsNotFound() {
+        // Arrange
+        Task foreignTask = new Task(TASK_ID, "title", "description", "2024-08-30", "High", false, "2", null);
+        Mockito.when(taskRepository.findById(TASK_ID)).thenReturn(Optional.of(foreignTask));
+
+        // Act & Assert
+        assertThrows(TaskNotFoundException.class, () -> taskService.getTaskByIdAndUser(TASK_ID, USER_ID));
+    }
+
+    @Test
+    void testGetTaskByIdAndUser_ScopedKeyOfAnotherUser_IsRejectedWithoutRead() {
+        // Act & Assert
+        assertThrows(TaskNotFoundException.class, () -> taskService.getTaskByIdAndUser("2::" + TASK_ID, USER_ID));
+        verify(taskRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void testCreateTask_UsesUserScopedKey_WhenEnabled() {
+        // Arrange
+        taskService = new TaskService(taskRepository, taskCache, taskListVersionRepository, new TaskKeys(true), knownUserFilter);
+        Mockito.when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Task createdTask = taskService.createTask(task);
+
+        // Assert
+        assertEquals(USER_ID + "::" + TASK_ID, createdTask.getTaskId());
+    }
+
     @Test
     void testGetTaskByIdAndUser_TaskNotFound() {
         // Arrange
         String taskId = "1";
         String userId = "123";
-        Mockito.when(taskRepository.findByTaskIdAndUserId(taskId, userId)).thenReturn(Optional.empty());
+        Mockito.when(taskRepository.findById(taskId)).thenReturn(Optional.empty());
 
         // Act
         TaskNotFoundException exception = assertThrows(TaskNotFoundException.class, () -> {
@@ -121,8 +419,8 @@ class TaskServiceTest {
     void getTasksByUser_ShouldReturnTasks_WhenUserExists() {
         // Arrange
         List<Task> expectedTasks = Arrays.asList(
-                new Task("1", "Task 1", "Description 1", "2024-08-15", "High", false, "1"),
-                new Task("2", "Task 2", "Description 2", "2024-08-16", "Medium", true, "1")
+                new Task("1", "Task 1", "Description 1", "2024-08-15", "High", false, "1", null),
+                new Task("2", "Task 2", "Description 2", "2024-08-16", "Medium", true, "1", null)
         );
 
         when(taskRepository.findByUserId(USER_ID)).thenReturn(Optional.of(expectedTasks));
@@ -152,30 +450,102 @@ class TaskServiceTest {
     }
 
     @Test
-    void deleteTaskForUser_ShouldDeleteTask_WhenTaskExists() {
+    void getTaskPageByUser_ShouldReturnNextCursor_WhenMoreTasksExist() {
         // Arrange
-        Task existingTask = new Task(TASK_ID, "Sample Task", "Sample Description", "2024-09-01", "High", false, USER_ID);
+        List<Task> rows = Arrays.asList(
+                new Task("1", "Task 1", "Description 1", "2024-08-15", "High", false, USER_ID, null),
+                new Task("2", "Task 2", "Description 2", "2024-08-16", "Medium", true, USER_ID, null),
+                new Task("3", "Task 3", "Description 3", "2024-08-17", "Low", false, USER_ID, null)
+        );
+
+        when(taskRepository.findPageByUserId(USER_ID, "", 3)).thenReturn(rows);
+
+        // Act
+        TaskPage page = taskService.getTaskPageByUser(USER_ID, null, 2);
+
+        // Assert
+        assertEquals(rows.subList(0, 2), page.getTasks());
+        assertNotNull(page.getNextCursor());
+
+        // The cursor resumes right after the last task of the page
+        when(taskRepository.findPageByUserId(USER_ID, "2", 3)).thenReturn(List.of(rows.get(2)));
+
+        TaskPage nextPage = taskService.getTaskPageByUser(USER_ID, page.getNextCursor(), 2);
+
+        assertEquals(List.of(rows.get(2)), nextPage.getTasks());
+        assertNull(nextPage.getNextCursor());
+    }
+
+    @Test
+    void getTaskPageByUser_ShouldThrowUserNotFoundException_WhenFirstPageIsEmpty() {
+        // Arrange
+        when(taskRepository.findPageByUserId(USER_ID, "", 11)).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(UserNotFoundException.class, () -> taskService.getTaskPageByUser(USER_ID, null, 10));
+    }
+
+    @Test
+    void getTaskPageByUser_ShouldThrowInvalidCursorException_WhenCursorIsMalformed() {
+        // Act & Assert
+        InvalidCursorException exception = assertThrows(InvalidCursorException.class,
+                () -> taskService.getTaskPageByUser(USER_ID, "not a cursor!", 10));
+
+        assertEquals(ErrorCode.INVALID_CURSOR, exception.getErrorCode());
+        verify(taskRepository, never()).findPageByUserId(anyString(), anyString(), anyInt());
+    }
 
-        when(taskRepository.findByTaskIdAndUserId(TASK_ID, USER_ID)).thenReturn(Optional.of(existingTask));
+    @Test
+    void deleteTaskForUser_ShouldDeleteTask_WhenTaskExists() {
+        // Arrange
+        when(taskRepository.deleteOwned(TASK_ID, USER_ID)).thenReturn(true);
 
         // Act
         taskService.deleteTaskForUser(TASK_ID, USER_ID);
 
         // Assert
-        verify(taskRepository, times(1)).delete(existingTask);
+        verify(taskRepository, never()).findById(anyString());
+        verify(taskCache, times(1)).evict(USER_ID, TASK_ID);
+        verify(taskListVersionRepository, times(1)).increment(USER_ID);
     }
 
     @Test
     void deleteTaskForUser_ShouldThrowTaskNotFoundException_WhenTaskDoesNotExist() {
         // Arrange
-
-        when(taskRepository.findByTaskIdAndUserId(TASK_ID, USER_ID)).thenReturn(Optional.empty());
+        when(taskRepository.deleteOwned(TASK_ID, USER_ID)).thenReturn(false);
 
         // Act & Assert
         assertThrows(TaskNotFoundException.class, () -> {
             taskService.deleteTaskForUser(TASK_ID, USER_ID);
         });
 
-        verify(taskRepository, times(0)).delete(any(Task.class));
+        verify(taskListVersionRepository, never()).increment(anyString());
+    }
+
+    @Test
+    void deleteTaskForUser_ShouldCheckTypeAndOwnerOfScopedKey() {
+        // Arrange
+        String scopedId = USER_ID + TaskKeys.SEPARATOR + TASK_ID;
+        when(taskRepository.deleteOwned(scopedId, USER_ID)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(TaskNotFoundException.class, () -> taskService.deleteTaskForUser(scopedId, USER_ID));
+        verify(taskListVersionRepository, never()).increment(anyString());
+    }
+
+    @Test
+    void deleteTaskForUser_ShouldNotTouchKeyScopedToOtherUser() {
+        // Act & Assert
+        assertThrows(TaskNotFoundException.class,
+                () -> taskService.deleteTaskForUser("other" + TaskKeys.SEPARATOR + TASK_ID, USER_ID));
+
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void migrateToUserScopedKeys_ShouldBeRefused_WhenNewTasksStillGetLegacyKeys() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> taskService.migrateToUserScopedKeys());
+        verify(taskRepository, never()).migrateToUserScopedKeys();
     }
-}
\ No newline at end of file
+}
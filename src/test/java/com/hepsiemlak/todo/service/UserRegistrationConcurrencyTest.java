@@ -0,0 +1,141 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.exception.UserExistsException;
+import com.hepsiemlak.todo.model.User;
+import com.hepsiemlak.todo.repository.TaskRepository;
+import com.hepsiemlak.todo.repository.UserRepository;
+import com.hepsiemlak.todo.repository.UsernameLookupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Races registrations against repositories that behave like Couchbase KV inserts: a write to an existing key
+ * fails, and every call takes {@link #LATENCY}.
+ *
+ * @author suleyman.yildirim
+ */
+class UserRegistrationConcurrencyTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(5);
+    private static final int RACERS = 32;
+
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final Map<String, String> usernames = new ConcurrentHashMap<>();
+    private final LongAdder roundTrips = new LongAdder();
+
+    private UserRepository userRepository;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.insert(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            roundTrip();
+            if (users.putIfAbsent(user.getUserId(), user) != null) {
+                throw new DuplicateKeyException("User %s exists".formatted(user.getUserId()));
+            }
+            return user;
+        });
+
+        UsernameLookupRepository usernameLookupRepository = mock(UsernameLookupRepository.class);
+        when(usernameLookupRepository.insert(anyString(), anyString())).thenAnswer(invocation -> {
+            roundTrip();
+            return usernames.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null;
+        });
+        doAnswer(invocation -> {
+            roundTrip();
+            return usernames.remove(invocation.<String>getArgument(0));
+        }).when(usernameLookupRepository).remove(anyString());
+
+        userService = new UserService(userRepository, mock(TaskRepository.class), usernameLookupRepository,
+                new KnownUserFilter(false, 1, 0.01, DataSize.ofBytes(8)), Runnable::run);
+    }
+
+    @Test
+    void registerUser_SameUserId_ExactlyOneSucceeds() throws Exception {
+        // Act
+        List<Throwable> outcomes = race(i -> new User("racer", "user-" + i, "user-" + i + "@example.com", null));
+
+        // Assert
+        assertEquals(1, outcomes.stream().filter(outcome -> outcome == null).count());
+        outcomes.stream().filter(outcome -> outcome != null)
+                .forEach(outcome -> assertInstanceOf(UserExistsException.class, outcome));
+        // The losers released the usernames they claimed
+        assertEquals(1, usernames.size());
+        verify(userRepository, never()).findByUserId(anyString());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void registerUser_SameUsername_ExactlyOneSucceeds() throws Exception {
+        // Act
+        List<Throwable> outcomes = race(i -> new User("racer-" + i, "racer", "racer-" + i + "@example.com", null));
+
+        // Assert
+        assertEquals(1, outcomes.stream().filter(outcome -> outcome == null).count());
+        assertEquals(1, users.size());
+        // Losers stop after the failed claim, so no request needs more than the two inserts of the winner
+        assertEquals(RACERS + 1, roundTrips.sum());
+    }
+
+    private List<Throwable> race(IntFunction<User> registration) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(RACERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<User>> results = new ArrayList<>(RACERS);
+            for (int i = 0; i < RACERS; i++) {
+                User user = registration.apply(i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return userService.registerUser(user);
+                }));
+            }
+            start.countDown();
+
+            List<Throwable> outcomes = new ArrayList<>(RACERS);
+            for (Future<User> result : results) {
+                try {
+                    result.get();
+                    outcomes.add(null);
+                } catch (ExecutionException e) {
+                    outcomes.add(e.getCause());
+                }
+            }
+            return outcomes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void roundTrip() throws InterruptedException {
+        roundTrips.increment();
+        Thread.sleep(LATENCY.toMillis());
+    }
+}
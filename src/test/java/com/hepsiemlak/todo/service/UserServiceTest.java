@@ -1,24 +1,32 @@
 package com.hepsiemlak.todo.service;
 
+import com.hepsiemlak.todo.cache.KnownUserFilter;
 import com.hepsiemlak.todo.exception.ErrorCode;
 import com.hepsiemlak.todo.exception.UserExistsException;
 import com.hepsiemlak.todo.exception.UserNotFoundException;
+import com.hepsiemlak.todo.model.Task;
 import com.hepsiemlak.todo.model.User;
 import com.hepsiemlak.todo.repository.TaskRepository;
 import com.hepsiemlak.todo.repository.UserRepository;
+import com.hepsiemlak.todo.repository.UsernameLookupRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.util.unit.DataSize;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -33,13 +41,18 @@ class UserServiceTest {
     @Mock
     private TaskRepository taskRepository;
 
-    @InjectMocks
+    @Mock
+    private UsernameLookupRepository usernameLookupRepository;
+
     private UserService userService;
 
+    private final KnownUserFilter knownUserFilter = new KnownUserFilter(true, 1000, 0.01, DataSize.ofKilobytes(16));
+
     private User user;
 
     @BeforeEach
     void setUp() {
+        userService = new UserService(userRepository, taskRepository, usernameLookupRepository, knownUserFilter, Runnable::run);
         user = User.builder()
                 .userId(USER_ID)
                 .username("newuser")
@@ -50,25 +63,122 @@ class UserServiceTest {
     @Test
     void testRegisterUser_UserAlreadyExistsByUserId_ThrowsException() {
         // Arrange
-        when(userRepository.findByUserId(anyString())).thenReturn(Optional.of(user));
+        when(usernameLookupRepository.insert("newuser", USER_ID)).thenReturn(true);
+        when(userRepository.insert(user)).thenThrow(new DuplicateKeyException("exists"));
 
         // Act & Assert
-        assertThrows(UserExistsException.class, () -> userService.registerUser(user));
+        UserExistsException exception = assertThrows(UserExistsException.class, () -> userService.registerUser(user));
+        assertEquals("User with ID 1 already exists.", exception.getMessage());
+        Mockito.verify(usernameLookupRepository, times(1)).remove("newuser");
         Mockito.verify(userRepository, never()).save(user);
     }
 
     @Test
     void testRegisterUser_UserDoesNotExist_SavesUser() {
         // Arrange
-        when(userRepository.findByUserId(anyString())).thenReturn(Optional.empty());
-        when(userRepository.save(user)).thenReturn(user);
+        when(usernameLookupRepository.insert("newuser", USER_ID)).thenReturn(true);
+        when(userRepository.insert(user)).thenReturn(user);
 
         // Act
         User savedUser = userService.registerUser(user);
 
         // Assert
         assertEquals(user, savedUser);
-        Mockito.verify(userRepository, times(1)).save(user);
+        assertTrue(knownUserFilter.mightContain(USER_ID));
+        Mockito.verify(userRepository, times(1)).insert(user);
+        Mockito.verify(userRepository, never()).findByUserId(anyString());
+    }
+
+    @Test
+    void testRegisterUser_UsernameTaken_ThrowsException() {
+        // Arrange
+        when(usernameLookupRepository.insert("newuser", USER_ID)).thenReturn(false);
+
+        // Act & Assert
+        UserExistsException exception = assertThrows(UserExistsException.class, () -> userService.registerUser(user));
+        assertEquals("Username newuser is already taken.", exception.getMessage());
+        Mockito.verify(userRepository, never()).insert(user);
+    }
+
+    @Test
+    void testRegisterUser_UsernameHeldByUserWithoutLookup_ThrowsException() {
+        // Arrange
+        when(usernameLookupRepository.isComplete()).thenReturn(false);
+        when(userRepository.existsByNormalizedUsername("newuser")).thenReturn(true);
+
+        // Act & Assert
+        UserExistsException exception = assertThrows(UserExistsException.class, () -> userService.registerUser(user));
+        assertEquals("Username newuser is already taken.", exception.getMessage());
+        Mockito.verify(usernameLookupRepository, never()).insert(anyString(), anyString());
+        Mockito.verify(userRepository, never()).insert(user);
+    }
+
+    @Test
+    void testRegisterUser_LookupsComplete_DoesNotQueryUsername() {
+        // Arrange
+        when(usernameLookupRepository.isComplete()).thenReturn(true);
+        when(usernameLookupRepository.insert("newuser", USER_ID)).thenReturn(true);
+        when(userRepository.insert(user)).thenReturn(user);
+
+        // Act
+        userService.registerUser(user);
+
+        // Assert
+        Mockito.verify(userRepository, never()).existsByNormalizedUsername(anyString());
+    }
+
+    @Test
+    void testBackfillUsernameLookups_WritesMissingLookupsAndMarksComplete() {
+        // Arrange
+        User indexed = User.builder().userId("indexed").username("Indexed").email("indexed@example.com").build();
+        when(userRepository.streamAllUserIds()).thenReturn(Stream.of(USER_ID, "indexed"));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        when(userRepository.findById("indexed")).thenReturn(Optional.of(indexed));
+        when(usernameLookupRepository.insert("newuser", USER_ID)).thenReturn(true);
+        when(usernameLookupRepository.insert("Indexed", "indexed")).thenReturn(false);
+
+        // Act
+        int written = userService.backfillUsernameLookups();
+
+        // Assert
+        assertEquals(1, written);
+        Mockito.verify(usernameLookupRepository, times(1)).markComplete();
+    }
+
+    @Test
+    void testRegisterUser_SaveFails_ReleasesUsername() {
+        // Arrange
+        when(usernameLookupRepository.insert("newuser", USER_ID)).thenReturn(true);
+        when(userRepository.insert(user)).thenThrow(new IllegalStateException("write failed"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> userService.registerUser(user));
+        Mockito.verify(usernameLookupRepository, times(1)).remove("newuser");
+    }
+
+    @Test
+    void testFindUserByUsername_ResolvedThroughLookup_DoesNotQuery() {
+        // Arrange
+        when(usernameLookupRepository.findUserId("NewUser")).thenReturn(Optional.of(USER_ID));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+
+        // Act
+        User result = userService.findUserByUsername("NewUser", false);
+
+        // Assert
+        assertEquals(user, result);
+        Mockito.verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void testFindUserByUsername_LookupMiss_DoesNotQuery_OnceLookupsAreComplete() {
+        // Arrange
+        when(usernameLookupRepository.findUserId("NewUser")).thenReturn(Optional.empty());
+        when(usernameLookupRepository.isComplete()).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(UserNotFoundException.class, () -> userService.findUserByUsername("NewUser", false));
+        Mockito.verify(userRepository, never()).findByUsername(anyString());
     }
 
     @Test
@@ -81,11 +191,40 @@ class UserServiceTest {
         when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
 
         // Act
-        var result = userService.findUserByUsername(username);
+        var result = userService.findUserByUsername(username, false);
 
         // Assert
         assertEquals(user, result);
         Mockito.verify(userRepository, times(1)).findByUsername(username);
+        Mockito.verify(usernameLookupRepository, times(1)).insert(username, null);
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void testFindByUserId_IncludeTasks_LoadsTasks() {
+        // Arrange
+        List<Task> tasks = List.of(Task.builder().taskId("1").userId(USER_ID).title("title").build());
+        when(userRepository.findByUserId(USER_ID)).thenReturn(Optional.of(user));
+        when(taskRepository.findByUserId(USER_ID)).thenReturn(Optional.of(tasks));
+
+        // Act
+        User result = userService.findByUserId(USER_ID, true);
+
+        // Assert
+        assertEquals(tasks, result.getTasks());
+    }
+
+    @Test
+    void testFindByUserId_WithoutTasks_DoesNotLoadTasks() {
+        // Arrange
+        when(userRepository.findByUserId(USER_ID)).thenReturn(Optional.of(user));
+
+        // Act
+        User result = userService.findByUserId(USER_ID, false);
+
+        // Assert
+        assertEquals(user, result);
+        verifyNoInteractions(taskRepository);
     }
 
     @Test
@@ -95,7 +234,7 @@ class UserServiceTest {
 
         // Act & Assert
         UserNotFoundException exception = assertThrows(UserNotFoundException.class, () -> {
-            userService.findUserByUsername("nonexistentuser");
+            userService.findUserByUsername("nonexistentuser", false);
         });
 
         // Assert
@@ -110,11 +249,47 @@ class UserServiceTest {
 
         // Act & Assert
         UserNotFoundException exception = assertThrows(UserNotFoundException.class, () -> {
-            userService.findByUserId("nonexistentId");
+            userService.findByUserId("nonexistentId", true);
         });
 
         // Assert
         assert(exception.getErrorCode()).equals(ErrorCode.USER_NOT_FOUND);
         assert(exception.getMessage()).equals("User with ID nonexistentId not found.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testExistsByUserId_UnknownUserIsRejectedWithoutIo() {
+        // Arrange
+        knownUserFilter.rebuild(Stream.of(USER_ID));
+
+        // Act & Assert
+        assertFalse(userService.existsByUserId("unknown-user"));
+        assertEquals(1, knownUserFilter.getRejectionCount());
+        verifyNoInteractions(userRepository, taskRepository);
+    }
+
+    @Test
+    void testRegisterUser_AddsUserToBuiltFilter() {
+        // Arrange
+        knownUserFilter.rebuild(Stream.empty());
+        when(usernameLookupRepository.insert("newuser", USER_ID)).thenReturn(true);
+        when(userRepository.insert(user)).thenReturn(user);
+
+        // Act
+        userService.registerUser(user);
+
+        // Assert
+        assertTrue(knownUserFilter.mightContain(USER_ID));
+    }
+
+    @Test
+    void testExistsByUserId_DoesNotLoadTasks() {
+        // Arrange
+        when(userRepository.existsById("nonexistentId")).thenReturn(false);
+
+        // Act & Assert
+        assertFalse(userService.existsByUserId("nonexistentId"));
+        verify(userRepository, never()).findByUserId(anyString());
+        verifyNoInteractions(taskRepository);
+    }
+}
@@ -0,0 +1,111 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.cache.KnownUserFilter;
+import com.hepsiemlak.todo.cache.TaskCache;
+import com.hepsiemlak.todo.model.Task;
+import com.hepsiemlak.todo.repository.TaskListVersionRepository;
+import com.hepsiemlak.todo.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hepsiemlak.todo.contants.TodoTestConstants.USER_ID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keeps thousands of task reads in flight against a repository stand-in that blocks for {@link #LATENCY}, once on a
+ * pool sized like Tomcat's default and once on virtual threads, the way the {@code virtual-threads} profile serves
+ * requests.
+ *
+ * @author suleyman.yildirim
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadSoakTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(200);
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int REQUESTS = 5_000;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private TaskService taskService;
+
+    @BeforeEach
+    void setUp() {
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        when(taskRepository.findById(anyString())).thenAnswer(invocation -> {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(LATENCY.toMillis());
+                return Optional.of(Task.builder().taskId(invocation.getArgument(0)).userId(USER_ID).build());
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        // The cache is off so every read reaches the slow repository
+        taskService = new TaskService(taskRepository, new TaskCache(false, 0, Duration.ZERO),
+                mock(TaskListVersionRepository.class), new TaskKeys(false), new KnownUserFilter(false, 1, 0.01, DataSize.ofBytes(8)));
+    }
+
+    @Test
+    void fixedThreadPool_CapsInFlightRequests() throws Exception {
+        // Act
+        submitAll(Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), REQUESTS / 10);
+
+        // Assert
+        assertTrue(peakInFlight.get() <= TOMCAT_MAX_THREADS);
+    }
+
+    @Test
+    void virtualThreads_KeepThousandsOfRequestsInFlight() throws Exception {
+        // Act
+        long start = System.nanoTime();
+        submitAll(newVirtualThreadPerTaskExecutor(), REQUESTS);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Assert
+        assertTrue(peakInFlight.get() > TOMCAT_MAX_THREADS * 5,
+                "Only %d requests were in flight at once".formatted(peakInFlight.get()));
+        // A pool of TOMCAT_MAX_THREADS would need REQUESTS / TOMCAT_MAX_THREADS rounds of LATENCY
+        assertTrue(elapsed.compareTo(LATENCY.multipliedBy(REQUESTS / TOMCAT_MAX_THREADS / 2)) < 0,
+                "%d requests took %d ms".formatted(REQUESTS, elapsed.toMillis()));
+    }
+
+    private void submitAll(ExecutorService executor, int requests) throws Exception {
+        try {
+            List<Future<Task>> responses = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                String taskId = "task-" + i;
+                responses.add(executor.submit(() -> taskService.getTaskByIdAndUser(taskId, USER_ID)));
+            }
+            for (Future<Task> response : responses) {
+                assertEquals(USER_ID, response.get(30, TimeUnit.SECONDS).getUserId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Looked up reflectively so the test sources still compile with the default Java 17 build.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws ReflectiveOperationException {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+}